@@ -16,6 +16,9 @@
 
 package org.terasology.gestalt.entitysystem.component;
 
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
 /**
  * An iterator over components. This doesn't use the standard iterator interface because of the
  * component copy behavior
@@ -41,4 +44,31 @@
      */
     void getComponent(Component<T> component);
 
+    /**
+     * Provides read-only access to the component of the current entity, without copying it where possible. The
+     * reader must not modify the component or retain it beyond the call.
+     * <p>
+     * The default implementation copies the component into the view and provides that, so the same view should be
+     * passed for each entity. Iterators over stores that hold component instances provide them directly instead.
+     *
+     * @param view   A component that the component of the current entity may be copied into
+     * @param reader The reader to provide the component to
+     */
+    default void read(T view, Consumer<? super T> reader) {
+        getComponent(view);
+        reader.accept(view);
+    }
+
+    /**
+     * Filters this iterator to the entities accepted by a predicate, such as
+     * {@link org.terasology.gestalt.entitysystem.component.store.ChangeTrackingComponentStore#changedSince} to skip
+     * the components that haven't changed. The returned iterator advances this iterator.
+     *
+     * @param entityFilter Tests the ids of the entities to include
+     * @return An iterator over the components of the entities accepted by the filter
+     */
+    default ComponentIterator<T> filter(IntPredicate entityFilter) {
+        return new FilteredComponentIterator<>(this, entityFilter);
+    }
+
 }
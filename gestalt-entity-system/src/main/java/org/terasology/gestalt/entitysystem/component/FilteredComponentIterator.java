@@ -0,0 +1,48 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component;
+
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * A component iterator that skips the entities of another iterator that are not accepted by a filter.
+ *
+ * @param <T> The type of component being iterated over
+ */
+final class FilteredComponentIterator<T extends Component<T>> implements ComponentIterator<T> {
+
+    private final ComponentIterator<T> inner;
+    private final IntPredicate entityFilter;
+
+    FilteredComponentIterator(ComponentIterator<T> inner, IntPredicate entityFilter) {
+        this.inner = inner;
+        this.entityFilter = entityFilter;
+    }
+
+    @Override
+    public boolean next() {
+        while (inner.next()) {
+            if (entityFilter.test(inner.getEntityId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getEntityId() {
+        return inner.getEntityId();
+    }
+
+    @Override
+    public void getComponent(Component<T> component) {
+        inner.getComponent(component);
+    }
+
+    @Override
+    public void read(T view, Consumer<? super T> reader) {
+        inner.read(view, reader);
+    }
+}
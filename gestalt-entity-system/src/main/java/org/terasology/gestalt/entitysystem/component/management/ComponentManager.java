@@ -28,12 +28,16 @@
 /**
  * Manager for components. Provides the ability to create or copy components, or retrieve information on the properties of the component that allows the individual
  * properties to be accessed.
+ * <p>
+ * By default, component types are taken from the {@link ComponentTypeDescriptor} generated for each component at compile time where available, falling back
+ * to the ComponentTypeFactory.
  */
 public class ComponentManager {
 
     private static final Logger logger = LoggerFactory.getLogger(ComponentManager.class);
 
     private final ComponentTypeFactory componentTypeFactory;
+    private final boolean useDescriptors;
     private final Map<Class<?>, ComponentType<?>> componentTypes = new ConcurrentHashMap<>();
 
     /**
@@ -41,7 +45,7 @@ public class ComponentManager {
      * In environments where it they are available it is recommended to use a high performance replacements from gestalt-es-perf
      */
     public ComponentManager() {
-        this.componentTypeFactory = new ReflectionComponentTypeFactory();
+        this(new ReflectionComponentTypeFactory());
     }
 
     /**
@@ -49,7 +53,17 @@ public ComponentManager() {
      * @param componentTypeFactory The ComponentTypeFactory to use to generate ComponentTypes
      */
     public ComponentManager(ComponentTypeFactory componentTypeFactory) {
+        this(componentTypeFactory, true);
+    }
+
+    /**
+     * Creates the ComponentManager using the provided componentTypeFactory
+     * @param componentTypeFactory The ComponentTypeFactory to use to generate ComponentTypes
+     * @param useDescriptors Whether to use compile time generated ComponentTypeDescriptors in preference to the componentTypeFactory
+     */
+    public ComponentManager(ComponentTypeFactory componentTypeFactory, boolean useDescriptors) {
         this.componentTypeFactory = componentTypeFactory;
+        this.useDescriptors = useDescriptors;
     }
 
     /**
@@ -87,12 +101,27 @@ public <T extends Component> T copy(T instance) {
     public <T extends Component> ComponentType<T> getType(Class<T> type) {
         ComponentType<T> typeInfo = (ComponentType<T>) componentTypes.get(type);
         if (typeInfo == null) {
-            typeInfo = componentTypeFactory.createComponentType(type);
+            typeInfo = createType(type);
             componentTypes.put(type, typeInfo);
         }
         return typeInfo;
     }
 
+    @SuppressWarnings("unchecked")
+    private <T extends Component> ComponentType<T> createType(Class<T> type) {
+        if (useDescriptors && type.getClassLoader() != null) {
+            try {
+                Class<?> descriptorClass = Class.forName(type.getName() + ComponentTypeDescriptor.CLASS_SUFFIX, true, type.getClassLoader());
+                return ((ComponentTypeDescriptor) descriptorClass.newInstance()).createComponentType();
+            } catch (ClassNotFoundException e) {
+                // No descriptor was generated for this component
+            } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+                logger.warn("Failed to use generated descriptor for {}, falling back to {}", type, componentTypeFactory.getClass().getSimpleName(), e);
+            }
+        }
+        return componentTypeFactory.createComponentType(type);
+    }
+
     /**
      * Provides a ComponentType, allowing for reflection like operations.
      *
@@ -0,0 +1,86 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.management;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A description of a type of component generated at compile time, providing its ComponentType without runtime
+ * reflection. The annotation processor in gestalt-inject-java generates a descriptor for each component class it
+ * compiles, named after the component class with the suffix {@link #CLASS_SUFFIX}, which the {@link ComponentManager}
+ * uses in preference to its ComponentTypeFactory.
+ *
+ * @param <T> The type of component
+ */
+public interface ComponentTypeDescriptor<T extends Component> {
+
+    /**
+     * The suffix added to the binary name of a component class to name its descriptor
+     */
+    String CLASS_SUFFIX = "$ComponentTypeDescriptor";
+
+    /**
+     * @return A new ComponentType for the component
+     */
+    ComponentType<T> createComponentType();
+
+    /**
+     * Creates a parameterized type, for the types of generic properties. For use by generated descriptors.
+     *
+     * @param rawType       The generic class
+     * @param typeArguments The type arguments of the class
+     * @return The parameterized type
+     */
+    static ParameterizedType parameterize(Class<?> rawType, Type... typeArguments) {
+        return new ParameterizedType() {
+            @Override
+            public Type[] getActualTypeArguments() {
+                return typeArguments.clone();
+            }
+
+            @Override
+            public Type getRawType() {
+                return rawType;
+            }
+
+            @Override
+            public Type getOwnerType() {
+                return rawType.getDeclaringClass();
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                if (obj instanceof ParameterizedType) {
+                    ParameterizedType other = (ParameterizedType) obj;
+                    return rawType.equals(other.getRawType()) && Objects.equals(getOwnerType(), other.getOwnerType())
+                            && Arrays.equals(typeArguments, other.getActualTypeArguments());
+                }
+                return false;
+            }
+
+            @Override
+            public int hashCode() {
+                // Matches the hash of the JDK's parameterized types, so the two are interchangeable
+                return Arrays.hashCode(typeArguments) ^ Objects.hashCode(getOwnerType()) ^ rawType.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                StringBuilder builder = new StringBuilder(rawType.getName()).append('<');
+                for (int i = 0; i < typeArguments.length; i++) {
+                    if (i > 0) {
+                        builder.append(", ");
+                    }
+                    builder.append(typeArguments[i].getTypeName());
+                }
+                return builder.append('>').toString();
+            }
+        };
+    }
+}
@@ -100,5 +100,119 @@ public void set(T instance, U value) {
         setter.accept(instance, value);
     }
 
+    /**
+     * Gets the value of a int property. By default this unboxes the value from {@link #get} - accessors that can
+     * access the property without boxing override this.
+     *
+     * @param instance The instance to retrieve the value of the property from
+     * @return The value of the property
+     */
+    public int getInt(T instance) {
+        return (Integer) get(instance);
+    }
+
+    /**
+     * Sets the value of a int property. By default this boxes the value for {@link #set} - accessors that can
+     * access the property without boxing override this.
+     *
+     * @param instance The instance to set the value of a property of
+     * @param value    The value to set the property to
+     */
+    @SuppressWarnings("unchecked")
+    public void setInt(T instance, int value) {
+        set(instance, (U) (Integer) value);
+    }
+
+    /**
+     * Gets the value of a long property. By default this unboxes the value from {@link #get} - accessors that can
+     * access the property without boxing override this.
+     *
+     * @param instance The instance to retrieve the value of the property from
+     * @return The value of the property
+     */
+    public long getLong(T instance) {
+        return (Long) get(instance);
+    }
+
+    /**
+     * Sets the value of a long property. By default this boxes the value for {@link #set} - accessors that can
+     * access the property without boxing override this.
+     *
+     * @param instance The instance to set the value of a property of
+     * @param value    The value to set the property to
+     */
+    @SuppressWarnings("unchecked")
+    public void setLong(T instance, long value) {
+        set(instance, (U) (Long) value);
+    }
+
+    /**
+     * Gets the value of a float property. By default this unboxes the value from {@link #get} - accessors that can
+     * access the property without boxing override this.
+     *
+     * @param instance The instance to retrieve the value of the property from
+     * @return The value of the property
+     */
+    public float getFloat(T instance) {
+        return (Float) get(instance);
+    }
+
+    /**
+     * Sets the value of a float property. By default this boxes the value for {@link #set} - accessors that can
+     * access the property without boxing override this.
+     *
+     * @param instance The instance to set the value of a property of
+     * @param value    The value to set the property to
+     */
+    @SuppressWarnings("unchecked")
+    public void setFloat(T instance, float value) {
+        set(instance, (U) (Float) value);
+    }
+
+    /**
+     * Gets the value of a double property. By default this unboxes the value from {@link #get} - accessors that can
+     * access the property without boxing override this.
+     *
+     * @param instance The instance to retrieve the value of the property from
+     * @return The value of the property
+     */
+    public double getDouble(T instance) {
+        return (Double) get(instance);
+    }
+
+    /**
+     * Sets the value of a double property. By default this boxes the value for {@link #set} - accessors that can
+     * access the property without boxing override this.
+     *
+     * @param instance The instance to set the value of a property of
+     * @param value    The value to set the property to
+     */
+    @SuppressWarnings("unchecked")
+    public void setDouble(T instance, double value) {
+        set(instance, (U) (Double) value);
+    }
+
+    /**
+     * Gets the value of a boolean property. By default this unboxes the value from {@link #get} - accessors that can
+     * access the property without boxing override this.
+     *
+     * @param instance The instance to retrieve the value of the property from
+     * @return The value of the property
+     */
+    public boolean getBoolean(T instance) {
+        return (Boolean) get(instance);
+    }
+
+    /**
+     * Sets the value of a boolean property. By default this boxes the value for {@link #set} - accessors that can
+     * access the property without boxing override this.
+     *
+     * @param instance The instance to set the value of a property of
+     * @param value    The value to set the property to
+     */
+    @SuppressWarnings("unchecked")
+    public void setBoolean(T instance, boolean value) {
+        set(instance, (U) (Boolean) value);
+    }
 
 }
@@ -21,6 +21,7 @@
 import org.terasology.gestalt.entitysystem.component.Component;
 
 import java.lang.reflect.Array;
+import java.util.function.Consumer;
 
 /**
  * ArrayComponentStore is a ComponentStore built atop a simple array. This provides good performance
@@ -72,6 +73,16 @@ public boolean get(int entityId, T into) {
         return false;
     }
 
+    @Override
+    public boolean read(int entityId, Consumer<? super T> reader) {
+        T value = store[entityId];
+        if (value != null) {
+            ReadOnlyCheck.read(type, value, reader);
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public boolean set(int entityId, T component) {
         if (store[entityId] == null) {
@@ -129,6 +140,11 @@ public void getComponent(Component<T> component) {
             component.copyFrom(store[index]);
         }
 
+        @Override
+        public void read(T view, Consumer<? super T> reader) {
+            ReadOnlyCheck.read(type, store[index], reader);
+        }
+
         @Override
         public int getEntityId() {
             return index;
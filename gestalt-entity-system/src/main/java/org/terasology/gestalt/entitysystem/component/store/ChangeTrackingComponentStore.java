@@ -0,0 +1,326 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.ComponentIterator;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+import org.terasology.gestalt.entitysystem.component.management.PropertyAccessor;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * A wrapper for a ComponentStore that records when the component of each entity last changed, so that incremental
+ * consumers (such as replication or render synchronization) can skip entities that haven't changed since they last
+ * looked at them.
+ * <p>
+ * Each actual change to the store advances the store's change tick, and the entity that changed is stamped with the new
+ * tick. Setting a component that has the same property values as the existing component is not a change. Optionally
+ * the tick at which each property last changed is also recorded. A consumer remembers the {@link #getCurrentTick()
+ * current tick} each time it processes changes, and next time filters its iteration to the components changed since
+ * then, and visits the components removed since then:
+ * <pre>
+ *     ComponentIterator&lt;T&gt; iterator = store.iterate().filter(store.changedSince(lastTick));
+ *     store.forEachRemovedSince(lastTick, entityId -> ...);
+ *     lastTick = store.getCurrentTick();
+ * </pre>
+ * Changes are made while holding this store's lock, so that comparing against the existing component and recording
+ * the change are atomic. Reads are passed straight through to the wrapped store, so are as thread safe as it is - a
+ * thread reading concurrently with a change may observe the changed component before its change tick is updated.
+ *
+ * @param <T> The type of component stored in this store
+ */
+@ThreadSafe
+public class ChangeTrackingComponentStore<T extends Component<T>> implements ComponentStore<T> {
+
+    private final ComponentStore<T> inner;
+    private final TrackedProperty<T>[] properties;
+    private final boolean trackProperties;
+    private final AtomicLong tick = new AtomicLong();
+    @GuardedBy("this")
+    private final ChangeCheck changeCheck;
+    private volatile long[] changeTicks;
+    private volatile long[] propertyChangeTicks;
+
+    /**
+     * @param inner The component store to wrap
+     */
+    public ChangeTrackingComponentStore(ComponentStore<T> inner) {
+        this(inner, false);
+    }
+
+    /**
+     * @param inner           The component store to wrap
+     * @param trackProperties Whether to record the tick at which each property of each component last changed
+     */
+    @SuppressWarnings("unchecked")
+    public ChangeTrackingComponentStore(ComponentStore<T> inner, boolean trackProperties) {
+        this.inner = inner;
+        this.trackProperties = trackProperties;
+        this.properties = inner.getType().getPropertyInfo().getProperties().values().stream().map(TrackedProperty::new).toArray(TrackedProperty[]::new);
+        this.changeCheck = new ChangeCheck();
+        int capacity = Math.max(inner.iterationCost(), 1);
+        this.changeTicks = new long[capacity];
+        this.propertyChangeTicks = trackProperties ? new long[capacity * properties.length] : new long[0];
+    }
+
+    /**
+     * @return The tick of the most recent change to this store
+     */
+    public long getCurrentTick() {
+        return tick.get();
+    }
+
+    /**
+     * @param entityId The id of the entity
+     * @return The tick at which the component of the entity was last added, changed or removed, or 0 if never
+     */
+    public long getChangeTick(int entityId) {
+        long[] ticks = changeTicks;
+        return (entityId < ticks.length) ? ticks[entityId] : 0;
+    }
+
+    /**
+     * @param entityId The id of the entity
+     * @param tick     The tick to compare against
+     * @return Whether the component of the entity has been added, changed or removed after the given tick
+     */
+    public boolean hasChangedSince(int entityId, long tick) {
+        return getChangeTick(entityId) > tick;
+    }
+
+    /**
+     * @param tick The tick to compare against
+     * @return A filter accepting the entities whose component has been added, changed or removed after the given tick,
+     * for use with {@link ComponentIterator#filter}
+     */
+    public IntPredicate changedSince(long tick) {
+        return entityId -> getChangeTick(entityId) > tick;
+    }
+
+    /**
+     * Visits the entities whose component has been removed after the given tick, and not added back since
+     *
+     * @param tick   The tick to compare against
+     * @param action The action to perform with the id of each entity
+     */
+    public void forEachRemovedSince(long tick, IntConsumer action) {
+        long[] ticks = changeTicks;
+        for (int entityId = 0; entityId < ticks.length; entityId++) {
+            if (ticks[entityId] > tick && !inner.has(entityId)) {
+                action.accept(entityId);
+            }
+        }
+    }
+
+    /**
+     * @param entityId The id of the entity
+     * @param property The name of the property
+     * @return The tick at which the property of the component of the entity last changed, or 0 if never. If properties
+     * are not being tracked this is the tick at which the component as a whole last changed.
+     * @throws IllegalArgumentException If the component type has no such property
+     */
+    public long getPropertyChangeTick(int entityId, String property) {
+        int propertyIndex = indexOf(property);
+        if (!trackProperties) {
+            return getChangeTick(entityId);
+        }
+        long[] ticks = propertyChangeTicks;
+        int index = entityId * properties.length + propertyIndex;
+        return (index < ticks.length) ? ticks[index] : 0;
+    }
+
+    private int indexOf(String property) {
+        for (int i = 0; i < properties.length; i++) {
+            if (properties[i].accessor.getName().equals(property)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Component type " + getType().getComponentClass() + " has no property '" + property + "'");
+    }
+
+    @Override
+    public ComponentType<T> getType() {
+        return inner.getType();
+    }
+
+    @Override
+    public boolean has(int entityId) {
+        return inner.has(entityId);
+    }
+
+    @Override
+    public boolean get(int entityId, T into) {
+        return inner.get(entityId, into);
+    }
+
+    @Override
+    public boolean read(int entityId, Consumer<? super T> reader) {
+        return inner.read(entityId, reader);
+    }
+
+    @Override
+    public synchronized boolean set(int entityId, T component) {
+        return store(entityId, component, false);
+    }
+
+    /**
+     * Restores the component into the wrapped store, recording the change like {@link #set(int, Component)}
+     */
+    @Override
+    public synchronized boolean restore(int entityId, T component) {
+        return store(entityId, component, true);
+    }
+
+    private boolean store(int entityId, T component, boolean restoring) {
+        if (entityId >= changeTicks.length) {
+            ensureCapacity(entityId + 1);
+        }
+        boolean existed = changeCheck.compare(entityId, component);
+        if (restoring) {
+            inner.restore(entityId, component);
+        } else {
+            inner.set(entityId, component);
+        }
+        if (!existed) {
+            recordChange(entityId);
+            return true;
+        }
+        if (changeCheck.changed) {
+            recordChange(entityId, changeCheck.changedProperties);
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized T remove(int entityId) {
+        T removed = inner.remove(entityId);
+        if (removed != null) {
+            recordChange(entityId);
+        }
+        return removed;
+    }
+
+    /**
+     * Stamps the entity and all its properties with a new tick, as its component was added or removed
+     */
+    private void recordChange(int entityId) {
+        if (entityId >= changeTicks.length) {
+            ensureCapacity(entityId + 1);
+        }
+        long newTick = tick.incrementAndGet();
+        changeTicks[entityId] = newTick;
+        if (trackProperties) {
+            int start = entityId * properties.length;
+            Arrays.fill(propertyChangeTicks, start, start + properties.length, newTick);
+        }
+    }
+
+    /**
+     * Stamps the entity and its changed properties with a new tick
+     */
+    private void recordChange(int entityId, boolean[] changedProperties) {
+        long newTick = tick.incrementAndGet();
+        changeTicks[entityId] = newTick;
+        if (trackProperties) {
+            int start = entityId * properties.length;
+            for (int i = 0; i < properties.length; i++) {
+                if (changedProperties[i]) {
+                    propertyChangeTicks[start + i] = newTick;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int iterationCost() {
+        return inner.iterationCost();
+    }
+
+    @Override
+    public void extend(int capacity) {
+        inner.extend(capacity);
+        ensureCapacity(capacity + 1);
+    }
+
+    private synchronized void ensureCapacity(int capacity) {
+        if (capacity > changeTicks.length) {
+            int newCapacity = Math.max(capacity, changeTicks.length * 2);
+            if (trackProperties) {
+                propertyChangeTicks = Arrays.copyOf(propertyChangeTicks, newCapacity * properties.length);
+            }
+            changeTicks = Arrays.copyOf(changeTicks, newCapacity);
+        }
+    }
+
+    @Override
+    public ComponentIterator<T> iterate() {
+        return inner.iterate();
+    }
+
+    /**
+     * A property of the component type, compared without boxing where it is primitive
+     */
+    private static final class TrackedProperty<T> {
+        private final PropertyAccessor<T, ?> accessor;
+        private final PrimitiveType primitiveType;
+
+        TrackedProperty(PropertyAccessor<T, ?> accessor) {
+            this.accessor = accessor;
+            this.primitiveType = PrimitiveType.of(accessor.getPropertyType());
+        }
+
+        boolean equal(T a, T b) {
+            if (primitiveType != null) {
+                return primitiveType.equal(accessor, a, b);
+            }
+            return Objects.deepEquals(accessor.get(a), accessor.get(b));
+        }
+    }
+
+    /**
+     * Compares the existing component of an entity against the component being set, without copying the existing
+     * component. Used while holding the store's lock.
+     */
+    private final class ChangeCheck implements Consumer<T> {
+        private final boolean[] changedProperties = new boolean[properties.length];
+        private T current;
+        private boolean changed;
+
+        /**
+         * @return Whether the entity has an existing component to compare against
+         */
+        boolean compare(int entityId, T component) {
+            current = component;
+            changed = false;
+            try {
+                return inner.read(entityId, this);
+            } finally {
+                current = null;
+            }
+        }
+
+        @Override
+        public void accept(T existing) {
+            for (int i = 0; i < properties.length; i++) {
+                boolean propertyChanged = !properties[i].equal(existing, current);
+                changedProperties[i] = propertyChanged;
+                if (propertyChanged) {
+                    changed = true;
+                    if (!trackProperties) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -20,6 +20,8 @@
 import org.terasology.gestalt.entitysystem.component.ComponentIterator;
 import org.terasology.gestalt.entitysystem.component.management.ComponentType;
 
+import java.util.function.Consumer;
+
 /**
  * A component store holds definitive copies of components of a specific type used by entities.
  *
@@ -47,6 +49,26 @@
      */
     boolean get(int entityId, T into);
 
+    /**
+     * Provides read-only access to the component stored for an entity, without copying it where the store allows.
+     * The reader must not modify the component or retain it beyond the call. When assertions are enabled, stores
+     * that provide their stored components directly will check that readers don't modify them.
+     * <p>
+     * The default implementation copies the component into a new instance.
+     *
+     * @param entityId The entity
+     * @param reader   The reader to provide the component to
+     * @return Whether a component existed for the given entity id
+     */
+    default boolean read(int entityId, Consumer<? super T> reader) {
+        T component = getType().create();
+        if (get(entityId, component)) {
+            reader.accept(component);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Stores a copy of the provided component against the given entity
      *
@@ -57,6 +79,20 @@
      */
     boolean set(int entityId, T component);
 
+    /**
+     * Stores a copy of the provided component against the given entity as part of restoring saved entity state, such as
+     * from a snapshot. Restoring is not a change made by the game - stores that wrap another store to react to changes
+     * (such as {@link org.terasology.gestalt.entitysystem.event.lifecycle.LifecycleAwareComponentStore}) pass restored
+     * components straight through to the store they wrap. By default this is the same as {@link #set(int, Component)}.
+     *
+     * @param entityId  The entity to restore the component for
+     * @param component The component to store
+     * @return True if the component was added to the entity (as opposed to existing and updated)
+     */
+    default boolean restore(int entityId, T component) {
+        return set(entityId, component);
+    }
+
     /**
      * Removes/deletes the component - if any - for the given entity
      *
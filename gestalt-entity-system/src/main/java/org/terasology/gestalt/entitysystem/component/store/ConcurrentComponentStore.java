@@ -26,6 +26,7 @@
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 /**
  * ConcurrentComponentStore wraps another ComponentStore, making it thread safe - at least in so
@@ -81,6 +82,17 @@ public boolean get(int entityId, T into) {
         }
     }
 
+    @Override
+    public boolean read(int entityId, Consumer<? super T> reader) {
+        Lock lock = locks.readLock();
+        lock.lock();
+        try {
+            return store.read(entityId, reader);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     public boolean set(int entityId, T component) {
         Lock lock = locks.writeLock();
@@ -157,5 +169,16 @@ public void getComponent(Component<T> component) {
                 lock.unlock();
             }
         }
+
+        @Override
+        public void read(T view, Consumer<? super T> reader) {
+            Lock lock = locks.readLock();
+            lock.lock();
+            try {
+                inner.read(view, reader);
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 }
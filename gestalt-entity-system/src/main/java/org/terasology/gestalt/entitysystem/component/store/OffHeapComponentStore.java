@@ -0,0 +1,225 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.ComponentIterator;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+import org.terasology.gestalt.entitysystem.component.management.PropertyAccessor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OffHeapComponentStore is a ComponentStore that serializes components into a direct ByteBuffer, outside of the Java
+ * heap. Each entity id is given a fixed size record in the buffer, made up of a presence flag followed by each
+ * property of the component. As such no component instances are held by the store, which keeps large numbers of
+ * components out of the reach of the garbage collector.
+ * <p>
+ * Like {@link PackedComponentStore}, this store only supports components whose properties are all int, long, float,
+ * double or boolean - use {@link #isSupported(ComponentType)} to check whether a component type is eligible.
+ *
+ * @param <T> The type of component stored in this ComponentStore
+ */
+public class OffHeapComponentStore<T extends Component<T>> implements ComponentStore<T> {
+    private static final byte PRESENT = 1;
+    private static final byte ABSENT = 0;
+
+    private final ComponentType<T> type;
+    private final Field<T>[] fields;
+    private final int stride;
+    private ByteBuffer buffer;
+    private int capacity;
+
+    /**
+     * @param componentType Type information for the component type to store
+     * @throws IllegalArgumentException If the component type has properties that are not supported
+     */
+    public OffHeapComponentStore(ComponentType<T> componentType) {
+        this(componentType, 1000);
+    }
+
+    /**
+     * @param type            Type information for the component type to store
+     * @param initialCapacity The initial capacity of the store
+     * @throws IllegalArgumentException If the component type has properties that are not supported, or the initial
+     *                                  capacity is too large to fit in a single buffer
+     */
+    @SuppressWarnings("unchecked")
+    public OffHeapComponentStore(ComponentType<T> type, int initialCapacity) {
+        if (!isSupported(type)) {
+            throw new IllegalArgumentException("Component type " + type.getComponentClass() + " has properties that cannot be stored off heap");
+        }
+        this.type = type;
+        List<Field<T>> fieldList = new ArrayList<>();
+        int offset = 1;
+        for (PropertyAccessor<T, ?> accessor : type.getPropertyInfo().getProperties().values()) {
+            PrimitiveType primitiveType = PrimitiveType.of(accessor.getPropertyType());
+            fieldList.add(new Field<>(accessor, primitiveType, offset));
+            offset += primitiveType.getSize();
+        }
+        this.fields = fieldList.toArray(new Field[0]);
+        this.stride = offset;
+        this.capacity = initialCapacity;
+        this.buffer = allocate(initialCapacity);
+    }
+
+    /**
+     * @param type The component type to check
+     * @return Whether all the properties of the component type can be stored off heap
+     */
+    public static boolean isSupported(ComponentType<?> type) {
+        return PrimitiveType.allPrimitive(type);
+    }
+
+    private ByteBuffer allocate(int entityCapacity) {
+        checkCapacity(entityCapacity);
+        return ByteBuffer.allocateDirect(entityCapacity * stride).order(ByteOrder.nativeOrder());
+    }
+
+    private void checkCapacity(long entityCapacity) {
+        if (entityCapacity > maxCapacity()) {
+            throw new IllegalArgumentException("Cannot store " + entityCapacity + " entities off heap for " + type.getComponentClass()
+                    + ", the maximum is " + maxCapacity());
+        }
+    }
+
+    /**
+     * @return The largest number of entities that fit in a single buffer
+     */
+    private int maxCapacity() {
+        return Integer.MAX_VALUE / stride;
+    }
+
+    @Override
+    public ComponentType<T> getType() {
+        return type;
+    }
+
+    @Override
+    public boolean has(int entityId) {
+        return buffer.get(entityId * stride) == PRESENT;
+    }
+
+    @Override
+    public boolean get(int entityId, T into) {
+        int offset = entityId * stride;
+        if (buffer.get(offset) == PRESENT) {
+            load(offset, into);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean set(int entityId, T component) {
+        int offset = entityId * stride;
+        for (Field<T> field : fields) {
+            field.primitiveType.store(buffer, offset + field.offset, field.accessor, component);
+        }
+        if (buffer.get(offset) == ABSENT) {
+            buffer.put(offset, PRESENT);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public T remove(int entityId) {
+        int offset = entityId * stride;
+        if (buffer.get(offset) == PRESENT) {
+            T result = type.create();
+            load(offset, result);
+            buffer.put(offset, ABSENT);
+            return result;
+        }
+        return null;
+    }
+
+    @Override
+    public int iterationCost() {
+        return capacity;
+    }
+
+    /**
+     * Extends the store by allocating a larger direct buffer and bulk copying the existing records across.
+     *
+     * @param newCapacity The new capacity of entity ids that the store should support
+     * @throws IllegalArgumentException If the records for that many entities would not fit in a single buffer
+     */
+    @Override
+    public void extend(int newCapacity) {
+        if (newCapacity >= capacity) {
+            checkCapacity(newCapacity + 1L);
+            int extendedCapacity = (int) Math.min(newCapacity * 2L, maxCapacity());
+            ByteBuffer newBuffer = allocate(extendedCapacity);
+            ByteBuffer source = buffer.duplicate();
+            source.clear();
+            newBuffer.put(source);
+            newBuffer.clear();
+            buffer = newBuffer;
+            capacity = extendedCapacity;
+        }
+    }
+
+    @Override
+    public ComponentIterator<T> iterate() {
+        return new OffHeapComponentIterator();
+    }
+
+    private void load(int offset, T into) {
+        for (Field<T> field : fields) {
+            field.primitiveType.load(buffer, offset + field.offset, field.accessor, into);
+        }
+    }
+
+    /**
+     * The layout of a single property within an entity's record
+     */
+    private static final class Field<T> {
+        private final PropertyAccessor<T, ?> accessor;
+        private final PrimitiveType primitiveType;
+        private final int offset;
+
+        Field(PropertyAccessor<T, ?> accessor, PrimitiveType primitiveType, int offset) {
+            this.accessor = accessor;
+            this.primitiveType = primitiveType;
+            this.offset = offset;
+        }
+    }
+
+    private class OffHeapComponentIterator implements ComponentIterator<T> {
+
+        private final ByteBuffer iterationBuffer = buffer;
+        private final int endIndex = capacity;
+        private int index = -1;
+
+        @Override
+        public boolean next() {
+            index++;
+            while (index < endIndex && iterationBuffer.get(index * stride) != PRESENT) {
+                index++;
+            }
+            return index < endIndex;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void getComponent(Component<T> component) {
+            load(index * stride, (T) component);
+        }
+
+        @Override
+        public int getEntityId() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return index + " of " + endIndex;
+        }
+    }
+}
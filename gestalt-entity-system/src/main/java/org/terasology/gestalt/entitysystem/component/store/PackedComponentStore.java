@@ -0,0 +1,318 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.ComponentIterator;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+import org.terasology.gestalt.entitysystem.component.management.PropertyAccessor;
+
+import java.util.Arrays;
+
+/**
+ * PackedComponentStore is a ComponentStore that lays out each property of a component as its own primitive array
+ * (a structure of arrays), rather than keeping a component instance per entity. Gets and sets gather and scatter
+ * the properties of the component, and iteration walks contiguous primitive memory without any per-entity objects
+ * for the garbage collector to trace.
+ * <p>
+ * This store only supports components whose properties are all int, long, float, double or boolean - use
+ * {@link #isSupported(ComponentType)} to check whether a component type is eligible. It is intended as a drop-in
+ * replacement for {@link ArrayComponentStore} for such components, with the same performance characteristics for
+ * gets, sets and iteration by entity id:
+ * <pre>
+ *     ComponentStore&lt;T&gt; store = PackedComponentStore.isSupported(type) ? new PackedComponentStore&lt;&gt;(type) : new ArrayComponentStore&lt;&gt;(type);
+ * </pre>
+ *
+ * @param <T> The type of component stored in this ComponentStore
+ */
+public class PackedComponentStore<T extends Component<T>> implements ComponentStore<T> {
+    private final ComponentType<T> type;
+    private final Column<T>[] columns;
+    private boolean[] present;
+
+    /**
+     * @param componentType Type information for the component type to store
+     * @throws IllegalArgumentException If the component type has properties that are not supported
+     */
+    public PackedComponentStore(ComponentType<T> componentType) {
+        this(componentType, 1000);
+    }
+
+    /**
+     * @param type            Type information for the component type to store
+     * @param initialCapacity The initial capacity of the store
+     * @throws IllegalArgumentException If the component type has properties that are not supported
+     */
+    @SuppressWarnings("unchecked")
+    public PackedComponentStore(ComponentType<T> type, int initialCapacity) {
+        if (!isSupported(type)) {
+            throw new IllegalArgumentException("Component type " + type.getComponentClass() + " has properties that cannot be packed");
+        }
+        this.type = type;
+        this.present = new boolean[initialCapacity];
+        this.columns = type.getPropertyInfo().getProperties().values().stream()
+                .map(accessor -> createColumn(accessor, initialCapacity))
+                .toArray(Column[]::new);
+    }
+
+    /**
+     * @param type The component type to check
+     * @return Whether all the properties of the component type can be packed into primitive arrays
+     */
+    public static boolean isSupported(ComponentType<?> type) {
+        return PrimitiveType.allPrimitive(type);
+    }
+
+    private static <T> Column<T> createColumn(PropertyAccessor<T, ?> accessor, int capacity) {
+        switch (PrimitiveType.of(accessor.getPropertyType())) {
+            case INT:
+                return new IntColumn<>(accessor, capacity);
+            case LONG:
+                return new LongColumn<>(accessor, capacity);
+            case FLOAT:
+                return new FloatColumn<>(accessor, capacity);
+            case DOUBLE:
+                return new DoubleColumn<>(accessor, capacity);
+            default:
+                return new BooleanColumn<>(accessor, capacity);
+        }
+    }
+
+    @Override
+    public ComponentType<T> getType() {
+        return type;
+    }
+
+    @Override
+    public boolean has(int entityId) {
+        return present[entityId];
+    }
+
+    @Override
+    public boolean get(int entityId, T into) {
+        if (present[entityId]) {
+            load(entityId, into);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean set(int entityId, T component) {
+        for (Column<T> column : columns) {
+            column.store(entityId, component);
+        }
+        if (!present[entityId]) {
+            present[entityId] = true;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public T remove(int entityId) {
+        if (present[entityId]) {
+            T result = type.create();
+            load(entityId, result);
+            present[entityId] = false;
+            return result;
+        }
+        return null;
+    }
+
+    @Override
+    public int iterationCost() {
+        return present.length;
+    }
+
+    @Override
+    public void extend(int capacity) {
+        if (capacity >= present.length) {
+            int newCapacity = capacity * 2;
+            present = Arrays.copyOf(present, newCapacity);
+            for (Column<T> column : columns) {
+                column.extend(newCapacity);
+            }
+        }
+    }
+
+    @Override
+    public ComponentIterator<T> iterate() {
+        return new PackedComponentIterator();
+    }
+
+    private void load(int entityId, T into) {
+        for (Column<T> column : columns) {
+            column.load(entityId, into);
+        }
+    }
+
+    /**
+     * A column holds the values of a single property for all entities
+     */
+    private abstract static class Column<T> {
+        protected final PropertyAccessor<T, ?> accessor;
+
+        Column(PropertyAccessor<T, ?> accessor) {
+            this.accessor = accessor;
+        }
+
+        abstract void store(int index, T from);
+
+        abstract void load(int index, T into);
+
+        abstract void extend(int capacity);
+    }
+
+    private static final class IntColumn<T> extends Column<T> {
+        private int[] values;
+
+        IntColumn(PropertyAccessor<T, ?> accessor, int capacity) {
+            super(accessor);
+            values = new int[capacity];
+        }
+
+        @Override
+        void store(int index, T from) {
+            values[index] = accessor.getInt(from);
+        }
+
+        @Override
+        void load(int index, T into) {
+            accessor.setInt(into, values[index]);
+        }
+
+        @Override
+        void extend(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static final class LongColumn<T> extends Column<T> {
+        private long[] values;
+
+        LongColumn(PropertyAccessor<T, ?> accessor, int capacity) {
+            super(accessor);
+            values = new long[capacity];
+        }
+
+        @Override
+        void store(int index, T from) {
+            values[index] = accessor.getLong(from);
+        }
+
+        @Override
+        void load(int index, T into) {
+            accessor.setLong(into, values[index]);
+        }
+
+        @Override
+        void extend(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static final class FloatColumn<T> extends Column<T> {
+        private float[] values;
+
+        FloatColumn(PropertyAccessor<T, ?> accessor, int capacity) {
+            super(accessor);
+            values = new float[capacity];
+        }
+
+        @Override
+        void store(int index, T from) {
+            values[index] = accessor.getFloat(from);
+        }
+
+        @Override
+        void load(int index, T into) {
+            accessor.setFloat(into, values[index]);
+        }
+
+        @Override
+        void extend(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static final class DoubleColumn<T> extends Column<T> {
+        private double[] values;
+
+        DoubleColumn(PropertyAccessor<T, ?> accessor, int capacity) {
+            super(accessor);
+            values = new double[capacity];
+        }
+
+        @Override
+        void store(int index, T from) {
+            values[index] = accessor.getDouble(from);
+        }
+
+        @Override
+        void load(int index, T into) {
+            accessor.setDouble(into, values[index]);
+        }
+
+        @Override
+        void extend(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static final class BooleanColumn<T> extends Column<T> {
+        private boolean[] values;
+
+        BooleanColumn(PropertyAccessor<T, ?> accessor, int capacity) {
+            super(accessor);
+            values = new boolean[capacity];
+        }
+
+        @Override
+        void store(int index, T from) {
+            values[index] = accessor.getBoolean(from);
+        }
+
+        @Override
+        void load(int index, T into) {
+            accessor.setBoolean(into, values[index]);
+        }
+
+        @Override
+        void extend(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private class PackedComponentIterator implements ComponentIterator<T> {
+
+        private int index = -1;
+        private int endIndex = present.length;
+
+        @Override
+        public boolean next() {
+            index++;
+            while (index < endIndex && !present[index]) {
+                index++;
+            }
+            return index < endIndex;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void getComponent(Component<T> component) {
+            load(index, (T) component);
+        }
+
+        @Override
+        public int getEntityId() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return index + " of " + endIndex;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+import org.terasology.gestalt.entitysystem.component.management.PropertyAccessor;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+
+/**
+ * The primitive property types supported by the packed component stores, along with their size and how they are
+ * read from and written to a ByteBuffer and compared, through the unboxed methods of {@link PropertyAccessor}.
+ */
+enum PrimitiveType {
+    INT(Integer.BYTES) {
+        @Override
+        <T> void load(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T into) {
+            accessor.setInt(into, buffer.getInt(offset));
+        }
+
+        @Override
+        <T> void store(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T from) {
+            buffer.putInt(offset, accessor.getInt(from));
+        }
+
+        @Override
+        <T> boolean equal(PropertyAccessor<T, ?> accessor, T a, T b) {
+            return accessor.getInt(a) == accessor.getInt(b);
+        }
+    },
+    LONG(Long.BYTES) {
+        @Override
+        <T> void load(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T into) {
+            accessor.setLong(into, buffer.getLong(offset));
+        }
+
+        @Override
+        <T> void store(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T from) {
+            buffer.putLong(offset, accessor.getLong(from));
+        }
+
+        @Override
+        <T> boolean equal(PropertyAccessor<T, ?> accessor, T a, T b) {
+            return accessor.getLong(a) == accessor.getLong(b);
+        }
+    },
+    FLOAT(Float.BYTES) {
+        @Override
+        <T> void load(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T into) {
+            accessor.setFloat(into, buffer.getFloat(offset));
+        }
+
+        @Override
+        <T> void store(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T from) {
+            buffer.putFloat(offset, accessor.getFloat(from));
+        }
+
+        @Override
+        <T> boolean equal(PropertyAccessor<T, ?> accessor, T a, T b) {
+            return Float.floatToIntBits(accessor.getFloat(a)) == Float.floatToIntBits(accessor.getFloat(b));
+        }
+    },
+    DOUBLE(Double.BYTES) {
+        @Override
+        <T> void load(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T into) {
+            accessor.setDouble(into, buffer.getDouble(offset));
+        }
+
+        @Override
+        <T> void store(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T from) {
+            buffer.putDouble(offset, accessor.getDouble(from));
+        }
+
+        @Override
+        <T> boolean equal(PropertyAccessor<T, ?> accessor, T a, T b) {
+            return Double.doubleToLongBits(accessor.getDouble(a)) == Double.doubleToLongBits(accessor.getDouble(b));
+        }
+    },
+    BOOLEAN(1) {
+        @Override
+        <T> void load(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T into) {
+            accessor.setBoolean(into, buffer.get(offset) != 0);
+        }
+
+        @Override
+        <T> void store(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T from) {
+            buffer.put(offset, accessor.getBoolean(from) ? (byte) 1 : (byte) 0);
+        }
+
+        @Override
+        <T> boolean equal(PropertyAccessor<T, ?> accessor, T a, T b) {
+            return accessor.getBoolean(a) == accessor.getBoolean(b);
+        }
+    };
+
+    private final int size;
+
+    PrimitiveType(int size) {
+        this.size = size;
+    }
+
+    /**
+     * @return The number of bytes needed to store a value of this type
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Reads a value from a buffer into a property, without boxing it
+     *
+     * @param buffer   The buffer to read from
+     * @param offset   The absolute offset in the buffer to read from
+     * @param accessor The accessor of the property, which must be of this type
+     * @param into     The instance to set the property of
+     * @param <T>      The type owning the property
+     */
+    abstract <T> void load(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T into);
+
+    /**
+     * Writes the value of a property to a buffer, without boxing it
+     *
+     * @param buffer   The buffer to write to
+     * @param offset   The absolute offset in the buffer to write to
+     * @param accessor The accessor of the property, which must be of this type
+     * @param from     The instance to get the property of
+     * @param <T>      The type owning the property
+     */
+    abstract <T> void store(ByteBuffer buffer, int offset, PropertyAccessor<T, ?> accessor, T from);
+
+    /**
+     * Compares the values of a property of two instances, without boxing them. Floating point values are compared as
+     * by {@link Float#equals} and {@link Double#equals}.
+     *
+     * @param accessor The accessor of the property, which must be of this type
+     * @param a        The first instance
+     * @param b        The second instance
+     * @param <T>      The type owning the property
+     * @return Whether the property has the same value in both instances
+     */
+    abstract <T> boolean equal(PropertyAccessor<T, ?> accessor, T a, T b);
+
+    /**
+     * @param propertyType The type of a property
+     * @return The primitive type matching the property type, or null if it isn't a supported primitive
+     */
+    static PrimitiveType of(Type propertyType) {
+        if (propertyType == Integer.TYPE) {
+            return INT;
+        } else if (propertyType == Long.TYPE) {
+            return LONG;
+        } else if (propertyType == Float.TYPE) {
+            return FLOAT;
+        } else if (propertyType == Double.TYPE) {
+            return DOUBLE;
+        } else if (propertyType == Boolean.TYPE) {
+            return BOOLEAN;
+        }
+        return null;
+    }
+
+    /**
+     * @param type The component type to check
+     * @return Whether all the properties of the component type are supported primitives
+     */
+    static boolean allPrimitive(ComponentType<?> type) {
+        return type.getPropertyInfo().getProperties().values().stream().allMatch(x -> of(x.getPropertyType()) != null);
+    }
+}
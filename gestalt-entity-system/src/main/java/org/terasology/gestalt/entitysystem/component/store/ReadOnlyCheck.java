@@ -0,0 +1,65 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Supports {@link ComponentStore#read(int, Consumer)} for stores that provide their stored component instances
+ * directly to readers. When assertions are enabled, the component is snapshot before being read and compared
+ * afterwards, so that readers that break the contract by modifying the component are caught.
+ */
+final class ReadOnlyCheck {
+    private static final boolean ENABLED = assertionsEnabled();
+    private static final Map<Class<?>, Boolean> COMPARABLE = new ConcurrentHashMap<>();
+
+    private ReadOnlyCheck() {
+    }
+
+    @SuppressWarnings("AssertWithSideEffects")
+    private static boolean assertionsEnabled() {
+        boolean enabled = false;
+        assert enabled = true;
+        return enabled;
+    }
+
+    /**
+     * Provides a stored component to a reader
+     *
+     * @param type      The type of the component
+     * @param component The stored component
+     * @param reader    The reader
+     * @param <T>       The type of the component
+     * @throws IllegalStateException If assertions are enabled and the reader modifies the component
+     */
+    static <T extends Component<T>> void read(ComponentType<T> type, T component, Consumer<? super T> reader) {
+        if (ENABLED && isComparable(type.getComponentClass())) {
+            T snapshot = type.createCopy(component);
+            reader.accept(component);
+            if (!snapshot.equals(component)) {
+                throw new IllegalStateException("Component " + component + " was modified while being read");
+            }
+        } else {
+            reader.accept(component);
+        }
+    }
+
+    /**
+     * Components that do not override equals cannot be compared with their snapshot, so are not checked
+     */
+    private static boolean isComparable(Class<?> componentClass) {
+        return COMPARABLE.computeIfAbsent(componentClass, x -> {
+            try {
+                return x.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        });
+    }
+}
@@ -24,6 +24,8 @@
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
+import java.util.function.Consumer;
+
 /**
  * SparseComponentStore is a component store based on a hash map. This has slower performance for gets
  * and sets (although still O(1)), but uses less memory and can be faster for iteration in some cases.
@@ -63,6 +65,16 @@ public boolean get(int entityId, T into) {
         return true;
     }
 
+    @Override
+    public boolean read(int entityId, Consumer<? super T> reader) {
+        T source = store.get(entityId);
+        if (source == null) {
+            return false;
+        }
+        ReadOnlyCheck.read(type, source, reader);
+        return true;
+    }
+
     @Override
     public boolean set(int entityId, T component) {
         T stored = store.get(entityId);
@@ -121,6 +133,11 @@ public int getEntityId() {
         public void getComponent(Component<T> component) {
             component.copyFrom(iterator.value());
         }
+
+        @Override
+        public void read(T view, Consumer<? super T> reader) {
+            ReadOnlyCheck.read(type, iterator.value(), reader);
+        }
     }
 
 }
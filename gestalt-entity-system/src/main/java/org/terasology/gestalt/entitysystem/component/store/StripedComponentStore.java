@@ -0,0 +1,248 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.ComponentIterator;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * StripedComponentStore is a thread safe ComponentStore built atop an array, like {@link ArrayComponentStore}. Rather
+ * than a single lock for the whole store, entity ids are spread across a number of stripes each guarded by its own
+ * {@link StampedLock}, so writers only block readers and writers of the same stripe.
+ * <p>
+ * Reads are optimistic - they proceed without acquiring the lock and then validate that no write to the stripe
+ * occurred in the meantime, only falling back to taking the read lock if one did. This means that in the common case
+ * readers do not write to any shared memory, avoiding the cache line contention a shared read lock suffers from
+ * under many reader threads.
+ * <p>
+ * As with {@link ConcurrentComponentStore}, each method is atomic but this doesn't protect against lost updates from
+ * other threads making modifications between read and write operations. Iteration does not fail due to concurrent
+ * modification, but may or may not observe changes made during iteration.
+ *
+ * @param <T> The type of component stored in this ComponentStore
+ */
+@ThreadSafe
+public class StripedComponentStore<T extends Component<T>> implements ComponentStore<T> {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ComponentType<T> type;
+    private final StampedLock[] stripes;
+    private final int stripeMask;
+    private volatile T[] store;
+
+    /**
+     * @param componentType Type information for the component type to store
+     */
+    public StripedComponentStore(ComponentType<T> componentType) {
+        this(componentType, 1000, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param type            Type information for the component type to store
+     * @param initialCapacity The initial capacity of the array
+     * @param stripeCount     The number of stripes to divide entities between. This is rounded up to a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    public StripedComponentStore(ComponentType<T> type, int initialCapacity, int stripeCount) {
+        this.type = type;
+        int stripeSize = 1;
+        while (stripeSize < stripeCount) {
+            stripeSize <<= 1;
+        }
+        this.stripes = new StampedLock[stripeSize];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new StampedLock();
+        }
+        this.stripeMask = stripeSize - 1;
+        this.store = (T[]) Array.newInstance(type.getComponentClass(), initialCapacity);
+    }
+
+    private StampedLock stripe(int entityId) {
+        return stripes[entityId & stripeMask];
+    }
+
+    @Override
+    public ComponentType<T> getType() {
+        return type;
+    }
+
+    @Override
+    public boolean has(int entityId) {
+        StampedLock lock = stripe(entityId);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            boolean result = store[entityId] != null;
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return store[entityId] != null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean get(int entityId, T into) {
+        StampedLock lock = stripe(entityId);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T value = store[entityId];
+                if (value != null) {
+                    into.copyFrom(value);
+                }
+                if (lock.validate(stamp)) {
+                    return value != null;
+                }
+            } catch (RuntimeException e) {
+                // A concurrent write left the component in an inconsistent state mid-copy - retry under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            T value = store[entityId];
+            if (value != null) {
+                into.copyFrom(value);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Provides the stored component to the reader while holding the read lock of its stripe, so writes to entities in
+     * the same stripe are blocked until the reader completes.
+     */
+    @Override
+    public boolean read(int entityId, Consumer<? super T> reader) {
+        StampedLock lock = stripe(entityId);
+        long stamp = lock.readLock();
+        try {
+            T value = store[entityId];
+            if (value != null) {
+                ReadOnlyCheck.read(type, value, reader);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean set(int entityId, T component) {
+        StampedLock lock = stripe(entityId);
+        long stamp = lock.writeLock();
+        try {
+            T[] array = store;
+            if (array[entityId] == null) {
+                array[entityId] = type.createCopy(component);
+                return true;
+            } else {
+                array[entityId].copyFrom(component);
+                return false;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public T remove(int entityId) {
+        StampedLock lock = stripe(entityId);
+        long stamp = lock.writeLock();
+        try {
+            T[] array = store;
+            T result = array[entityId];
+            array[entityId] = null;
+            return result;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int iterationCost() {
+        return store.length;
+    }
+
+    @Override
+    public ComponentIterator<T> iterate() {
+        return new StripedComponentIterator();
+    }
+
+    /**
+     * Extends the store. All stripes are write locked while the array is replaced.
+     *
+     * @param capacity The minimum number of entities the ComponentStore must support.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void extend(int capacity) {
+        long[] stamps = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            stamps[i] = stripes[i].writeLock();
+        }
+        try {
+            T[] array = store;
+            if (capacity >= array.length) {
+                T[] newStore = (T[]) Array.newInstance(type.getComponentClass(), capacity * 2);
+                System.arraycopy(array, 0, newStore, 0, array.length);
+                store = newStore;
+            }
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlockWrite(stamps[i]);
+            }
+        }
+    }
+
+    private class StripedComponentIterator implements ComponentIterator<T> {
+
+        private int index = -1;
+        private final int endIndex = store.length;
+
+        @Override
+        public boolean next() {
+            index++;
+            while (index < endIndex && !has(index)) {
+                index++;
+            }
+            return index < endIndex;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void getComponent(Component<T> component) {
+            get(index, (T) component);
+        }
+
+        @Override
+        public void read(T view, Consumer<? super T> reader) {
+            StripedComponentStore.this.read(index, reader);
+        }
+
+        @Override
+        public int getEntityId() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return index + " of " + endIndex;
+        }
+    }
+}
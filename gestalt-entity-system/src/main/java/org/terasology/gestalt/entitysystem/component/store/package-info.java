@@ -5,5 +5,11 @@
  * is probably the reliable go-to. {@link org.terasology.gestalt.entitysystem.component.store.ConcurrentComponentStore}
  * can be used to make any component store thread safe, at least in so far as making single actions
  * atomic - it doesn't protect against broader concerns such as lost update scenarios.
+ * {@link org.terasology.gestalt.entitysystem.component.store.StripedComponentStore} is a thread safe alternative to
+ * wrapping an ArrayComponentStore, that scales better with many threads reading.
+ * {@link org.terasology.gestalt.entitysystem.component.store.PackedComponentStore} can be used for components
+ * with only primitive properties, storing each property in its own primitive array, while
+ * {@link org.terasology.gestalt.entitysystem.component.store.OffHeapComponentStore} stores such components in a
+ * direct buffer outside of the Java heap.
  */
 package org.terasology.gestalt.entitysystem.component.store;
\ No newline at end of file
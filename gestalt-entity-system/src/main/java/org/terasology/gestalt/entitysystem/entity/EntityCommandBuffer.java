@@ -0,0 +1,125 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An EntityCommandBuffer records structural changes to entities - creating and deleting entities, and setting and
+ * removing components - so that they can be applied later, at a point where it is safe to do so. This allows systems
+ * running on multiple threads, or iterating over entities, to make changes without contending over the entity
+ * manager.
+ * <p>
+ * Commands can be recorded from any thread without locking. Components are copied as they are recorded, so they can
+ * be safely reused after being passed to the buffer. The buffer is applied through
+ * {@link EntityManager#apply(EntityCommandBuffer)}, which allows the entity manager to apply all the commands as
+ * a single batch. Commands are applied in the order they were recorded.
+ */
+@ThreadSafe
+public class EntityCommandBuffer {
+
+    private final EntityManager entityManager;
+    private final Queue<Command> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCreations = new AtomicInteger();
+
+    /**
+     * @param entityManager The entity manager the commands will be applied to
+     */
+    public EntityCommandBuffer(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Records creating an entity
+     *
+     * @param components The components to create the entity with. These are copied immediately.
+     */
+    public void createEntity(Component... components) {
+        List<Component> copies = new ArrayList<>(components.length);
+        for (Component component : components) {
+            copies.add(copy(component));
+        }
+        pendingCreations.incrementAndGet();
+        commands.add(() -> {
+            pendingCreations.decrementAndGet();
+            entityManager.createEntity(copies);
+        });
+    }
+
+    /**
+     * Records deleting an entity
+     *
+     * @param entity The entity to delete
+     */
+    public void delete(EntityRef entity) {
+        commands.add(entity::delete);
+    }
+
+    /**
+     * Records setting a component on an entity
+     *
+     * @param entity    The entity to set the component on
+     * @param component The component to set. This is copied immediately.
+     * @param <T>       The type of the component
+     */
+    public <T extends Component<T>> void setComponent(EntityRef entity, T component) {
+        T copy = copy(component);
+        commands.add(() -> entity.setComponent(copy));
+    }
+
+    /**
+     * Records removing a component from an entity
+     *
+     * @param entity        The entity to remove the component from
+     * @param componentType The type of component to remove
+     * @param <T>           The type of the component
+     */
+    public <T extends Component<T>> void removeComponent(EntityRef entity, Class<T> componentType) {
+        commands.add(() -> entity.removeComponent(componentType));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Component<T>> T copy(T component) {
+        return entityManager.getComponentStore((Class<T>) component.getClass()).getType().createCopy(component);
+    }
+
+    /**
+     * @return Whether no commands are waiting to be applied
+     */
+    public boolean isEmpty() {
+        return commands.isEmpty();
+    }
+
+    /**
+     * @return The number of entities waiting to be created by this buffer
+     */
+    public int getPendingCreations() {
+        return pendingCreations.get();
+    }
+
+    /**
+     * Applies all the recorded commands directly, in the order they were recorded, removing them from the buffer.
+     * Generally {@link EntityManager#apply(EntityCommandBuffer)} should be used instead, to allow the entity manager
+     * to batch the changes.
+     */
+    public void replay() {
+        Command command = commands.poll();
+        while (command != null) {
+            command.apply();
+            command = commands.poll();
+        }
+    }
+
+    private interface Command {
+        void apply();
+    }
+}
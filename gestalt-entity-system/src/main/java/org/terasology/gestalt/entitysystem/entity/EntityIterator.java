@@ -16,6 +16,10 @@
 
 package org.terasology.gestalt.entitysystem.entity;
 
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.function.Consumer;
+
 /**
  * An entity iterator is used to iterate over a set of Entities. These may also have secondary
  * effects when iteratoring, such as retrieving components
@@ -32,4 +36,18 @@ public interface EntityIterator {
      * @return The current entity
      */
     EntityRef getEntity();
+
+    /**
+     * Provides read-only access to a component of the current entity, avoiding copying the component where possible.
+     * The reader must not modify the component or retain it beyond the call.
+     *
+     * @param componentType The type of the component to read
+     * @param reader        The reader to provide the component to, if the entity has a component of that type
+     * @param <T>           The type of the component to read
+     * @return True if the current entity has a component of that type
+     * @see EntityRef#readComponent(Class, Consumer)
+     */
+    default <T extends Component<T>> boolean readComponent(Class<T> componentType, Consumer<? super T> reader) {
+        return getEntity().readComponent(componentType, reader);
+    }
 }
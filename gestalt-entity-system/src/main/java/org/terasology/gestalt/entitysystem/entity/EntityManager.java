@@ -20,10 +20,14 @@
 import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
 import org.terasology.gestalt.entitysystem.prefab.Prefab;
 import org.terasology.gestalt.naming.Name;
+import org.terasology.gestalt.util.collection.TypeKeyedMap;
 
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * EntityManager is the core of the entity system. It manages the storage of entities and component
@@ -70,6 +74,22 @@ default EntityRef createEntity(Component ... components) {
      */
     Map<Name, EntityRef> createEntities(Prefab prefab);
 
+    /**
+     * Creates a number of instances of a prefab. Implementations may create the entities in bulk.
+     *
+     * @param prefab The prefab to create entities from
+     * @param count  The number of instances of the prefab to create
+     * @return The root entity of each instance of the prefab
+     * @throws IllegalArgumentException If count is negative
+     */
+    default List<EntityRef> createEntities(Prefab prefab, int count) {
+        List<EntityRef> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(createEntity(prefab));
+        }
+        return result;
+    }
+
     /**
      * @param id The id of the entity to return
      * @return The entity ref for the given id. If the entity doesn't exist, this will be a null entity ref .
@@ -89,6 +109,72 @@ default EntityRef createEntity(Component ... components) {
      */
     EntityIterator iterate(Component ... components);
 
+    /**
+     * Creates a persistent view over all entities with the given component types. The view is kept up to date as
+     * entities change, so is the preferred option over {@link #iterate(Component[])} for repeatedly processing
+     * the same set of components.
+     *
+     * @param componentTypes The component types an entity must have to be included in the view
+     * @return A view over the entities with all the given components. This should be closed when no longer needed.
+     * @throws UnsupportedOperationException If this entity manager does not support views
+     */
+    default EntityView createView(Class<? extends Component> ... componentTypes) {
+        throw new UnsupportedOperationException("Views are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Runs a task against all entities with the given components, in parallel using the common fork join pool.
+     *
+     * @param task           The task to run against each entity
+     * @param componentTypes The components an entity must have to be processed
+     * @see #forEachParallel(ForkJoinPool, ParallelEntityTask, Class[])
+     */
+    default void forEachParallel(ParallelEntityTask task, Class<? extends Component> ... componentTypes) {
+        forEachParallel(ForkJoinPool.commonPool(), task, componentTypes);
+    }
+
+    /**
+     * Runs a task against all entities with the given components, in parallel. The entities are split into chunks
+     * that are processed by the pool, with each chunk having its own component instances and command buffer.
+     * The command buffers are applied in entity id order once all chunks have completed, before this method returns.
+     * <p>
+     * The entities being processed should not be modified by other threads while this method is running. The default
+     * implementation processes the entities on the calling thread, through {@link #iterate(Component[])} with a single
+     * command buffer.
+     *
+     * @param pool           The pool to run the task in
+     * @param task           The task to run against each entity
+     * @param componentTypes The components an entity must have to be processed
+     */
+    @SuppressWarnings("unchecked")
+    default void forEachParallel(ForkJoinPool pool, ParallelEntityTask task, Class<? extends Component> ... componentTypes) {
+        Component[] instances = new Component[componentTypes.length];
+        TypeKeyedMap<Component> components = new TypeKeyedMap<>();
+        for (int i = 0; i < componentTypes.length; i++) {
+            ComponentStore<?> store = getComponentStore((Class) componentTypes[i]);
+            if (store == null) {
+                throw new IllegalArgumentException("No component store for " + componentTypes[i]);
+            }
+            instances[i] = store.getType().create();
+            components.put(instances[i]);
+        }
+        EntityCommandBuffer buffer = new EntityCommandBuffer(this);
+        EntityIterator iterator = iterate(instances);
+        while (iterator.next()) {
+            task.process(iterator.getEntity(), components, buffer);
+        }
+        apply(buffer);
+    }
+
+    /**
+     * Applies the commands recorded in a command buffer to this entity manager, as a single batch.
+     *
+     * @param commandBuffer The command buffer to apply
+     */
+    default void apply(EntityCommandBuffer commandBuffer) {
+        commandBuffer.replay();
+    }
+
     /**
      * Returns the low-level store for a particular type of component. Should be used to drive
      * repeated processes over the same component
@@ -23,6 +23,7 @@
 import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * An entity ref is a reference to an entity or entity-like structure. This is intentionally left a little vague, to allow for a variety of usages - such as an EntityRef
@@ -65,6 +66,21 @@ public interface EntityRef {
      */
     <T extends Component<T>> Optional<T> getComponent(Class<T> componentType);
 
+    /**
+     * Provides read-only access to a component of the entity, avoiding copying the component where possible. The
+     * reader must not modify the component or retain it beyond the call.
+     *
+     * @param componentType The type of the component to read
+     * @param reader        The reader to provide the component to, if the entity has a component of that type
+     * @param <T>           The type of the component to read
+     * @return True if the entity has a component of that type
+     */
+    default <T extends Component<T>> boolean readComponent(Class<T> componentType, Consumer<? super T> reader) {
+        Optional<T> component = getComponent(componentType);
+        component.ifPresent(reader);
+        return component.isPresent();
+    }
+
     /**
      * @param type The type of component to check for the presence of
      * @param <T> The type of component
@@ -73,7 +89,8 @@ public interface EntityRef {
     <T extends Component<T>> boolean hasComponent(Class<T> type);
 
     /**
-     * @return Types of components that the EntityRef has.
+     * @return Types of components that the EntityRef has. The set may be shared with other entities and cannot be
+     * modified - copy it if a modifiable snapshot is needed.
      */
     Set<Class<? extends Component>> getComponentTypes();
 
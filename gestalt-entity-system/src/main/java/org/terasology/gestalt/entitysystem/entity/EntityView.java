@@ -0,0 +1,49 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.Set;
+
+/**
+ * An EntityView is a persistent query over the entities that have all of a set of component types. Rather than
+ * scanning component stores each time it is iterated, the view is kept up to date as components are added to and
+ * removed from entities, so iterating it costs in proportion to the number of matching entities.
+ * <p>
+ * Views have an ongoing cost for every change to the components they cover, so should be closed when no longer
+ * needed.
+ */
+public interface EntityView extends AutoCloseable {
+
+    /**
+     * @return The component types an entity must have to be included in this view
+     */
+    Set<Class<? extends Component>> getComponentTypes();
+
+    /**
+     * @return The number of entities in this view
+     */
+    int size();
+
+    /**
+     * @param entity The entity to check
+     * @return Whether the entity is included in this view
+     */
+    boolean contains(EntityRef entity);
+
+    /**
+     * Iterates over the entities in this view. The components are updated to match the contents as iteration occurs.
+     *
+     * @param components The components to retrieve for each entity. These should be of the types covered by the view.
+     * @return An iterator over the entities in this view
+     */
+    EntityIterator iterate(Component... components);
+
+    /**
+     * Stops the view being updated and releases it from the entity manager.
+     */
+    @Override
+    void close();
+}
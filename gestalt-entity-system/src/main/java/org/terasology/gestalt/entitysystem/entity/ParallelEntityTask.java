@@ -0,0 +1,24 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.util.collection.TypeKeyedMap;
+
+/**
+ * A task to run against each entity in {@link EntityManager#forEachParallel(ParallelEntityTask, Class[])}. Tasks
+ * may be run on many threads at once, so must not modify entities directly - changes should instead be recorded in
+ * the provided command buffer, which is applied once all entities have been processed.
+ */
+@FunctionalInterface
+public interface ParallelEntityTask {
+
+    /**
+     * @param entity     The entity being processed
+     * @param components The components of the entity. These component instances are reused between entities processed
+     *                   by the same worker, so should not be retained.
+     * @param commands   A command buffer to record changes to entities in
+     */
+    void process(EntityRef entity, TypeKeyedMap<Component> components, EntityCommandBuffer commands);
+}
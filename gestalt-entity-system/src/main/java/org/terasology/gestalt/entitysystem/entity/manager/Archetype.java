@@ -0,0 +1,174 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+
+/**
+ * An archetype is a unique combination of component types (a signature), along with a dense list of the entities
+ * that have exactly that combination of components. Component types are identified by the index of their store
+ * within the {@link CoreEntityManager}.
+ * <p>
+ * Archetypes also cache the transitions to the archetypes produced by adding or removing a single component type,
+ * so moving an entity between archetypes doesn't require any signature to be built or looked up.
+ * <p>
+ * The signature and component types of an archetype are immutable, and can be safely read from any thread. Transitions
+ * can be read from any thread, but are only set by the {@link ArchetypeIndex} that owns the archetype while holding its
+ * monitor. The list of entities is not thread safe, and is guarded by the owning index.
+ */
+final class Archetype {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final BitSet signature;
+    private final ImmutableSet<Class<? extends Component>> componentTypes;
+    private volatile Archetype[] addTransitions = new Archetype[0];
+    private volatile Archetype[] removeTransitions = new Archetype[0];
+
+    private int[] entityIds = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @param signature The store indices of the component types making up this archetype. This must not be modified
+     *                  after being passed to the archetype.
+     * @param componentTypes The component types making up this archetype
+     */
+    Archetype(BitSet signature, ImmutableSet<Class<? extends Component>> componentTypes) {
+        this.signature = signature;
+        this.componentTypes = componentTypes;
+    }
+
+    /**
+     * @return The component types making up this archetype
+     */
+    Set<Class<? extends Component>> getComponentTypes() {
+        return componentTypes;
+    }
+
+    /**
+     * @return The store indices of the component types making up this archetype. This must not be modified.
+     */
+    BitSet getSignature() {
+        return signature;
+    }
+
+    /**
+     * @param storeIndex The index of a component store
+     * @return Whether entities in this archetype have a component in that store
+     */
+    boolean has(int storeIndex) {
+        return signature.get(storeIndex);
+    }
+
+    /**
+     * @param query A set of store indices
+     * @return Whether entities in this archetype have components in all of the queried stores
+     */
+    boolean matches(BitSet query) {
+        for (int i = query.nextSetBit(0); i >= 0; i = query.nextSetBit(i + 1)) {
+            if (!signature.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Archetype getAddTransition(int storeIndex) {
+        return getTransition(addTransitions, storeIndex);
+    }
+
+    void setAddTransition(int storeIndex, Archetype archetype) {
+        addTransitions = withTransition(addTransitions, storeIndex, archetype);
+    }
+
+    Archetype getRemoveTransition(int storeIndex) {
+        return getTransition(removeTransitions, storeIndex);
+    }
+
+    void setRemoveTransition(int storeIndex, Archetype archetype) {
+        removeTransitions = withTransition(removeTransitions, storeIndex, archetype);
+    }
+
+    private static Archetype getTransition(Archetype[] transitions, int storeIndex) {
+        return (storeIndex < transitions.length) ? transitions[storeIndex] : null;
+    }
+
+    /*
+     * Transitions are copied on write, so they can be read without locking
+     */
+    private static Archetype[] withTransition(Archetype[] transitions, int storeIndex, Archetype archetype) {
+        Archetype[] result = Arrays.copyOf(transitions, Math.max(transitions.length, storeIndex + 1));
+        result[storeIndex] = archetype;
+        return result;
+    }
+
+    /**
+     * @return The number of entities in this archetype
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param slot The slot of the entity
+     * @return The id of the entity in the given slot
+     */
+    int getEntityId(int slot) {
+        return entityIds[slot];
+    }
+
+    /**
+     * @return A copy of the ids of the entities in this archetype
+     */
+    int[] copyEntityIds() {
+        return Arrays.copyOf(entityIds, size);
+    }
+
+    /**
+     * Adds an entity to the end of this archetype
+     *
+     * @param entityId The id of the entity to add
+     * @return The slot the entity was added in
+     */
+    int add(int entityId) {
+        if (size == entityIds.length) {
+            entityIds = Arrays.copyOf(entityIds, size * 2);
+        }
+        entityIds[size] = entityId;
+        return size++;
+    }
+
+    /**
+     * Removes the entity in the given slot, moving the last entity in the archetype into its place
+     *
+     * @param slot The slot to remove
+     * @return The id of the entity moved into the slot, or -1 if the last entity was removed
+     */
+    int remove(int slot) {
+        size--;
+        if (slot == size) {
+            return -1;
+        }
+        int moved = entityIds[size];
+        entityIds[slot] = moved;
+        return moved;
+    }
+
+    /**
+     * Removes all entities from this archetype
+     */
+    void clear() {
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Archetype" + signature + "(" + size + " entities)";
+    }
+}
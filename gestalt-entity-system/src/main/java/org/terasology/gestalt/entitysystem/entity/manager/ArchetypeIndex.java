@@ -0,0 +1,279 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * ArchetypeIndex tracks the archetype of each entity. The archetype of an entity acts as a mask of the components it
+ * has, allowing an entity's component types to be obtained and checked without consulting the component stores.
+ * The archetype of an entity is read without locking, and updated with a compare-and-set - the index's monitor is only
+ * taken when a transition between archetypes is followed for the first time, so changes to the components of
+ * different entities on different threads do not contend.
+ * <p>
+ * When membership is tracked, the index also keeps entities with the same set of components together in a dense list
+ * per archetype. This allows a query over a set of component types to visit only the archetypes that match, rather
+ * than probing component stores for every candidate entity. The list of matching archetypes for each queried
+ * signature is cached, and updated as new archetypes are encountered. Membership is maintained under the index's
+ * monitor, so it is only tracked while archetype storage is enabled.
+ * <p>
+ * Entities without any components are not held in any archetype.
+ */
+@ThreadSafe
+final class ArchetypeIndex {
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final Archetype root = new Archetype(new BitSet(), ImmutableSet.of());
+    private final Map<BitSet, Archetype> archetypes = Maps.newHashMap();
+    private final Map<BitSet, List<Archetype>> queryCache = Maps.newHashMap();
+    private final IntFunction<Class<? extends Component>> componentTypeLookup;
+
+    /*
+     * The archetype of each entity, in fixed size pages so that extending the index never moves an entity's archetype
+     * out from under a concurrent compare-and-set
+     */
+    private volatile AtomicReferenceArray<Archetype>[] pages = newPages(0);
+    private volatile boolean membershipTracked;
+
+    @GuardedBy("this")
+    private Archetype[] memberships;
+    @GuardedBy("this")
+    private int[] entitySlots;
+
+    /**
+     * @param capacity            The initial capacity of entity ids
+     * @param componentTypeLookup Provides the component type of each store index
+     */
+    ArchetypeIndex(int capacity, IntFunction<Class<? extends Component>> componentTypeLookup) {
+        this.componentTypeLookup = componentTypeLookup;
+        memberships = new Archetype[0];
+        entitySlots = new int[0];
+        extend(capacity);
+    }
+
+    /**
+     * @param capacity The number of entity ids that must be supported
+     */
+    synchronized void extend(int capacity) {
+        int pageCount = (capacity + PAGE_SIZE - 1) >> PAGE_SHIFT;
+        if (pageCount > pages.length) {
+            AtomicReferenceArray<Archetype>[] newPages = Arrays.copyOf(pages, pageCount);
+            for (int i = pages.length; i < pageCount; i++) {
+                newPages[i] = new AtomicReferenceArray<>(PAGE_SIZE);
+            }
+            pages = newPages;
+        }
+        if (capacity > memberships.length) {
+            memberships = Arrays.copyOf(memberships, capacity);
+            entitySlots = Arrays.copyOf(entitySlots, capacity);
+        }
+    }
+
+    /**
+     * Sets whether the entities of each archetype are tracked, for {@link #getEntityIds(Archetype)}. When enabled, the
+     * archetypes are populated from the current archetype of each entity.
+     *
+     * @param tracked Whether to track the entities of each archetype
+     */
+    synchronized void setMembershipTracked(boolean tracked) {
+        if (tracked == membershipTracked) {
+            return;
+        }
+        membershipTracked = tracked;
+        if (tracked) {
+            for (int entityId = 0; entityId < memberships.length; entityId++) {
+                syncMembership(entityId);
+            }
+        } else {
+            for (Archetype archetype : archetypes.values()) {
+                archetype.clear();
+            }
+            Arrays.fill(memberships, null);
+        }
+    }
+
+    /**
+     * @param entityId The id of the entity
+     * @return The archetype of the entity, or null if it has no components
+     */
+    Archetype getArchetype(int entityId) {
+        AtomicReferenceArray<Archetype>[] currentPages = pages;
+        int page = entityId >> PAGE_SHIFT;
+        return (page < currentPages.length) ? currentPages[page].get(entityId & PAGE_MASK) : null;
+    }
+
+    /**
+     * Updates the archetype of an entity to match whether it has a component in the given store. This reads the
+     * current state of the store rather than relying on the change reported, and checks it again after each change
+     * of archetype, so that concurrent changes to the same entity and store cannot leave the index out of step with
+     * the store.
+     *
+     * @param entityId   The id of the entity
+     * @param storeIndex The index of the store
+     * @param store      The store
+     */
+    void update(int entityId, int storeIndex, ComponentStore<?> store) {
+        AtomicReferenceArray<Archetype> page = pages[entityId >> PAGE_SHIFT];
+        int offset = entityId & PAGE_MASK;
+        boolean changed = false;
+        while (true) {
+            Archetype current = page.get(offset);
+            boolean present = store.has(entityId);
+            if (present == (current != null && current.has(storeIndex))) {
+                break;
+            }
+            Archetype target = (present) ? getAddTransition(current, storeIndex) : getRemoveTransition(current, storeIndex);
+            changed |= page.compareAndSet(offset, current, target);
+        }
+        if (changed && membershipTracked) {
+            syncMembership(entityId);
+        }
+    }
+
+    /**
+     * Removes an entity from its archetype
+     *
+     * @param entityId The id of the entity
+     */
+    void clear(int entityId) {
+        pages[entityId >> PAGE_SHIFT].set(entityId & PAGE_MASK, null);
+        if (membershipTracked) {
+            syncMembership(entityId);
+        }
+    }
+
+    /**
+     * @param query The store indices of the component types to query for
+     * @return The list of archetypes that contain all of the given component types. This list will be updated as
+     * new matching archetypes are created.
+     */
+    synchronized List<Archetype> getMatching(BitSet query) {
+        List<Archetype> result = queryCache.get(query);
+        if (result == null) {
+            result = new CopyOnWriteArrayList<>();
+            for (Archetype archetype : archetypes.values()) {
+                if (archetype.matches(query)) {
+                    result.add(archetype);
+                }
+            }
+            queryCache.put((BitSet) query.clone(), result);
+        }
+        return result;
+    }
+
+    /**
+     * @param archetype An archetype of this index
+     * @return A copy of the ids of the entities currently in the archetype. This is empty if membership is not tracked.
+     */
+    synchronized int[] getEntityIds(Archetype archetype) {
+        return archetype.copyEntityIds();
+    }
+
+    /**
+     * Moves an entity into the list of its current archetype. As this always moves the entity to its latest archetype,
+     * concurrent updates to the same entity may sync in any order.
+     */
+    private synchronized void syncMembership(int entityId) {
+        if (!membershipTracked) {
+            return;
+        }
+        Archetype from = memberships[entityId];
+        Archetype to = getArchetype(entityId);
+        if (from == to) {
+            return;
+        }
+        if (from != null) {
+            int slot = entitySlots[entityId];
+            int moved = from.remove(slot);
+            if (moved != -1) {
+                entitySlots[moved] = slot;
+            }
+        }
+        memberships[entityId] = to;
+        if (to != null) {
+            entitySlots[entityId] = to.add(entityId);
+        }
+    }
+
+    private Archetype getAddTransition(Archetype current, int storeIndex) {
+        Archetype from = (current != null) ? current : root;
+        Archetype result = from.getAddTransition(storeIndex);
+        return (result != null) ? result : createAddTransition(from, storeIndex);
+    }
+
+    private Archetype getRemoveTransition(Archetype current, int storeIndex) {
+        if (current.getSignature().cardinality() == 1) {
+            return null;
+        }
+        Archetype result = current.getRemoveTransition(storeIndex);
+        return (result != null) ? result : createRemoveTransition(current, storeIndex);
+    }
+
+    private synchronized Archetype createAddTransition(Archetype current, int storeIndex) {
+        Archetype result = current.getAddTransition(storeIndex);
+        if (result == null) {
+            BitSet signature = (BitSet) current.getSignature().clone();
+            signature.set(storeIndex);
+            result = getArchetype(signature);
+            current.setAddTransition(storeIndex, result);
+            if (current != root) {
+                result.setRemoveTransition(storeIndex, current);
+            }
+        }
+        return result;
+    }
+
+    private synchronized Archetype createRemoveTransition(Archetype current, int storeIndex) {
+        Archetype result = current.getRemoveTransition(storeIndex);
+        if (result == null) {
+            BitSet signature = (BitSet) current.getSignature().clone();
+            signature.clear(storeIndex);
+            result = getArchetype(signature);
+            current.setRemoveTransition(storeIndex, result);
+            result.setAddTransition(storeIndex, current);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Archetype>[] newPages(int count) {
+        return new AtomicReferenceArray[count];
+    }
+
+    private Archetype getArchetype(BitSet signature) {
+        Archetype archetype = archetypes.get(signature);
+        if (archetype == null) {
+            ImmutableSet.Builder<Class<? extends Component>> componentTypes = ImmutableSet.builder();
+            for (int i = signature.nextSetBit(0); i >= 0; i = signature.nextSetBit(i + 1)) {
+                componentTypes.add(componentTypeLookup.apply(i));
+            }
+            archetype = new Archetype(signature, componentTypes.build());
+            archetypes.put(signature, archetype);
+            for (Map.Entry<BitSet, List<Archetype>> query : queryCache.entrySet()) {
+                if (archetype.matches(query.getKey())) {
+                    query.getValue().add(archetype);
+                }
+            }
+        }
+        return archetype;
+    }
+}
@@ -0,0 +1,271 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.gson.Gson;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.ComponentIterator;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+import org.terasology.gestalt.entitysystem.component.management.PropertyAccessor;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * The schema of a component type within an entity snapshot - the component class name, and the name and encoding of
+ * each property - along with the chunk of components being written or read. Components are written in chunks of up
+ * to {@link #MAX_CHUNK_SIZE}: the number of components, the entity ids (each as the gap from the previous id), then a
+ * column of values for each property in schema order. A chunk size of 0 ends the components of the type.
+ * <p>
+ * When read, the schema is matched against the current component type by property name. Properties that no longer
+ * exist or have changed type are skipped, and properties not in the snapshot keep their default values. If the
+ * component type is unknown, the chunks are read and discarded.
+ *
+ * @param <T> The type of component
+ */
+final class ComponentSchema<T extends Component<T>> {
+
+    static final int MAX_CHUNK_SIZE = 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(ComponentSchema.class);
+
+    private final String componentClassName;
+    private final ComponentType<T> type;
+    private final String[] names;
+    private final ValueCodec[] codecs;
+    private final PropertyAccessor<T, Object>[] properties;
+    private final T defaults;
+    private final Object[] components = new Object[MAX_CHUNK_SIZE];
+    private final int[] entityIds = new int[MAX_CHUNK_SIZE];
+
+    private ComponentSchema(String componentClassName, ComponentType<T> type, String[] names, ValueCodec[] codecs, PropertyAccessor<T, Object>[] properties) {
+        this.componentClassName = componentClassName;
+        this.type = type;
+        this.names = names;
+        this.codecs = codecs;
+        this.properties = properties;
+        this.defaults = (type != null) ? type.create() : null;
+    }
+
+    /**
+     * Creates the schema for writing a component type
+     *
+     * @param type The component type
+     * @param gson The Gson used to encode properties without a more compact encoding
+     * @param <T>  The type of component
+     * @return The schema of the component type
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Component<T>> ComponentSchema<T> create(ComponentType<T> type, Gson gson) {
+        Collection<PropertyAccessor<T, ?>> accessors = type.getPropertyInfo().getProperties().values();
+        String[] names = new String[accessors.size()];
+        ValueCodec[] codecs = new ValueCodec[accessors.size()];
+        PropertyAccessor<T, Object>[] properties = new PropertyAccessor[accessors.size()];
+        int i = 0;
+        for (PropertyAccessor<T, ?> accessor : accessors) {
+            names[i] = accessor.getName();
+            codecs[i] = ValueCodec.forType(accessor.getPropertyType(), null, gson);
+            properties[i] = (PropertyAccessor<T, Object>) accessor;
+            i++;
+        }
+        return new ComponentSchema<>(type.getComponentClass().getName(), type, names, codecs, properties);
+    }
+
+    /**
+     * Reads a schema, and matches it against the current component type
+     *
+     * @param in           The input to read from
+     * @param typeLookup   Provides the current component type for a component class name, or null if it is unknown
+     * @param entityLookup Resolves entity ids to entities
+     * @param gson         The Gson used to decode properties without a more compact encoding
+     * @return The schema read
+     * @throws IOException If the input could not be read, or the schema is malformed
+     */
+    @SuppressWarnings("unchecked")
+    static ComponentSchema<?> read(SnapshotInput in, Function<String, ComponentType<?>> typeLookup, IntFunction<EntityRef> entityLookup, Gson gson) throws IOException {
+        String className = in.readString();
+        if (className == null) {
+            throw new IOException("Missing component class name in entity snapshot");
+        }
+        ComponentType type = typeLookup.apply(className);
+        int propertyCount = in.readVarInt();
+        String[] names = new String[propertyCount];
+        ValueCodec[] codecs = new ValueCodec[propertyCount];
+        PropertyAccessor[] properties = new PropertyAccessor[propertyCount];
+        for (int i = 0; i < propertyCount; i++) {
+            names[i] = in.readString();
+            codecs[i] = ValueCodec.readDescriptor(in);
+            if (type != null) {
+                PropertyAccessor<?, ?> property = (PropertyAccessor<?, ?>) type.getPropertyInfo().getProperties().get(names[i]);
+                if (property != null) {
+                    ValueCodec codec = ValueCodec.forType(property.getPropertyType(), entityLookup, gson);
+                    if (codec.sameEncoding(codecs[i])) {
+                        codecs[i] = codec;
+                        properties[i] = property;
+                    } else {
+                        logger.warn("Skipping property '{}' of {} in entity snapshot, as its type has changed", names[i], className);
+                    }
+                }
+            }
+        }
+        return new ComponentSchema<>(className, type, names, codecs, properties);
+    }
+
+    /**
+     * @return The name of the component class
+     */
+    String getComponentClassName() {
+        return componentClassName;
+    }
+
+    /**
+     * @return The current component type, or null if the component class is unknown
+     */
+    ComponentType<T> getType() {
+        return type;
+    }
+
+    /**
+     * Writes the schema
+     *
+     * @param out The output to write to
+     * @throws IOException If the output could not be written
+     */
+    void write(SnapshotOutput out) throws IOException {
+        out.writeString(componentClassName);
+        out.writeVarInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            out.writeString(names[i]);
+            codecs[i].writeDescriptor(out);
+        }
+    }
+
+    /**
+     * @param index The index of a component within the chunk
+     * @return The component at that index of the chunk
+     */
+    @SuppressWarnings("unchecked")
+    T getComponent(int index) {
+        if (components[index] == null) {
+            components[index] = type.create();
+        }
+        return (T) components[index];
+    }
+
+    /**
+     * @param index The index of a component within the chunk
+     * @return The id of the entity the component at that index of the chunk belongs to
+     */
+    int getEntityId(int index) {
+        return entityIds[index];
+    }
+
+    /**
+     * @param index    The index of a component within the chunk
+     * @param entityId The id of the entity the component at that index of the chunk belongs to
+     */
+    void setEntityId(int index, int entityId) {
+        entityIds[index] = entityId;
+    }
+
+    /**
+     * Writes the first count components of the chunk
+     *
+     * @param out   The output to write to
+     * @param count The number of components to write
+     * @throws IOException If the output could not be written
+     */
+    void writeChunk(SnapshotOutput out, int count) throws IOException {
+        out.writeVarInt(count);
+        int previousId = -1;
+        for (int i = 0; i < count; i++) {
+            out.writeSignedVarInt(entityIds[i] - previousId - 1);
+            previousId = entityIds[i];
+        }
+        for (int property = 0; property < properties.length; property++) {
+            ValueCodec codec = codecs[property];
+            PropertyAccessor<T, Object> accessor = properties[property];
+            for (int i = 0; i < count; i++) {
+                codec.write(out, accessor.get(getComponent(i)));
+            }
+        }
+    }
+
+    /**
+     * Writes all the components from an iterator in chunks, followed by the end of the components
+     *
+     * @param iterator The iterator over the components to write
+     * @param out      The output to write to
+     * @throws IOException If the output could not be written
+     */
+    void writeComponents(ComponentIterator<T> iterator, SnapshotOutput out) throws IOException {
+        int count = 0;
+        while (iterator.next()) {
+            iterator.getComponent(getComponent(count));
+            entityIds[count] = iterator.getEntityId();
+            if (++count == MAX_CHUNK_SIZE) {
+                writeChunk(out, count);
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            writeChunk(out, count);
+        }
+        writeEnd(out);
+    }
+
+    /**
+     * Writes the end of the components
+     *
+     * @param out The output to write to
+     * @throws IOException If the output could not be written
+     */
+    void writeEnd(SnapshotOutput out) throws IOException {
+        out.writeVarInt(0);
+    }
+
+    /**
+     * Reads the next chunk of components. If the component type is unknown the components are discarded.
+     *
+     * @param in The input to read from
+     * @return The number of components read, or 0 if there are no more chunks
+     * @throws IOException If the input could not be read, or the chunk is malformed
+     */
+    int readChunk(SnapshotInput in) throws IOException {
+        int count = in.readVarInt();
+        if (count < 0 || count > MAX_CHUNK_SIZE) {
+            throw new IOException("Malformed chunk of " + componentClassName + " in entity snapshot");
+        }
+        int previousId = -1;
+        for (int i = 0; i < count; i++) {
+            entityIds[i] = previousId + 1 + in.readSignedVarInt();
+            if (entityIds[i] < 0) {
+                throw new IOException("Malformed entity id for " + componentClassName + " in entity snapshot");
+            }
+            previousId = entityIds[i];
+        }
+        if (type != null) {
+            for (int i = 0; i < count; i++) {
+                getComponent(i).copyFrom(defaults);
+            }
+        }
+        for (int property = 0; property < codecs.length; property++) {
+            ValueCodec codec = codecs[property];
+            PropertyAccessor<T, Object> accessor = properties[property];
+            for (int i = 0; i < count; i++) {
+                Object value = codec.read(in);
+                if (accessor != null) {
+                    accessor.set(getComponent(i), value);
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -16,40 +16,42 @@
 
 package org.terasology.gestalt.entitysystem.entity.manager;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+import gnu.trove.list.array.TIntArrayList;
+
 import net.jcip.annotations.ThreadSafe;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.terasology.gestalt.assets.ResourceUrn;
-import org.terasology.gestalt.entitysystem.component.management.ComponentType;
-import org.terasology.gestalt.entitysystem.component.management.PropertyAccessor;
 import org.terasology.gestalt.entitysystem.component.Component;
 import org.terasology.gestalt.entitysystem.component.ComponentIterator;
 import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityCommandBuffer;
 import org.terasology.gestalt.entitysystem.entity.EntityIterator;
 import org.terasology.gestalt.entitysystem.entity.EntityManager;
 import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.EntityView;
 import org.terasology.gestalt.entitysystem.entity.NullEntityRef;
-import org.terasology.gestalt.entitysystem.prefab.EntityRecipe;
-import org.terasology.gestalt.entitysystem.prefab.EntityRecipeRef;
-import org.terasology.gestalt.entitysystem.prefab.GeneratedFromRecipeComponent;
+import org.terasology.gestalt.entitysystem.entity.ParallelEntityTask;
 import org.terasology.gestalt.entitysystem.prefab.Prefab;
-import org.terasology.gestalt.entitysystem.prefab.PrefabRef;
 import org.terasology.gestalt.naming.Name;
-import org.terasology.gestalt.util.collection.TypeKeyedMap;
-import org.terasology.gestalt.util.collection.UniqueQueue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -58,10 +60,18 @@
 /**
  * A basic but threadsafe implementation of EntityManager.
  * <ul>
- *     <li>Reuses entity ids after entities are destroyed.</li>
+ *     <li>Reuses entity ids after entities are destroyed. Each id has a generation that is incremented when the entity
+ *     using it is destroyed, so references to destroyed entities can be distinguished from references to a new entity
+ *     reusing the id.</li>
  *     <li>Extends all component stores entity capacity is reached.</li>
  *     <li>Read/write locks on entity ids and entity creation.</li>
+ *     <li>Tracks the archetype (set of component types) of each entity, allowing an entity's component types to be
+ *     determined without querying every store, and optionally allowing iteration over multiple components to visit
+ *     only entities that have all of the components.</li>
  * </ul>
+ * Component stores are wrapped by the entity manager so that it is informed of components being added and removed -
+ * changes to components must be made through the stores provided by {@link #getComponentStore(Class)}
+ * or through the entities, rather than the original stores.
  */
 @ThreadSafe
 public class CoreEntityManager implements EntityManager {
@@ -70,15 +80,24 @@ public class CoreEntityManager implements EntityManager {
 
     private static final int DEFAULT_CAPACITY = 1024;
     private static final double EXTENSION_RATE = 1.5;
+    private static final int MIN_PARALLEL_CHUNK_SIZE = 256;
+    private static final int PARALLEL_CHUNKS_PER_THREAD = 4;
 
     private final ReadWriteLock locks = new ReentrantReadWriteLock();
-    private final Map<Class<? extends Component>, ComponentStore<?>> componentStores;
+    private final Map<Class<? extends Component>, TrackedComponentStore<?>> componentStores;
+    private final List<TrackedComponentStore<?>> indexedStores = new CopyOnWriteArrayList<>();
+    private final List<ManagedEntityView> views = new CopyOnWriteArrayList<>();
+    private final List<EntityChangeLog> changeLogs = new CopyOnWriteArrayList<>();
 
-    private final UniqueQueue<Integer> freedIdQueue = new UniqueQueue<>();
+    private final TIntArrayList freedIds = new TIntArrayList();
 
     private EntityRef[] entities;
+    private volatile int[] generations;
     private int nextId = 0;
 
+    private final ArchetypeIndex archetypeIndex;
+    private volatile boolean archetypeStorageEnabled;
+
     /**
      * @param componentStores The component stores for components supported by this entity manager
      */
@@ -99,12 +118,14 @@ public CoreEntityManager(Collection<ComponentStore<?>> componentStores) {
      */
     public CoreEntityManager(Collection<ComponentStore<?>> componentStores, int capacity) {
         this.componentStores = new ConcurrentHashMap<>();
+        this.archetypeIndex = new ArchetypeIndex(capacity, index -> indexedStores.get(index).getType().getComponentClass());
         for (ComponentStore<?> store : componentStores) {
-            this.componentStores.put(store.getType().getComponentClass(), store);
+            register(store);
             store.extend(capacity);
         }
         this.entities = new EntityRef[capacity];
         Arrays.fill(this.entities, NullEntityRef.get());
+        this.generations = new int[capacity];
     }
 
     /**
@@ -113,19 +134,146 @@ public CoreEntityManager(Collection<ComponentStore<?>> componentStores, int capa
      * @throws IllegalStateException If a store for that component type is already present
      */
     public void addComponentStore(ComponentStore<?> store) {
-        Lock lock = locks.readLock();
+        Lock lock = locks.writeLock();
         lock.lock();
         try {
             store.extend(entities.length);
             if (componentStores.containsKey(store.getType().getComponentClass())) {
                 throw new IllegalStateException("Component store for type " + store.getType() + " already present");
             }
-            this.componentStores.put(store.getType().getComponentClass(), store);
+            register(store);
         } finally {
             lock.unlock();
         }
     }
 
+    private <T extends Component<T>> void register(ComponentStore<T> store) {
+        TrackedComponentStore<T> trackedStore = new TrackedComponentStore<>(store, this, indexedStores.size());
+        for (EntityChangeLog log : changeLogs) {
+            log.addStore(entities.length);
+        }
+        componentStores.put(store.getType().getComponentClass(), trackedStore);
+        indexedStores.add(trackedStore);
+        ComponentIterator<?> iterator = trackedStore.iterate();
+        while (iterator.next()) {
+            archetypeIndex.update(iterator.getEntityId(), trackedStore.getIndex(), trackedStore);
+        }
+    }
+
+    /**
+     * Enables or disables archetype storage. The archetype of each entity - the set of components it has - is always
+     * tracked, without locking. When archetype storage is enabled, entities with identical sets of components are also
+     * grouped together, and {@link #iterate(Component[])} visits only the entities in archetypes with all the requested
+     * components rather than probing each component store for each entity in the cheapest store. This is generally
+     * cheaper for iteration over multiple components, unless one of the components is very rare. Grouping is
+     * maintained under a single lock, so it also serializes changes to which components entities have.
+     * <p>
+     * Component data continues to be held by the component stores - only the entity ids are grouped by archetype.
+     *
+     * @param enabled Whether archetype storage should be used
+     */
+    public void setArchetypeStorageEnabled(boolean enabled) {
+        archetypeIndex.setMembershipTracked(enabled);
+        archetypeStorageEnabled = enabled;
+    }
+
+    /**
+     * @return Whether archetype storage is enabled
+     */
+    public boolean isArchetypeStorageEnabled() {
+        return archetypeStorageEnabled;
+    }
+
+    /**
+     * @param entityId The id of the entity
+     * @return The archetype of the entity, or null if it has no components
+     */
+    Archetype getArchetype(int entityId) {
+        return archetypeIndex.getArchetype(entityId);
+    }
+
+    /**
+     * @param entityId The id of the entity
+     * @return The types of the components the entity has. This set is shared by all entities with the same components,
+     * and cannot be modified.
+     */
+    Set<Class<? extends Component>> getComponentTypes(int entityId) {
+        Archetype archetype = archetypeIndex.getArchetype(entityId);
+        return (archetype != null) ? archetype.getComponentTypes() : Collections.emptySet();
+    }
+
+    /**
+     * @param entityId      The id of the entity
+     * @param componentType The type of component
+     * @return Whether the entity has a component of the given type
+     */
+    boolean hasComponent(int entityId, Class<? extends Component> componentType) {
+        Archetype archetype = archetypeIndex.getArchetype(entityId);
+        if (archetype == null) {
+            return false;
+        }
+        TrackedComponentStore<?> store = componentStores.get(componentType);
+        return store != null && archetype.has(store.getIndex());
+    }
+
+    /**
+     * Called by the component stores when a component is added to or removed from an entity
+     *
+     * @param entityId The id of the entity that changed
+     * @param store    The store that changed
+     */
+    void onComponentsChanged(int entityId, TrackedComponentStore<?> store) {
+        logComponentChange(entityId, store);
+        archetypeIndex.update(entityId, store.getIndex(), store);
+        for (ManagedEntityView view : views) {
+            if (view.covers(store.getIndex())) {
+                view.update(entityId);
+            }
+        }
+    }
+
+    /**
+     * Called by the component stores when a component is added, changed or removed, to record the change in the
+     * change logs
+     *
+     * @param entityId The id of the entity that changed
+     * @param store    The store that changed
+     */
+    void logComponentChange(int entityId, TrackedComponentStore<?> store) {
+        if (!changeLogs.isEmpty()) {
+            for (EntityChangeLog log : changeLogs) {
+                log.componentChanged(store.getIndex(), entityId);
+            }
+        }
+    }
+
+    /**
+     * Creates a log that records the entities created and deleted, and the components changed, from now on
+     *
+     * @return The new change log
+     */
+    EntityChangeLog createChangeLog() {
+        Lock lock = locks.writeLock();
+        lock.lock();
+        try {
+            EntityChangeLog log = new EntityChangeLog(entities.length, indexedStores.size());
+            changeLogs.add(log);
+            return log;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void removeChangeLog(EntityChangeLog log) {
+        changeLogs.remove(log);
+    }
+
+    private void logEntityCreated(int id) {
+        for (EntityChangeLog log : changeLogs) {
+            log.entityCreated(id);
+        }
+    }
+
     @Override
     public EntityRef getEntity(int id) {
         Lock lock = locks.readLock();
@@ -143,16 +291,17 @@ public EntityRef createEntity() {
         lock.lock();
         try {
             int id;
-            if (freedIdQueue.isEmpty()) {
+            if (freedIds.isEmpty()) {
                 id = nextId++;
                 if (id >= entities.length) {
-                    extendStorage();
+                    extendStorage(nextId);
                 }
             } else {
-                id = freedIdQueue.remove();
+                id = freedIds.removeAt(freedIds.size() - 1);
             }
-            EntityRef result = new ManagedEntityRef(this, id);
+            EntityRef result = new ManagedEntityRef(this, id, generations[id]);
             entities[id] = result;
+            logEntityCreated(id);
             return result;
         } finally {
             lock.unlock();
@@ -166,23 +315,60 @@ public EntityRef createEntity(Collection<Component> components) {
         return entity;
     }
 
-    void freeEntityId(int id) {
+    /**
+     * Frees an entity id for reuse, if the given generation is still the current generation of the id.
+     *
+     * @param id         The id to free
+     * @param generation The generation of the entity being freed
+     */
+    void freeEntityId(int id, int generation) {
         Lock lock = locks.writeLock();
         lock.lock();
         try {
-            freedIdQueue.add(id);
+            if (generations[id] != generation) {
+                return;
+            }
+            generations[id]++;
+            entities[id] = NullEntityRef.get();
+            freedIds.add(id);
+            archetypeIndex.clear(id);
+            for (EntityChangeLog log : changeLogs) {
+                log.entityDeleted(id);
+            }
+            for (ManagedEntityView view : views) {
+                view.clear(id);
+            }
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * @param id         An entity id
+     * @param generation A generation of that id
+     * @return Whether the given generation is the current generation of the entity id
+     */
+    boolean isCurrentGeneration(int id, int generation) {
+        int[] currentGenerations = generations;
+        return id < currentGenerations.length && currentGenerations[id] == generation;
+    }
+
     @Override
     public int size() {
-        return nextId - freedIdQueue.size();
+        Lock lock = locks.readLock();
+        lock.lock();
+        try {
+            return nextId - freedIds.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public EntityIterator iterate(Component... components) {
+        if (archetypeStorageEnabled) {
+            return iterateArchetypes(components);
+        }
         List<Component> componentsOrdered = Lists.newArrayList(components);
         componentsOrdered.sort(Comparator.comparing(x -> componentStores.get(x.getClass()).iterationCost()));
         List<ComponentStore> stores = componentsOrdered.stream().map(x -> componentStores.get(x.getClass())).collect(Collectors.toList());
@@ -192,74 +378,228 @@ public EntityIterator iterate(Component... components) {
         return new ComponentsIterator(drivingIterator, componentsOrdered, stores);
     }
 
+    private EntityIterator iterateArchetypes(Component... components) {
+        BitSet query = new BitSet();
+        ComponentStore<?>[] stores = new ComponentStore<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            TrackedComponentStore<?> store = componentStores.get(components[i].getClass());
+            stores[i] = store;
+            query.set(store.getIndex());
+        }
+        List<Archetype> archetypes = archetypeIndex.getMatching(query);
+        return new ArchetypesIterator(archetypes.toArray(new Archetype[0]), components, stores);
+    }
+
+    @Override
+    public EntityView createView(Class<? extends Component>... componentTypes) {
+        ManagedEntityView view = new ManagedEntityView(this, getStores(componentTypes));
+        views.add(view);
+        view.populate();
+        return view;
+    }
+
+    private TrackedComponentStore<?>[] getStores(Class<? extends Component>[] componentTypes) {
+        if (componentTypes.length == 0) {
+            throw new IllegalArgumentException("At least one component type is required");
+        }
+        TrackedComponentStore<?>[] stores = new TrackedComponentStore<?>[componentTypes.length];
+        for (int i = 0; i < componentTypes.length; i++) {
+            stores[i] = componentStores.get(componentTypes[i]);
+            if (stores[i] == null) {
+                throw new IllegalArgumentException("No component store for " + componentTypes[i]);
+            }
+        }
+        return stores;
+    }
+
+    void removeView(ManagedEntityView view) {
+        views.remove(view);
+    }
+
+    @Override
+    public void forEachParallel(ForkJoinPool pool, ParallelEntityTask task, Class<? extends Component>... componentTypes) {
+        ComponentStore<?>[] stores = getStores(componentTypes);
+        Arrays.sort(stores, Comparator.comparing(ComponentStore::iterationCost));
+
+        int[] entityIds = getEntityIds(stores[0]);
+        int chunkSize = Math.max(MIN_PARALLEL_CHUNK_SIZE, entityIds.length / (pool.getParallelism() * PARALLEL_CHUNKS_PER_THREAD) + 1);
+        int chunks = (entityIds.length + chunkSize - 1) / chunkSize;
+        if (chunks == 0) {
+            return;
+        }
+
+        EntityCommandBuffer[] buffers = new EntityCommandBuffer[chunks];
+        pool.invoke(new ParallelForEachAction(this, task, stores, buffers, entityIds, chunkSize, 0, chunks));
+        apply(buffers);
+    }
+
+    private static int[] getEntityIds(ComponentStore<?> store) {
+        TIntArrayList entityIds = new TIntArrayList();
+        ComponentIterator<?> iterator = store.iterate();
+        while (iterator.next()) {
+            entityIds.add(iterator.getEntityId());
+        }
+        entityIds.sort();
+        return entityIds.toArray();
+    }
+
+    /**
+     * Applies the commands in the command buffer while holding the entity manager's write lock, so the lock is
+     * acquired once for the whole batch rather than for each entity created or deleted. Storage is extended once
+     * up front to fit all the entities being created.
+     *
+     * @param commandBuffer The command buffer to apply
+     */
+    @Override
+    public void apply(EntityCommandBuffer commandBuffer) {
+        apply(new EntityCommandBuffer[]{commandBuffer});
+    }
+
+    private void apply(EntityCommandBuffer[] commandBuffers) {
+        Lock lock = locks.writeLock();
+        lock.lock();
+        try {
+            int creations = 0;
+            for (EntityCommandBuffer buffer : commandBuffers) {
+                creations += buffer.getPendingCreations();
+            }
+            extendStorage(nextId + Math.max(0, creations - freedIds.size()));
+            for (EntityCommandBuffer buffer : commandBuffers) {
+                buffer.replay();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <T extends Component<T>> ComponentStore<T> getComponentStore(Class<T> componentType) {
         return (ComponentStore<T>) componentStores.get(componentType);
     }
 
-    // TODO: Better home for prefab instantiation code?
+    /**
+     * @param index The index of a component store
+     * @return The component store with the given index
+     */
+    TrackedComponentStore<?> getStore(int index) {
+        return indexedStores.get(index);
+    }
+
+    /**
+     * @return The number of component stores
+     */
+    int getStoreCount() {
+        return indexedStores.size();
+    }
+
+    /**
+     * Prefabs are compiled into an instantiation plan the first time this entity manager instantiates them. The plan is
+     * cached on the prefab until it is reloaded.
+     */
+    private PrefabInstantiationPlan getInstantiationPlan(Prefab prefab) {
+        return prefab.getCompiledForm(this, p -> PrefabInstantiationPlan.compile(p, componentStores::get));
+    }
 
     @Override
     public EntityRef createEntity(Prefab prefab) {
-        Map<Name, EntityRef> entities = createEntities(prefab);
-        return entities.get(prefab.getRootEntityUrn().getFragmentName());
+        PrefabInstantiationPlan plan = getInstantiationPlan(prefab);
+        EntityRef[] created = createEntityBatch(plan.getEntityCount());
+        plan.populate(this, created, 0);
+        return (plan.getRootIndex() >= 0) ? created[plan.getRootIndex()] : null;
     }
 
     @Override
     public Map<Name, EntityRef> createEntities(Prefab prefab) {
-        Map<Name, EntityRef> result = createPrefabEntities(prefab);
-        populatePrefabEntities(prefab, result);
+        PrefabInstantiationPlan plan = getInstantiationPlan(prefab);
+        EntityRef[] created = createEntityBatch(plan.getEntityCount());
+        plan.populate(this, created, 0);
+        Map<Name, EntityRef> result = Maps.newLinkedHashMap();
+        Name[] names = plan.getNames();
+        for (int i = 0; i < names.length; i++) {
+            result.put(names[i], created[i]);
+        }
         return result;
     }
 
-    @SuppressWarnings("unchecked")
-    private void populatePrefabEntities(Prefab prefab, Map<Name, EntityRef> result) {
-        for (EntityRecipe entityRecipe : prefab.getEntityRecipes().values()) {
-            EntityRef entity = result.get(entityRecipe.getIdentifier().getFragmentName());
-            GeneratedFromRecipeComponent prefabComponent = new GeneratedFromRecipeComponent();
-            prefabComponent.setEntityRecipe(entityRecipe.getIdentifier());
-            entity.setComponent(prefabComponent);
-
-            for (TypeKeyedMap.Entry<? extends Component> entry : entityRecipe.getComponents().entrySet()) {
-                ComponentType componentType = componentStores.get(entry.getKey()).getType();
-                Component component = componentType.createCopy(entry.getValue());
-                processReferences(componentType, component, entityRecipe.getIdentifier(), result);
-                entity.setComponent(component);
-            }
+    /**
+     * Creates a number of instances of a prefab. The entity ids for all the instances are reserved, and the component
+     * stores extended, at once.
+     *
+     * @param prefab The prefab to create entities from
+     * @param count  The number of instances of the prefab to create
+     * @return The root entity of each instance of the prefab
+     * @throws IllegalArgumentException If count is negative
+     * @throws ArithmeticException      If the total number of entities to create does not fit in an int
+     */
+    @Override
+    public List<EntityRef> createEntities(Prefab prefab, int count) {
+        Preconditions.checkArgument(count >= 0, "count must not be negative");
+        PrefabInstantiationPlan plan = getInstantiationPlan(prefab);
+        int entitiesPerInstance = plan.getEntityCount();
+        EntityRef[] created = createEntityBatch(Math.multiplyExact(entitiesPerInstance, count));
+        List<EntityRef> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int offset = i * entitiesPerInstance;
+            plan.populate(this, created, offset);
+            result.add((plan.getRootIndex() >= 0) ? created[offset + plan.getRootIndex()] : null);
         }
+        return result;
     }
 
-    @SuppressWarnings("unchecked")
-    private void processReferences(ComponentType<?> componentType, Component component, ResourceUrn entityRecipeUrn, Map<Name, EntityRef> entityMap) {
-        for (PropertyAccessor property : componentType.getPropertyInfo().getPropertiesOfType(EntityRef.class)) {
-            EntityRef existing = (EntityRef) property.get(component);
-            EntityRef newRef;
-            if (existing instanceof EntityRecipeRef) {
-                newRef = entityMap.get(((EntityRecipeRef) existing).getRecipe().getIdentifier().getFragmentName());
-                if (newRef == null) {
-                    logger.error("{} references external or unknown entity prefab {}", entityRecipeUrn, existing);
-                    newRef = NullEntityRef.get();
-                }
-            } else if (existing instanceof PrefabRef) {
-                newRef = createEntity(((PrefabRef) existing).getPrefab());
-            } else {
-                logger.error("{} contains unsupported entity ref {}", entityRecipeUrn, existing);
-                newRef = NullEntityRef.get();
+    /**
+     * Creates a number of entities while holding the write lock once, extending storage at most once.
+     *
+     * @param count The number of entities to create
+     * @return The new entities
+     */
+    private EntityRef[] createEntityBatch(int count) {
+        EntityRef[] result = new EntityRef[count];
+        Lock lock = locks.writeLock();
+        lock.lock();
+        try {
+            extendStorage(nextId + Math.max(0, count - freedIds.size()));
+            for (int i = 0; i < count; i++) {
+                int id = freedIds.isEmpty() ? nextId++ : freedIds.removeAt(freedIds.size() - 1);
+                result[i] = new ManagedEntityRef(this, id, generations[id]);
+                entities[id] = result[i];
+                logEntityCreated(id);
             }
-            property.set(component, newRef);
+        } finally {
+            lock.unlock();
         }
+        return result;
     }
 
     /**
-     * Create all the entities described by a prefab.
+     * Creates entities with specific ids, for loading saved entity state. Unused ids below the highest restored id are
+     * free for reuse by new entities.
+     *
+     * @param ids The ids of the entities to create
+     * @throws IllegalStateException If the entity manager has already created entities
      */
-    private Map<Name, EntityRef> createPrefabEntities(Prefab prefab) {
-        Map<Name, EntityRef> result = Maps.newLinkedHashMap();
-        for (EntityRecipe entityRecipe : prefab.getEntityRecipes().values()) {
-            result.put(entityRecipe.getIdentifier().getFragmentName(), createEntity());
+    void restoreEntities(BitSet ids) {
+        Lock lock = locks.writeLock();
+        lock.lock();
+        try {
+            if (nextId != 0) {
+                throw new IllegalStateException("Entities can only be restored into an entity manager that has not created any entities");
+            }
+            int limit = ids.length();
+            extendStorage(limit);
+            // Free ids are reused from the end of the list, so add them highest first
+            for (int id = limit - 1; id >= 0; id--) {
+                if (ids.get(id)) {
+                    entities[id] = new ManagedEntityRef(this, id, generations[id]);
+                    logEntityCreated(id);
+                } else {
+                    freedIds.add(id);
+                }
+            }
+            nextId = limit;
+        } finally {
+            lock.unlock();
         }
-        return result;
     }
 
     @Override
@@ -268,25 +608,33 @@ public Iterable<EntityRef> allEntities() {
     }
 
     /**
-     * Extends the internal storage of the entity manager and all the component stores, if they are exhausted
+     * Extends the internal storage of the entity manager and all the component stores, if they cannot hold the
+     * required number of entities
+     *
+     * @param required The number of entity ids that must be supported
      */
-    private void extendStorage() {
-        if (entities.length <= nextId) {
-            int newSize = Math.min((int) (entities.length * EXTENSION_RATE), entities.length + 1);
+    private void extendStorage(int required) {
+        if (entities.length < required) {
+            int newSize = Math.max((int) (entities.length * EXTENSION_RATE), required);
             EntityRef[] newEntities = new EntityRef[newSize];
             System.arraycopy(entities, 0, newEntities, 0, entities.length);
             Arrays.fill(newEntities, entities.length, newEntities.length, NullEntityRef.get());
             entities = newEntities;
+            generations = Arrays.copyOf(generations, newSize);
 
             for (ComponentStore<?> store : componentStores.values()) {
                 store.extend(entities.length);
             }
+            archetypeIndex.extend(entities.length);
+            for (EntityChangeLog log : changeLogs) {
+                log.extend(entities.length);
+            }
         }
     }
 
     @Override
     public Iterable<ComponentStore<?>> allComponentStores() {
-        return componentStores.values();
+        return Collections.unmodifiableCollection(componentStores.values());
     }
 
     private class ComponentsIterator implements EntityIterator {
@@ -324,4 +672,59 @@ public EntityRef getEntity() {
             return CoreEntityManager.this.getEntity(drivingIterator.getEntityId());
         }
     }
+
+    /**
+     * Iterates over the entities in a set of archetypes. The ids of each archetype's entities are copied when the
+     * iterator reaches it, so changes to the archetype during iteration don't cause entities to be skipped or visited
+     * twice. Entities that no longer have the components by the time they are reached are skipped.
+     */
+    private class ArchetypesIterator implements EntityIterator {
+        private final Archetype[] archetypes;
+        private final Component[] components;
+        private final ComponentStore[] stores;
+
+        private int nextArchetype;
+        private int[] entityIds = new int[0];
+        private int index;
+        private int entityId = NullEntityRef.NON_EXISTENT_ENTITY_ID;
+
+        private ArchetypesIterator(Archetype[] archetypes, Component[] components, ComponentStore[] stores) {
+            this.archetypes = archetypes;
+            this.components = components;
+            this.stores = stores;
+        }
+
+        @Override
+        public boolean next() {
+            while (true) {
+                while (index < entityIds.length) {
+                    int id = entityIds[index++];
+                    if (load(id)) {
+                        entityId = id;
+                        return true;
+                    }
+                }
+                if (nextArchetype == archetypes.length) {
+                    return false;
+                }
+                entityIds = archetypeIndex.getEntityIds(archetypes[nextArchetype++]);
+                index = 0;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean load(int id) {
+            for (int i = 0; i < stores.length; i++) {
+                if (!stores[i].get(id, components[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public EntityRef getEntity() {
+            return CoreEntityManager.this.getEntity(entityId);
+        }
+    }
 }
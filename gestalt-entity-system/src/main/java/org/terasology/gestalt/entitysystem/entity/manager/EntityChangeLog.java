@@ -0,0 +1,147 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the ids of entities that have been created or deleted, and of entities whose components have been set or
+ * removed in each component store, since the log was last drained. A {@link CoreEntityManager} and its
+ * {@link TrackedComponentStore}s feed each of its change logs. Recording an id sets a bit in a lock-free bit set, so
+ * it is cheap enough to do on every component change.
+ */
+@ThreadSafe
+final class EntityChangeLog {
+
+    private final IdSet created;
+    private final IdSet deleted;
+    private final List<IdSet> changedComponents = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param capacity   The number of entity ids to support
+     * @param storeCount The number of component stores to record changes for
+     */
+    EntityChangeLog(int capacity, int storeCount) {
+        this.created = new IdSet(capacity);
+        this.deleted = new IdSet(capacity);
+        for (int i = 0; i < storeCount; i++) {
+            changedComponents.add(new IdSet(capacity));
+        }
+    }
+
+    /**
+     * Adds a component store to record changes for. Must be called before the store is available for use.
+     *
+     * @param capacity The number of entity ids to support
+     */
+    void addStore(int capacity) {
+        changedComponents.add(new IdSet(capacity));
+    }
+
+    /**
+     * @param capacity The number of entity ids to support
+     */
+    void extend(int capacity) {
+        created.extend(capacity);
+        deleted.extend(capacity);
+        for (IdSet ids : changedComponents) {
+            ids.extend(capacity);
+        }
+    }
+
+    void entityCreated(int entityId) {
+        created.add(entityId);
+    }
+
+    void entityDeleted(int entityId) {
+        deleted.add(entityId);
+    }
+
+    /**
+     * @param storeIndex The index of the store that changed
+     * @param entityId   The entity whose component was set or removed
+     */
+    void componentChanged(int storeIndex, int entityId) {
+        changedComponents.get(storeIndex).add(entityId);
+    }
+
+    /**
+     * @return The entities created since the last drain, which are removed from the log
+     */
+    BitSet drainCreated() {
+        return created.drain();
+    }
+
+    /**
+     * @return The entities deleted since the last drain, which are removed from the log
+     */
+    BitSet drainDeleted() {
+        return deleted.drain();
+    }
+
+    /**
+     * @param storeIndex The index of a component store
+     * @return The entities whose component in the store was set or removed since the last drain, which are removed
+     * from the log
+     */
+    BitSet drainChangedComponents(int storeIndex) {
+        return changedComponents.get(storeIndex).drain();
+    }
+
+    /**
+     * A set of ids that can be added to concurrently. When extended, the new words are published before the old words
+     * are merged into them, so an add that raced with extension either sees the new words and repeats itself, or was
+     * made before the merge.
+     */
+    private static final class IdSet {
+        private volatile AtomicLongArray words;
+
+        IdSet(int capacity) {
+            words = new AtomicLongArray(wordsFor(capacity));
+        }
+
+        private static int wordsFor(int capacity) {
+            return (capacity + Long.SIZE - 1) / Long.SIZE;
+        }
+
+        void add(int id) {
+            long bit = 1L << id;
+            AtomicLongArray current = words;
+            current.accumulateAndGet(id / Long.SIZE, bit, (a, b) -> a | b);
+            while (current != words) {
+                current = words;
+                current.accumulateAndGet(id / Long.SIZE, bit, (a, b) -> a | b);
+            }
+        }
+
+        synchronized void extend(int capacity) {
+            AtomicLongArray old = words;
+            if (old.length() < wordsFor(capacity)) {
+                AtomicLongArray extended = new AtomicLongArray(wordsFor(capacity));
+                words = extended;
+                for (int i = 0; i < old.length(); i++) {
+                    extended.accumulateAndGet(i, old.get(i), (a, b) -> a | b);
+                }
+            }
+        }
+
+        BitSet drain() {
+            AtomicLongArray current = words;
+            BitSet result = new BitSet();
+            for (int i = 0; i < current.length(); i++) {
+                long word = current.getAndSet(i, 0);
+                while (word != 0) {
+                    result.set(i * Long.SIZE + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return result;
+        }
+    }
+}
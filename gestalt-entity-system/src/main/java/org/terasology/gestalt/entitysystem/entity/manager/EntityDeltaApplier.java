@@ -0,0 +1,168 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityManager;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.NullEntityRef;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Applies deltas written by an {@link EntityDeltaRecorder} to an entity manager, keeping it in sync with the entity
+ * manager the deltas were recorded from. The follower must start with a full delta, and then apply each delta in
+ * order - a delta that does not follow on from the last one applied is rejected.
+ * <p>
+ * Entities in the follower are created through its normal API, so they have their own ids - the applier maps the ids
+ * of the recorded entities to the follower's entities, including for entity references within components. Likewise
+ * components are set and removed through the follower's normal API, so lifecycle events are sent as for local changes.
+ * Components of types the follower has no store for are skipped.
+ * <p>
+ * If applying a delta fails part way through the follower is out of sync, and must start again from a full delta.
+ */
+public class EntityDeltaApplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityDeltaApplier.class);
+
+    private final EntityManager entityManager;
+    private final int bufferSize;
+    private final TIntObjectMap<EntityRef> entities = new TIntObjectHashMap<>();
+    private final IntFunction<EntityRef> entityLookup = this::getEntity;
+    private final Gson gson = ValueCodec.createGson(entityLookup);
+    private long checkpoint = EntityDeltaRecorder.FULL;
+
+    /**
+     * @param entityManager The entity manager to apply deltas to
+     */
+    public EntityDeltaApplier(EntityManager entityManager) {
+        this(entityManager, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param entityManager The entity manager to apply deltas to
+     * @param bufferSize    The size of the buffer used for reading from channels, in bytes
+     */
+    public EntityDeltaApplier(EntityManager entityManager, int bufferSize) {
+        this.entityManager = entityManager;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return The checkpoint of the last delta applied, or -1 if the follower is not in sync
+     */
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * @param recordedId The id of an entity in the recorded entity manager
+     * @return The follower's entity for the recorded entity, or the NullEntityRef if there is none
+     */
+    public EntityRef getEntity(int recordedId) {
+        EntityRef entity = entities.get(recordedId);
+        return (entity != null) ? entity : NullEntityRef.get();
+    }
+
+    /**
+     * Applies a delta. The channel is not closed.
+     *
+     * @param channel The channel to read the delta from
+     * @throws IOException If the channel could not be read, does not contain a valid delta, or contains a delta that
+     *                     does not follow on from the last delta applied
+     */
+    public void apply(ReadableByteChannel channel) throws IOException {
+        SnapshotInput in = new SnapshotInput(channel, bufferSize);
+        if (in.readInt() != EntityDeltaRecorder.MAGIC) {
+            throw new IOException("Not an entity delta");
+        }
+        int version = in.readVarInt();
+        if (version != EntityDeltaRecorder.VERSION) {
+            throw new IOException("Unsupported entity delta version " + version);
+        }
+        long baseCheckpoint = in.readSignedVarLong();
+        long newCheckpoint = in.readVarLong();
+        if (baseCheckpoint == EntityDeltaRecorder.FULL) {
+            for (EntityRef entity : entities.valueCollection()) {
+                entity.delete();
+            }
+            entities.clear();
+        } else if (baseCheckpoint != checkpoint) {
+            throw new IOException("Entity delta from checkpoint " + baseCheckpoint + " cannot be applied at checkpoint " + checkpoint);
+        }
+        checkpoint = EntityDeltaRecorder.FULL;
+
+        BitSet deleted = in.readIds();
+        for (int id = deleted.nextSetBit(0); id >= 0; id = deleted.nextSetBit(id + 1)) {
+            EntityRef entity = entities.remove(id);
+            if (entity != null) {
+                entity.delete();
+            }
+        }
+        BitSet created = in.readIds();
+        for (int id = created.nextSetBit(0); id >= 0; id = created.nextSetBit(id + 1)) {
+            EntityRef entity = entities.get(id);
+            if (entity == null || !entity.exists()) {
+                entities.put(id, entityManager.createEntity());
+            }
+        }
+
+        Map<String, ComponentStore<?>> stores = Maps.newHashMap();
+        for (ComponentStore<?> store : entityManager.allComponentStores()) {
+            stores.put(store.getType().getComponentClass().getName(), store);
+        }
+        int storeCount = in.readVarInt();
+        for (int i = 0; i < storeCount; i++) {
+            ComponentSchema<?> schema = ComponentSchema.read(in, name -> {
+                ComponentStore<?> store = stores.get(name);
+                return (store != null) ? store.getType() : null;
+            }, entityLookup, gson);
+            if (schema.getType() == null) {
+                logger.warn("Skipping components of unknown type {} in entity delta", schema.getComponentClassName());
+            }
+            applyChanges(in, schema, stores.get(schema.getComponentClassName()));
+        }
+        checkpoint = newCheckpoint;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Component<T>> void applyChanges(SnapshotInput in, ComponentSchema<T> schema, ComponentStore<?> store) throws IOException {
+        ComponentStore<T> typedStore = (ComponentStore<T>) store;
+        for (int count = schema.readChunk(in); count > 0; count = schema.readChunk(in)) {
+            if (typedStore == null) {
+                continue;
+            }
+            for (int i = 0; i < count; i++) {
+                typedStore.set(getExistingEntity(schema.getEntityId(i)).getId(), schema.getComponent(i));
+            }
+        }
+        BitSet removed = in.readIds();
+        if (typedStore != null) {
+            for (int id = removed.nextSetBit(0); id >= 0; id = removed.nextSetBit(id + 1)) {
+                typedStore.remove(getExistingEntity(id).getId());
+            }
+        }
+    }
+
+    private EntityRef getExistingEntity(int recordedId) throws IOException {
+        EntityRef entity = entities.get(recordedId);
+        if (entity == null || !entity.exists()) {
+            throw new IOException("Entity delta changes unknown entity " + recordedId);
+        }
+        return entity;
+    }
+}
@@ -0,0 +1,189 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.gson.Gson;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
+
+/**
+ * Records the changes made to a {@link CoreEntityManager} - entities created and deleted, and components set and
+ * removed - and writes them as deltas that an {@link EntityDeltaApplier} can apply to another entity manager, to keep
+ * it in sync. This supports replication to followers and incremental autosave without writing every entity each time.
+ * <p>
+ * Each delta contains the changes since the previous checkpoint, and starts a new checkpoint. A follower applies the
+ * deltas in order, starting from a full delta of the current state of the entity manager:
+ * <pre>
+ *     EntityDeltaRecorder recorder = new EntityDeltaRecorder(entityManager);
+ *     recorder.writeFull(newFollowerChannel);
+ *     ...
+ *     recorder.writeDelta(allFollowersChannel);
+ * </pre>
+ * A delta has a similar layout to a snapshot written by {@link EntitySnapshotWriter}: the deleted and created entity
+ * ids, then for each changed component store, its schema, the changed components in columnar chunks and the ids of
+ * the entities whose component was removed. Changed components are written in full.
+ * <p>
+ * Changes are recorded in lock-free bit sets as they are made, so recording is cheap. For each delta to reflect a
+ * consistent state, deltas should be written while the entity manager is not being modified - otherwise concurrent
+ * changes may be carried by the following delta instead.
+ */
+public class EntityDeltaRecorder implements AutoCloseable {
+
+    static final int MAGIC = 0x47455344;
+    static final int VERSION = 1;
+    static final long FULL = -1;
+
+    private final CoreEntityManager entityManager;
+    private final EntityChangeLog changeLog;
+    private final int bufferSize;
+    private final Gson gson = ValueCodec.createGson(null);
+    private long checkpoint;
+
+    /**
+     * @param entityManager The entity manager to record the changes of
+     */
+    public EntityDeltaRecorder(CoreEntityManager entityManager) {
+        this(entityManager, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param entityManager The entity manager to record the changes of
+     * @param bufferSize    The size of the buffer used for writing to channels, in bytes
+     */
+    public EntityDeltaRecorder(CoreEntityManager entityManager, int bufferSize) {
+        this.entityManager = entityManager;
+        this.bufferSize = bufferSize;
+        this.changeLog = entityManager.createChangeLog();
+    }
+
+    /**
+     * @return The current checkpoint, which is advanced by each delta written
+     */
+    public synchronized long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Writes the changes since the last checkpoint, and starts a new checkpoint. The channel is not closed.
+     *
+     * @param channel The channel to write the delta to
+     * @throws IOException If the channel could not be written
+     */
+    public synchronized void writeDelta(WritableByteChannel channel) throws IOException {
+        // Drain the stores first, so that components of entities created concurrently are not written ahead of their entity
+        int storeCount = entityManager.getStoreCount();
+        BitSet[] changedComponents = new BitSet[storeCount];
+        int changedStores = 0;
+        for (int i = 0; i < storeCount; i++) {
+            changedComponents[i] = changeLog.drainChangedComponents(i);
+            if (!changedComponents[i].isEmpty()) {
+                changedStores++;
+            }
+        }
+        BitSet created = existingEntities(changeLog.drainCreated());
+        BitSet deleted = changeLog.drainDeleted();
+
+        SnapshotOutput out = new SnapshotOutput(channel, bufferSize);
+        writeHeader(out, checkpoint, checkpoint + 1);
+        out.writeIds(deleted);
+        out.writeIds(created);
+        out.writeVarInt(changedStores);
+        for (int i = 0; i < storeCount; i++) {
+            if (!changedComponents[i].isEmpty()) {
+                writeChanges(entityManager.getStore(i), changedComponents[i], out);
+            }
+        }
+        out.flush();
+        checkpoint++;
+    }
+
+    /**
+     * Writes the full current state of the entity manager, for a follower to start from. A follower that applies it
+     * can then apply the delta from the current checkpoint. The checkpoint is not advanced, so changes since the last
+     * checkpoint are written again in the next delta - applying them again has no effect. The channel is not closed.
+     *
+     * @param channel The channel to write the delta to
+     * @throws IOException If the channel could not be written
+     */
+    public synchronized void writeFull(WritableByteChannel channel) throws IOException {
+        BitSet entities = new BitSet();
+        for (EntityRef entity : entityManager.allEntities()) {
+            if (entity.exists()) {
+                entities.set(entity.getId());
+            }
+        }
+
+        SnapshotOutput out = new SnapshotOutput(channel, bufferSize);
+        writeHeader(out, FULL, checkpoint);
+        out.writeIds(new BitSet());
+        out.writeIds(entities);
+        int storeCount = entityManager.getStoreCount();
+        out.writeVarInt(storeCount);
+        for (int i = 0; i < storeCount; i++) {
+            writeAll(entityManager.getStore(i), out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Stops recording changes
+     */
+    @Override
+    public void close() {
+        entityManager.removeChangeLog(changeLog);
+    }
+
+    private void writeHeader(SnapshotOutput out, long baseCheckpoint, long newCheckpoint) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeVarInt(VERSION);
+        out.writeSignedVarLong(baseCheckpoint);
+        out.writeVarLong(newCheckpoint);
+    }
+
+    private BitSet existingEntities(BitSet ids) {
+        BitSet result = new BitSet();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            if (entityManager.getEntity(id).exists()) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    private <T extends Component<T>> void writeChanges(ComponentStore<T> store, BitSet changed, SnapshotOutput out) throws IOException {
+        ComponentSchema<T> schema = ComponentSchema.create(store.getType(), gson);
+        schema.write(out);
+        BitSet removed = new BitSet();
+        int count = 0;
+        for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+            if (store.get(id, schema.getComponent(count))) {
+                schema.setEntityId(count, id);
+                if (++count == ComponentSchema.MAX_CHUNK_SIZE) {
+                    schema.writeChunk(out, count);
+                    count = 0;
+                }
+            } else if (entityManager.getEntity(id).exists()) {
+                removed.set(id);
+            }
+        }
+        if (count > 0) {
+            schema.writeChunk(out, count);
+        }
+        schema.writeEnd(out);
+        out.writeIds(removed);
+    }
+
+    private <T extends Component<T>> void writeAll(ComponentStore<T> store, SnapshotOutput out) throws IOException {
+        ComponentSchema<T> schema = ComponentSchema.create(store.getType(), gson);
+        schema.write(out);
+        schema.writeComponents(store.iterate(), out);
+        out.writeIds(new BitSet());
+    }
+}
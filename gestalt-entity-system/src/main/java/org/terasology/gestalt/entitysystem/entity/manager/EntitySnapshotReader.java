@@ -0,0 +1,107 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.NullEntityRef;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Loads a snapshot written by an {@link EntitySnapshotWriter} into an entity manager that has not yet created any
+ * entities. Entities are restored with the ids they had when the snapshot was written, so references between entities
+ * are preserved.
+ * <p>
+ * Components are loaded straight into the component stores through {@link ComponentStore#restore(int, Component)}, so no
+ * lifecycle events are sent for them. Components of types the entity manager has no store for are skipped, as are
+ * properties that no longer exist or have changed type.
+ * <p>
+ * The snapshot is streamed from the channel through a fixed size buffer, and components are loaded a chunk at a time.
+ * Beyond the entity manager itself, the memory used is bounded by the number of entity ids.
+ */
+public class EntitySnapshotReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntitySnapshotReader.class);
+
+    private final int bufferSize;
+
+    public EntitySnapshotReader() {
+        this(EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize The size of the buffer used for reading from channels, in bytes
+     */
+    public EntitySnapshotReader(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Loads a snapshot into an entity manager. The channel is not closed.
+     *
+     * @param channel       The channel to read the snapshot from
+     * @param entityManager The entity manager to load the snapshot into
+     * @throws IOException           If the channel could not be read, or does not contain a valid snapshot
+     * @throws IllegalStateException If the entity manager has already created entities
+     */
+    public void read(ReadableByteChannel channel, CoreEntityManager entityManager) throws IOException {
+        SnapshotInput in = new SnapshotInput(channel, bufferSize);
+        if (in.readInt() != EntitySnapshotWriter.MAGIC) {
+            throw new IOException("Not an entity snapshot");
+        }
+        int version = in.readVarInt();
+        if (version != EntitySnapshotWriter.VERSION) {
+            throw new IOException("Unsupported entity snapshot version " + version);
+        }
+
+        BitSet entityIds = in.readIds();
+        entityManager.restoreEntities(entityIds);
+        IntFunction<EntityRef> entityLookup = id -> entityIds.get(id) ? entityManager.getEntity(id) : NullEntityRef.get();
+        Gson gson = ValueCodec.createGson(entityLookup);
+
+        Map<String, ComponentStore<?>> stores = Maps.newHashMap();
+        for (ComponentStore<?> store : entityManager.allComponentStores()) {
+            stores.put(store.getType().getComponentClass().getName(), store);
+        }
+        int storeCount = in.readVarInt();
+        for (int i = 0; i < storeCount; i++) {
+            ComponentSchema<?> schema = ComponentSchema.read(in, name -> {
+                ComponentStore<?> store = stores.get(name);
+                return (store != null) ? store.getType() : null;
+            }, entityLookup, gson);
+            if (schema.getType() == null) {
+                logger.warn("Skipping components of unknown type {} in entity snapshot", schema.getComponentClassName());
+            }
+            readStore(in, schema, stores.get(schema.getComponentClassName()), entityIds);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Component<T>> void readStore(SnapshotInput in, ComponentSchema<T> schema, ComponentStore<?> store, BitSet entityIds) throws IOException {
+        ComponentStore<T> typedStore = (ComponentStore<T>) store;
+        for (int count = schema.readChunk(in); count > 0; count = schema.readChunk(in)) {
+            if (typedStore == null) {
+                continue;
+            }
+            for (int i = 0; i < count; i++) {
+                int entityId = schema.getEntityId(i);
+                if (!entityIds.get(entityId)) {
+                    throw new IOException("Component " + schema.getComponentClassName() + " for missing entity " + entityId + " in entity snapshot");
+                }
+                typedStore.restore(entityId, schema.getComponent(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * Writes the entities of a {@link CoreEntityManager} and their components to a compact binary snapshot, which can be
+ * loaded by an {@link EntitySnapshotReader}. A snapshot consists of:
+ * <ul>
+ *     <li>A header of {@link #MAGIC} and the format {@link #VERSION}</li>
+ *     <li>The ids of all the entities, each as the difference from the previous id, ending with 0</li>
+ *     <li>For each component store, the schema of its component type followed by its components in columnar chunks
+ *     - see {@link ComponentSchema}</li>
+ * </ul>
+ * The snapshot is streamed to the channel through a fixed size buffer, and components are read from each store a
+ * chunk at a time, so the memory used is bounded regardless of the number of entities. The entity manager should not
+ * be modified while it is being written.
+ */
+public class EntitySnapshotWriter {
+
+    static final int MAGIC = 0x47455353;
+    static final int VERSION = 1;
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final int bufferSize;
+    private final Gson gson = ValueCodec.createGson(null);
+
+    public EntitySnapshotWriter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize The size of the buffer used for writing to channels, in bytes
+     */
+    public EntitySnapshotWriter(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Writes a snapshot of an entity manager. The channel is not closed.
+     *
+     * @param entityManager The entity manager to write
+     * @param channel       The channel to write the snapshot to
+     * @throws IOException If the channel could not be written
+     */
+    public void write(CoreEntityManager entityManager, WritableByteChannel channel) throws IOException {
+        SnapshotOutput out = new SnapshotOutput(channel, bufferSize);
+        out.writeInt(MAGIC);
+        out.writeVarInt(VERSION);
+        writeEntities(entityManager, out);
+        List<ComponentStore<?>> stores = Lists.newArrayList(entityManager.allComponentStores());
+        out.writeVarInt(stores.size());
+        for (ComponentStore<?> store : stores) {
+            writeStore(store, out);
+        }
+        out.flush();
+    }
+
+    private void writeEntities(CoreEntityManager entityManager, SnapshotOutput out) throws IOException {
+        int previousId = -1;
+        for (EntityRef entity : entityManager.allEntities()) {
+            if (entity.exists()) {
+                out.writeVarInt(entity.getId() - previousId);
+                previousId = entity.getId();
+            }
+        }
+        out.writeVarInt(0);
+    }
+
+    private <T extends Component<T>> void writeStore(ComponentStore<T> store, SnapshotOutput out) throws IOException {
+        ComponentSchema<T> schema = ComponentSchema.create(store.getType(), gson);
+        schema.write(out);
+        schema.writeComponents(store.iterate(), out);
+    }
+}
@@ -29,18 +29,22 @@
 import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
- * An EntityRef implementation for Entities managed by a CoreEntityManager.
+ * An EntityRef implementation for Entities managed by a CoreEntityManager. Each ref holds the generation of the entity
+ * id it was created for, so it will not exist once its entity is deleted even if the id is reused by a new entity.
  */
 @ThreadSafe
 class ManagedEntityRef implements EntityRef {
     private volatile CoreEntityManager entityManager;
     private final int id;
+    private final int generation;
 
-    ManagedEntityRef(CoreEntityManager entityManager, int entityId) {
+    ManagedEntityRef(CoreEntityManager entityManager, int entityId, int generation) {
         this.entityManager = entityManager;
         this.id = entityId;
+        this.generation = generation;
     }
 
 
@@ -51,13 +55,15 @@ public int getId() {
 
     @Override
     public boolean exists() {
-        return entityManager != null;
+        CoreEntityManager manager = entityManager;
+        return manager != null && manager.isCurrentGeneration(id, generation);
     }
 
     @Override
     public <T extends Component<T>> boolean hasComponent(Class<T> type) {
-        if (entityManager != null) {
-            return entityManager.getComponentStore(type).has(id);
+        CoreEntityManager manager = entityManager;
+        if (manager != null) {
+            return manager.hasComponent(id, type);
         } else {
             return false;
         }
@@ -83,6 +89,14 @@ public <T extends Component<T>> Optional<T> getComponent(Class<T> componentType)
         return Optional.empty();
     }
 
+    @Override
+    public <T extends Component<T>> boolean readComponent(Class<T> componentType, Consumer<? super T> reader) {
+        if (entityManager != null) {
+            return entityManager.getComponentStore(componentType).read(id, reader);
+        }
+        return false;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <T extends Component<T>> boolean setComponent(T component) {
@@ -107,17 +121,11 @@ public Set<Component<?>> removeComponents(Collection<Class<? extends Component>>
 
     @Override
     public Set<Class<? extends Component>> getComponentTypes() {
-        if (entityManager != null) {
-            Set<Class<? extends Component>> types = Sets.newLinkedHashSet();
-            for (ComponentStore<?> store : entityManager.allComponentStores()) {
-                if (store.has(id)) {
-                    types.add(store.getType().getComponentClass());
-                }
-            }
-            return types;
-        } else {
-            return Collections.emptySet();
+        CoreEntityManager manager = entityManager;
+        if (manager != null) {
+            return manager.getComponentTypes(id);
         }
+        return Collections.emptySet();
     }
 
     @Override
@@ -145,14 +153,14 @@ private <T extends Component<T>> void addComponentFromStore(ComponentStore<T> st
     @Override
     public Set<Component<?>> delete() {
         Set<Component<?>> removedComponents = Sets.newLinkedHashSet();
-        if (entityManager != null) {
+        if (exists()) {
             for (ComponentStore<?> store : entityManager.allComponentStores()) {
                 Component<?> removed = store.remove(id);
                 if (removed != null) {
                     removedComponents.add(removed);
                 }
             }
-            entityManager.freeEntityId(id);
+            entityManager.freeEntityId(id, generation);
             entityManager = null;
         }
         return removedComponents;
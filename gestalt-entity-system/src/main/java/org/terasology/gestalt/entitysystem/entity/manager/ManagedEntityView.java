@@ -0,0 +1,169 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.common.collect.ImmutableSet;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.ComponentIterator;
+import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityIterator;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.EntityView;
+import org.terasology.gestalt.entitysystem.entity.NullEntityRef;
+
+import java.util.BitSet;
+import java.util.Set;
+
+/**
+ * An EntityView implementation for views of a CoreEntityManager. The ids of matching entities are held in a BitSet,
+ * which is updated by the entity manager whenever a component covered by the view is added or removed, by checking
+ * the entity's archetype against the view's signature.
+ */
+@ThreadSafe
+class ManagedEntityView implements EntityView {
+    private final CoreEntityManager entityManager;
+    private final Set<Class<? extends Component>> componentTypes;
+    private final TrackedComponentStore<?>[] stores;
+    private final BitSet storeIndices = new BitSet();
+    private final BitSet entities = new BitSet();
+
+    ManagedEntityView(CoreEntityManager entityManager, TrackedComponentStore<?>[] stores) {
+        this.entityManager = entityManager;
+        this.stores = stores;
+        ImmutableSet.Builder<Class<? extends Component>> typesBuilder = ImmutableSet.builder();
+        for (TrackedComponentStore<?> store : stores) {
+            typesBuilder.add(store.getType().getComponentClass());
+            storeIndices.set(store.getIndex());
+        }
+        this.componentTypes = typesBuilder.build();
+    }
+
+    /**
+     * Adds all existing matching entities to the view. This should be called after the view has been registered
+     * with the entity manager, so that no changes are missed.
+     */
+    void populate() {
+        ComponentStore<?> drivingStore = stores[0];
+        for (ComponentStore<?> store : stores) {
+            if (store.iterationCost() < drivingStore.iterationCost()) {
+                drivingStore = store;
+            }
+        }
+        ComponentIterator<?> iterator = drivingStore.iterate();
+        while (iterator.next()) {
+            update(iterator.getEntityId());
+        }
+    }
+
+    /**
+     * @param storeIndex The index of a component store
+     * @return Whether the view depends on the given store
+     */
+    boolean covers(int storeIndex) {
+        return storeIndices.get(storeIndex);
+    }
+
+    /**
+     * Updates whether an entity is in the view to reflect whether it currently has all the required components.
+     *
+     * @param entityId The id of the entity to update
+     */
+    synchronized void update(int entityId) {
+        entities.set(entityId, matches(entityId));
+    }
+
+    /**
+     * Removes an entity from the view
+     *
+     * @param entityId The id of the entity to remove
+     */
+    synchronized void clear(int entityId) {
+        entities.clear(entityId);
+    }
+
+    private boolean matches(int entityId) {
+        Archetype archetype = entityManager.getArchetype(entityId);
+        return archetype != null && archetype.matches(storeIndices);
+    }
+
+    @Override
+    public Set<Class<? extends Component>> getComponentTypes() {
+        return componentTypes;
+    }
+
+    @Override
+    public synchronized int size() {
+        return entities.cardinality();
+    }
+
+    @Override
+    public synchronized boolean contains(EntityRef entity) {
+        return entity.exists() && entity.getId() >= 0 && entities.get(entity.getId());
+    }
+
+    private synchronized int nextEntityId(int fromId) {
+        return entities.nextSetBit(fromId);
+    }
+
+    @Override
+    public EntityIterator iterate(Component... components) {
+        ComponentStore<?>[] componentStores = new ComponentStore<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            componentStores[i] = entityManager.getComponentStore(components[i].getClass());
+        }
+        return new ViewIterator(components, componentStores);
+    }
+
+    @Override
+    public void close() {
+        entityManager.removeView(this);
+    }
+
+    @Override
+    public String toString() {
+        return "EntityView" + componentTypes;
+    }
+
+    private class ViewIterator implements EntityIterator {
+        private final Component[] components;
+        private final ComponentStore[] componentStores;
+        private int entityId = NullEntityRef.NON_EXISTENT_ENTITY_ID;
+
+        ViewIterator(Component[] components, ComponentStore[] componentStores) {
+            this.components = components;
+            this.componentStores = componentStores;
+        }
+
+        @Override
+        public boolean next() {
+            int id = nextEntityId(entityId + 1);
+            while (id >= 0) {
+                if (load(id)) {
+                    entityId = id;
+                    return true;
+                }
+                id = nextEntityId(id + 1);
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean load(int id) {
+            for (int i = 0; i < componentStores.length; i++) {
+                if (!componentStores[i].get(id, components[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public EntityRef getEntity() {
+            return entityManager.getEntity(entityId);
+        }
+    }
+}
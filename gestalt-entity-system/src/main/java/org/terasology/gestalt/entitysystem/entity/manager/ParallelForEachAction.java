@@ -0,0 +1,95 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityCommandBuffer;
+import org.terasology.gestalt.entitysystem.entity.ParallelEntityTask;
+import org.terasology.gestalt.util.collection.TypeKeyedMap;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork join action supporting {@link CoreEntityManager#forEachParallel}. The ids of the entities in the cheapest store
+ * to iterate are divided into fixed size chunks, and the action recursively splits the chunks until each action is
+ * processing a single chunk. Each chunk is processed with its own component instances and command buffer, with the
+ * command buffer being stored against the chunk's index so that the buffers can be applied in order once all chunks
+ * are complete.
+ */
+class ParallelForEachAction extends RecursiveAction {
+
+    private final CoreEntityManager entityManager;
+    private final ParallelEntityTask task;
+    private final ComponentStore<?>[] stores;
+    private final EntityCommandBuffer[] buffers;
+    private final int[] entityIds;
+    private final int chunkSize;
+    private final int fromChunk;
+    private final int toChunk;
+
+    /**
+     * @param entityManager The entity manager whose entities are being processed
+     * @param task          The task to run against each entity
+     * @param stores        The stores of the components an entity must have, with the cheapest to iterate first
+     * @param buffers       The array to store the command buffer of each chunk in
+     * @param entityIds     The ids of the entities in the first store, in ascending order
+     * @param chunkSize     The number of entity ids in each chunk
+     * @param fromChunk     The first chunk to process
+     * @param toChunk       The chunk to stop processing at (exclusive)
+     */
+    ParallelForEachAction(CoreEntityManager entityManager, ParallelEntityTask task, ComponentStore<?>[] stores, EntityCommandBuffer[] buffers,
+                          int[] entityIds, int chunkSize, int fromChunk, int toChunk) {
+        this.entityManager = entityManager;
+        this.task = task;
+        this.stores = stores;
+        this.buffers = buffers;
+        this.entityIds = entityIds;
+        this.chunkSize = chunkSize;
+        this.fromChunk = fromChunk;
+        this.toChunk = toChunk;
+    }
+
+    @Override
+    protected void compute() {
+        if (toChunk - fromChunk <= 1) {
+            processChunk();
+        } else {
+            int midChunk = (fromChunk + toChunk) >>> 1;
+            invokeAll(new ParallelForEachAction(entityManager, task, stores, buffers, entityIds, chunkSize, fromChunk, midChunk),
+                    new ParallelForEachAction(entityManager, task, stores, buffers, entityIds, chunkSize, midChunk, toChunk));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void processChunk() {
+        Component[] instances = new Component[stores.length];
+        TypeKeyedMap<Component> components = new TypeKeyedMap<>();
+        for (int i = 0; i < stores.length; i++) {
+            instances[i] = stores[i].getType().create();
+            components.put(instances[i]);
+        }
+        EntityCommandBuffer buffer = new EntityCommandBuffer(entityManager);
+
+        int from = fromChunk * chunkSize;
+        int to = Math.min(entityIds.length, from + chunkSize);
+        for (int i = from; i < to; i++) {
+            int id = entityIds[i];
+            if (load(id, instances)) {
+                task.process(entityManager.getEntity(id), components, buffer);
+            }
+        }
+        buffers[fromChunk] = buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean load(int entityId, Component[] instances) {
+        for (int i = 0; i < stores.length; i++) {
+            if (!((ComponentStore) stores[i]).get(entityId, instances[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,199 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import net.jcip.annotations.Immutable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+import org.terasology.gestalt.entitysystem.component.management.PropertyAccessor;
+import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.NullEntityRef;
+import org.terasology.gestalt.entitysystem.prefab.EntityRecipe;
+import org.terasology.gestalt.entitysystem.prefab.EntityRecipeRef;
+import org.terasology.gestalt.entitysystem.prefab.GeneratedFromRecipeComponent;
+import org.terasology.gestalt.entitysystem.prefab.Prefab;
+import org.terasology.gestalt.entitysystem.prefab.PrefabRef;
+import org.terasology.gestalt.naming.Name;
+import org.terasology.gestalt.util.collection.TypeKeyedMap;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * A prefab compiled for instantiation by a particular CoreEntityManager. The component stores for each component are
+ * resolved, the entity references within each component are resolved to either the index of another entity of the prefab
+ * or a prefab to instantiate, and the components to copy for each entity are flattened into arrays. Instantiating the
+ * plan then only copies components and fills in references.
+ * <p>
+ * Plans are cached on their prefab, so refer to component stores by index rather than holding the stores (and through
+ * them the entity manager) directly.
+ */
+@Immutable
+final class PrefabInstantiationPlan {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefabInstantiationPlan.class);
+
+    private static final int NULL_REFERENCE = -1;
+    private static final int PREFAB_REFERENCE = -2;
+
+    private final Name[] names;
+    private final int rootIndex;
+    private final ComponentPlan[][] components;
+
+    private PrefabInstantiationPlan(Name[] names, int rootIndex, ComponentPlan[][] components) {
+        this.names = names;
+        this.rootIndex = rootIndex;
+        this.components = components;
+    }
+
+    /**
+     * Compiles a prefab
+     *
+     * @param prefab      The prefab to compile
+     * @param storeLookup Provides the store for each component type
+     * @return The compiled prefab
+     * @throws IllegalArgumentException If there is no component store for a component used by the prefab
+     */
+    static PrefabInstantiationPlan compile(Prefab prefab, Function<Class<? extends Component>, TrackedComponentStore<?>> storeLookup) {
+        Collection<EntityRecipe> recipes = prefab.getEntityRecipes().values();
+        Name[] names = new Name[recipes.size()];
+        int rootIndex = -1;
+        int index = 0;
+        for (EntityRecipe recipe : recipes) {
+            names[index] = recipe.getIdentifier().getFragmentName();
+            if (recipe.getIdentifier().equals(prefab.getRootEntityUrn())) {
+                rootIndex = index;
+            }
+            index++;
+        }
+
+        ComponentPlan[][] components = new ComponentPlan[names.length][];
+        index = 0;
+        for (EntityRecipe recipe : recipes) {
+            TypeKeyedMap<Component> recipeComponents = recipe.getComponents();
+            ComponentPlan[] plans = new ComponentPlan[recipeComponents.size() + 1];
+            GeneratedFromRecipeComponent generatedFrom = new GeneratedFromRecipeComponent();
+            generatedFrom.setEntityRecipe(recipe.getIdentifier());
+            plans[0] = compileComponent(generatedFrom, recipe.getIdentifier(), names, storeLookup);
+            int componentIndex = 1;
+            for (TypeKeyedMap.Entry<? extends Component> entry : recipeComponents.entrySet()) {
+                plans[componentIndex++] = compileComponent(entry.getValue(), recipe.getIdentifier(), names, storeLookup);
+            }
+            components[index++] = plans;
+        }
+        return new PrefabInstantiationPlan(names, rootIndex, components);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ComponentPlan compileComponent(Component template, ResourceUrn recipeUrn, Name[] names,
+                                                  Function<Class<? extends Component>, TrackedComponentStore<?>> storeLookup) {
+        TrackedComponentStore<?> store = storeLookup.apply(template.getClass());
+        if (store == null) {
+            throw new IllegalArgumentException("No component store for " + template.getClass());
+        }
+        ComponentType componentType = store.getType();
+        Collection<PropertyAccessor<?, ?>> properties = componentType.getPropertyInfo().getPropertiesOfType(EntityRef.class);
+        PropertyAccessor[] referenceProperties = properties.toArray(new PropertyAccessor[0]);
+        int[] referenceTargets = new int[referenceProperties.length];
+        Prefab[] referencedPrefabs = new Prefab[referenceProperties.length];
+        for (int i = 0; i < referenceProperties.length; i++) {
+            EntityRef existing = (EntityRef) referenceProperties[i].get(template);
+            referenceTargets[i] = NULL_REFERENCE;
+            if (existing instanceof EntityRecipeRef) {
+                Name target = ((EntityRecipeRef) existing).getRecipe().getIdentifier().getFragmentName();
+                for (int entity = 0; entity < names.length; entity++) {
+                    if (names[entity].equals(target)) {
+                        referenceTargets[i] = entity;
+                    }
+                }
+                if (referenceTargets[i] == NULL_REFERENCE) {
+                    logger.error("{} references external or unknown entity prefab {}", recipeUrn, existing);
+                }
+            } else if (existing instanceof PrefabRef) {
+                referenceTargets[i] = PREFAB_REFERENCE;
+                referencedPrefabs[i] = ((PrefabRef) existing).getPrefab();
+            } else {
+                logger.error("{} contains unsupported entity ref {}", recipeUrn, existing);
+            }
+        }
+        return new ComponentPlan(store.getIndex(), componentType, componentType.createCopy(template), referenceProperties, referenceTargets, referencedPrefabs);
+    }
+
+    /**
+     * @return The number of entities each instantiation of the prefab creates
+     */
+    int getEntityCount() {
+        return names.length;
+    }
+
+    /**
+     * @return The names of the entities of the prefab, in the order they are instantiated
+     */
+    Name[] getNames() {
+        return names;
+    }
+
+    /**
+     * @return The index of the root entity of the prefab, or -1 if the prefab has no root entity recipe
+     */
+    int getRootIndex() {
+        return rootIndex;
+    }
+
+    /**
+     * Adds the components of the prefab to newly created entities
+     *
+     * @param entityManager The entity manager the plan was compiled for
+     * @param entities      An array containing the entities to populate
+     * @param offset        The index in entities of the first entity of this instantiation
+     */
+    @SuppressWarnings("unchecked")
+    void populate(CoreEntityManager entityManager, EntityRef[] entities, int offset) {
+        for (int i = 0; i < components.length; i++) {
+            int entityId = entities[offset + i].getId();
+            for (ComponentPlan plan : components[i]) {
+                Component component = plan.type.createCopy(plan.template);
+                for (int ref = 0; ref < plan.referenceProperties.length; ref++) {
+                    int target = plan.referenceTargets[ref];
+                    EntityRef value;
+                    if (target >= 0) {
+                        value = entities[offset + target];
+                    } else if (target == PREFAB_REFERENCE) {
+                        value = entityManager.createEntity(plan.referencedPrefabs[ref]);
+                    } else {
+                        value = NullEntityRef.get();
+                    }
+                    plan.referenceProperties[ref].set(component, value);
+                }
+                ((ComponentStore) entityManager.getStore(plan.storeIndex)).set(entityId, component);
+            }
+        }
+    }
+
+    /**
+     * The compiled form of a component of an entity recipe
+     */
+    private static final class ComponentPlan {
+        private final int storeIndex;
+        private final ComponentType type;
+        private final Component template;
+        private final PropertyAccessor[] referenceProperties;
+        private final int[] referenceTargets;
+        private final Prefab[] referencedPrefabs;
+
+        ComponentPlan(int storeIndex, ComponentType type, Component template, PropertyAccessor[] referenceProperties, int[] referenceTargets, Prefab[] referencedPrefabs) {
+            this.storeIndex = storeIndex;
+            this.type = type;
+            this.template = template;
+            this.referenceProperties = referenceProperties;
+            this.referenceTargets = referenceTargets;
+            this.referencedPrefabs = referencedPrefabs;
+        }
+    }
+}
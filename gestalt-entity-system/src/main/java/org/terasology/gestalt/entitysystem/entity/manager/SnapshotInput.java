@@ -0,0 +1,143 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * Reads the primitive values of an entity snapshot, as written by {@link SnapshotOutput}, from a channel through a
+ * fixed size buffer that is refilled from the channel as it is consumed.
+ */
+final class SnapshotInput {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * @param channel    The channel to read from
+     * @param bufferSize The size of the buffer, in bytes
+     */
+    SnapshotInput(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, SnapshotOutput.MIN_BUFFER_SIZE));
+        this.buffer.limit(0);
+    }
+
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of entity snapshot");
+                }
+            }
+            buffer.flip();
+        }
+    }
+
+    byte readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    int readInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    float readFloat() throws IOException {
+        require(Float.BYTES);
+        return buffer.getFloat();
+    }
+
+    double readDouble() throws IOException {
+        require(Double.BYTES);
+        return buffer.getDouble();
+    }
+
+    int readVarInt() throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable length int in entity snapshot");
+    }
+
+    int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long readVarLong() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable length long in entity snapshot");
+    }
+
+    long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return The set of ids read, as written by {@link SnapshotOutput#writeIds(BitSet)}
+     * @throws IOException If the channel could not be read from, or the ids are malformed
+     */
+    BitSet readIds() throws IOException {
+        BitSet result = new BitSet();
+        int id = -1;
+        for (int difference = readVarInt(); difference != 0; difference = readVarInt()) {
+            id += difference;
+            if (difference < 0 || id < 0) {
+                throw new IOException("Malformed entity id in entity snapshot");
+            }
+            result.set(id);
+        }
+        return result;
+    }
+
+    /**
+     * @return The string read, or null
+     * @throws IOException If the channel could not be read from, or the snapshot is malformed
+     */
+    String readString() throws IOException {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            if (length == -1) {
+                return null;
+            }
+            throw new IOException("Malformed string length in entity snapshot");
+        }
+        if (length <= buffer.capacity()) {
+            require(length);
+            String result = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return result;
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            require(1);
+            int read = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, read);
+            offset += read;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
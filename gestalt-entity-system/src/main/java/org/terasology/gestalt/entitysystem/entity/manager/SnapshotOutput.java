@@ -0,0 +1,147 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * Writes the primitive values of an entity snapshot to a channel through a fixed size buffer, which is written out to
+ * the channel whenever it fills. Integers are written as variable length quantities, so small values take fewer bytes.
+ */
+final class SnapshotOutput {
+
+    static final int MIN_BUFFER_SIZE = 64;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * @param channel    The channel to write to
+     * @param bufferSize The size of the buffer, in bytes
+     */
+    SnapshotOutput(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, MIN_BUFFER_SIZE));
+    }
+
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes everything buffered so far to the channel
+     *
+     * @throws IOException If the channel could not be written to
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    void writeByte(int value) throws IOException {
+        require(1);
+        buffer.put((byte) value);
+    }
+
+    void writeInt(int value) throws IOException {
+        require(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void writeFloat(float value) throws IOException {
+        require(Float.BYTES);
+        buffer.putFloat(value);
+    }
+
+    void writeDouble(double value) throws IOException {
+        require(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Writes an int as an unsigned variable length quantity, seven bits per byte
+     *
+     * @param value The value to write
+     * @throws IOException If the channel could not be written to
+     */
+    void writeVarInt(int value) throws IOException {
+        require(5);
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes an int as a variable length quantity, zigzag encoded so that small negative values are also short
+     *
+     * @param value The value to write
+     * @throws IOException If the channel could not be written to
+     */
+    void writeSignedVarInt(int value) throws IOException {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    void writeVarLong(long value) throws IOException {
+        require(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    void writeSignedVarLong(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a set of ids, each as the difference from the previous id, ending with 0
+     *
+     * @param ids The ids to write
+     * @throws IOException If the channel could not be written to
+     */
+    void writeIds(BitSet ids) throws IOException {
+        int previousId = -1;
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            writeVarInt(id - previousId);
+            previousId = id;
+        }
+        writeVarInt(0);
+    }
+
+    /**
+     * Writes a string as its UTF-8 length plus one followed by its UTF-8 bytes, or a length of 0 for null
+     *
+     * @param value The string to write, or null
+     * @throws IOException If the channel could not be written to
+     */
+    void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+}
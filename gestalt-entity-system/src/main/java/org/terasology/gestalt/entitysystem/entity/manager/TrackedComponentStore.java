@@ -0,0 +1,107 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.ComponentIterator;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+
+import java.util.function.Consumer;
+
+/**
+ * TrackedComponentStore wraps each component store registered with a {@link CoreEntityManager}, informing the
+ * entity manager whenever a component is added to or removed from an entity so that it can keep its indices of
+ * entities up to date, and whenever a component is changed so that it can log the change.
+ *
+ * @param <T> The type of component stored in this store.
+ */
+class TrackedComponentStore<T extends Component<T>> implements ComponentStore<T> {
+
+    private final ComponentStore<T> store;
+    private final CoreEntityManager entityManager;
+    private final int index;
+
+    /**
+     * @param store         The store to wrap
+     * @param entityManager The entity manager to inform of changes
+     * @param index         The index of the store within the entity manager
+     */
+    TrackedComponentStore(ComponentStore<T> store, CoreEntityManager entityManager, int index) {
+        this.store = store;
+        this.entityManager = entityManager;
+        this.index = index;
+    }
+
+    /**
+     * @return The index of the store within the entity manager
+     */
+    int getIndex() {
+        return index;
+    }
+
+    @Override
+    public ComponentType<T> getType() {
+        return store.getType();
+    }
+
+    @Override
+    public boolean has(int entityId) {
+        return store.has(entityId);
+    }
+
+    @Override
+    public boolean get(int entityId, T into) {
+        return store.get(entityId, into);
+    }
+
+    @Override
+    public boolean read(int entityId, Consumer<? super T> reader) {
+        return store.read(entityId, reader);
+    }
+
+    @Override
+    public boolean set(int entityId, T component) {
+        if (store.set(entityId, component)) {
+            entityManager.onComponentsChanged(entityId, this);
+            return true;
+        }
+        entityManager.logComponentChange(entityId, this);
+        return false;
+    }
+
+    @Override
+    public boolean restore(int entityId, T component) {
+        if (store.restore(entityId, component)) {
+            entityManager.onComponentsChanged(entityId, this);
+            return true;
+        }
+        entityManager.logComponentChange(entityId, this);
+        return false;
+    }
+
+    @Override
+    public T remove(int entityId) {
+        T removed = store.remove(entityId);
+        if (removed != null) {
+            entityManager.onComponentsChanged(entityId, this);
+        }
+        return removed;
+    }
+
+    @Override
+    public int iterationCost() {
+        return store.iterationCost();
+    }
+
+    @Override
+    public void extend(int capacity) {
+        store.extend(capacity);
+    }
+
+    @Override
+    public ComponentIterator<T> iterate() {
+        return store.iterate();
+    }
+}
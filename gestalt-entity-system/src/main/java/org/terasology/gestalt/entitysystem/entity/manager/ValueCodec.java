@@ -0,0 +1,465 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.NullEntityRef;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Encodes the values of one type of component property in an entity snapshot. Each codec has a descriptor that is
+ * written into the snapshot's schema, so a reader can decode (or skip) values without knowing the component class.
+ * <ul>
+ *     <li>Primitives are written directly, with integral types as variable length quantities</li>
+ *     <li>Boxed primitives are a presence byte followed by the primitive</li>
+ *     <li>Strings and enums (by name) are a length-prefixed UTF-8 string</li>
+ *     <li>EntityRefs are the entity id plus one, or 0 for a reference to no existing entity</li>
+ *     <li>Lists are their size plus one (0 for null) followed by their elements</li>
+ *     <li>Anything else is written as a JSON string, with EntityRefs within as their entity id</li>
+ * </ul>
+ */
+abstract class ValueCodec {
+
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte SHORT = 3;
+    private static final byte CHAR = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte NULLABLE = 9;
+    private static final byte STRING = 10;
+    private static final byte ENUM = 11;
+    private static final byte ENTITY_REF = 12;
+    private static final byte LIST = 13;
+    private static final byte OBJECT = 14;
+
+    protected final byte code;
+
+    private ValueCodec(byte code) {
+        this.code = code;
+    }
+
+    /**
+     * Creates a codec for a property type.
+     *
+     * @param type         The type of the property
+     * @param entityLookup Used to resolve entity ids to entities when reading. May be null if only writing.
+     * @param gson         Used to encode values of types without a more compact encoding
+     * @return The codec for values of the type
+     */
+    static ValueCodec forType(Type type, IntFunction<EntityRef> entityLookup, Gson gson) {
+        if (type instanceof Class) {
+            Class<?> cls = (Class<?>) type;
+            if (cls.isPrimitive()) {
+                return primitive(cls);
+            } else if (cls == Boolean.class) {
+                return new NullableCodec(primitive(Boolean.TYPE));
+            } else if (cls == Byte.class) {
+                return new NullableCodec(primitive(Byte.TYPE));
+            } else if (cls == Short.class) {
+                return new NullableCodec(primitive(Short.TYPE));
+            } else if (cls == Character.class) {
+                return new NullableCodec(primitive(Character.TYPE));
+            } else if (cls == Integer.class) {
+                return new NullableCodec(primitive(Integer.TYPE));
+            } else if (cls == Long.class) {
+                return new NullableCodec(primitive(Long.TYPE));
+            } else if (cls == Float.class) {
+                return new NullableCodec(primitive(Float.TYPE));
+            } else if (cls == Double.class) {
+                return new NullableCodec(primitive(Double.TYPE));
+            } else if (cls == String.class) {
+                return new StringCodec();
+            } else if (cls.isEnum()) {
+                return new EnumCodec(cls);
+            } else if (cls == EntityRef.class) {
+                return new EntityRefCodec(entityLookup);
+            }
+        } else if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == List.class) {
+            return new ListCodec(forType(((ParameterizedType) type).getActualTypeArguments()[0], entityLookup, gson));
+        }
+        return new ObjectCodec(type, gson);
+    }
+
+    private static ValueCodec primitive(Class<?> type) {
+        if (type == Boolean.TYPE) {
+            return new PrimitiveCodec(BOOLEAN);
+        } else if (type == Byte.TYPE) {
+            return new PrimitiveCodec(BYTE);
+        } else if (type == Short.TYPE) {
+            return new PrimitiveCodec(SHORT);
+        } else if (type == Character.TYPE) {
+            return new PrimitiveCodec(CHAR);
+        } else if (type == Integer.TYPE) {
+            return new PrimitiveCodec(INT);
+        } else if (type == Long.TYPE) {
+            return new PrimitiveCodec(LONG);
+        } else if (type == Float.TYPE) {
+            return new PrimitiveCodec(FLOAT);
+        } else if (type == Double.TYPE) {
+            return new PrimitiveCodec(DOUBLE);
+        }
+        throw new IllegalArgumentException("Unsupported primitive type " + type);
+    }
+
+    /**
+     * Reads the descriptor of a codec. The codec can read values but not resolve them into entities, enums or objects
+     * - it is for skipping values that have no matching property.
+     *
+     * @param in The input to read from
+     * @return The described codec
+     * @throws IOException If the input could not be read, or the descriptor is malformed
+     */
+    static ValueCodec readDescriptor(SnapshotInput in) throws IOException {
+        byte code = in.readByte();
+        switch (code) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return new PrimitiveCodec(code);
+            case NULLABLE:
+                return new NullableCodec(readDescriptor(in));
+            case STRING:
+                return new StringCodec();
+            case ENUM:
+                return new EnumCodec(null);
+            case ENTITY_REF:
+                return new EntityRefCodec(null);
+            case LIST:
+                return new ListCodec(readDescriptor(in));
+            case OBJECT:
+                return new ObjectCodec(null, null);
+            default:
+                throw new IOException("Unknown property encoding " + code + " in entity snapshot");
+        }
+    }
+
+    /**
+     * Creates a Gson for encoding values without a more compact encoding, which encodes EntityRefs as their entity id.
+     *
+     * @param entityLookup Used to resolve entity ids to entities when reading. May be null if only writing.
+     * @return The new Gson
+     */
+    static Gson createGson(IntFunction<EntityRef> entityLookup) {
+        return new GsonBuilder().registerTypeHierarchyAdapter(EntityRef.class, new EntityRefTypeAdapter(entityLookup)).create();
+    }
+
+    /**
+     * Writes the descriptor of this codec
+     *
+     * @param out The output to write to
+     * @throws IOException If the output could not be written
+     */
+    void writeDescriptor(SnapshotOutput out) throws IOException {
+        out.writeByte(code);
+    }
+
+    /**
+     * @param other Another codec
+     * @return Whether the other codec has the same encoding as this codec, so it can read values this codec wrote
+     */
+    boolean sameEncoding(ValueCodec other) {
+        return code == other.code;
+    }
+
+    /**
+     * @param out   The output to write to
+     * @param value The value to write
+     * @throws IOException If the output could not be written
+     */
+    abstract void write(SnapshotOutput out, Object value) throws IOException;
+
+    /**
+     * @param in The input to read from
+     * @return The value read
+     * @throws IOException If the input could not be read, or the value is malformed
+     */
+    abstract Object read(SnapshotInput in) throws IOException;
+
+    private static final class PrimitiveCodec extends ValueCodec {
+
+        private PrimitiveCodec(byte code) {
+            super(code);
+        }
+
+        @Override
+        void write(SnapshotOutput out, Object value) throws IOException {
+            switch (code) {
+                case BOOLEAN:
+                    out.writeByte((Boolean) value ? 1 : 0);
+                    break;
+                case BYTE:
+                    out.writeByte((Byte) value);
+                    break;
+                case SHORT:
+                    out.writeSignedVarInt((Short) value);
+                    break;
+                case CHAR:
+                    out.writeVarInt((Character) value);
+                    break;
+                case INT:
+                    out.writeSignedVarInt((Integer) value);
+                    break;
+                case LONG:
+                    out.writeSignedVarLong((Long) value);
+                    break;
+                case FLOAT:
+                    out.writeFloat((Float) value);
+                    break;
+                default:
+                    out.writeDouble((Double) value);
+                    break;
+            }
+        }
+
+        @Override
+        Object read(SnapshotInput in) throws IOException {
+            switch (code) {
+                case BOOLEAN:
+                    return in.readByte() != 0;
+                case BYTE:
+                    return in.readByte();
+                case SHORT:
+                    return (short) in.readSignedVarInt();
+                case CHAR:
+                    return (char) in.readVarInt();
+                case INT:
+                    return in.readSignedVarInt();
+                case LONG:
+                    return in.readSignedVarLong();
+                case FLOAT:
+                    return in.readFloat();
+                default:
+                    return in.readDouble();
+            }
+        }
+    }
+
+    private static final class NullableCodec extends ValueCodec {
+
+        private final ValueCodec value;
+
+        private NullableCodec(ValueCodec value) {
+            super(NULLABLE);
+            this.value = value;
+        }
+
+        @Override
+        void writeDescriptor(SnapshotOutput out) throws IOException {
+            super.writeDescriptor(out);
+            value.writeDescriptor(out);
+        }
+
+        @Override
+        boolean sameEncoding(ValueCodec other) {
+            return other instanceof NullableCodec && value.sameEncoding(((NullableCodec) other).value);
+        }
+
+        @Override
+        void write(SnapshotOutput out, Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(1);
+                this.value.write(out, value);
+            }
+        }
+
+        @Override
+        Object read(SnapshotInput in) throws IOException {
+            return (in.readByte() != 0) ? value.read(in) : null;
+        }
+    }
+
+    private static final class StringCodec extends ValueCodec {
+
+        private StringCodec() {
+            super(STRING);
+        }
+
+        @Override
+        void write(SnapshotOutput out, Object value) throws IOException {
+            out.writeString((String) value);
+        }
+
+        @Override
+        Object read(SnapshotInput in) throws IOException {
+            return in.readString();
+        }
+    }
+
+    private static final class EnumCodec extends ValueCodec {
+
+        private final Map<String, Object> constants = Maps.newHashMap();
+
+        private EnumCodec(Class<?> enumType) {
+            super(ENUM);
+            if (enumType != null) {
+                for (Object constant : enumType.getEnumConstants()) {
+                    constants.put(((Enum<?>) constant).name(), constant);
+                }
+            }
+        }
+
+        @Override
+        void write(SnapshotOutput out, Object value) throws IOException {
+            out.writeString((value != null) ? ((Enum<?>) value).name() : null);
+        }
+
+        @Override
+        Object read(SnapshotInput in) throws IOException {
+            String name = in.readString();
+            return (name != null) ? constants.get(name) : null;
+        }
+    }
+
+    private static final class EntityRefCodec extends ValueCodec {
+
+        private final IntFunction<EntityRef> entityLookup;
+
+        private EntityRefCodec(IntFunction<EntityRef> entityLookup) {
+            super(ENTITY_REF);
+            this.entityLookup = entityLookup;
+        }
+
+        @Override
+        void write(SnapshotOutput out, Object value) throws IOException {
+            EntityRef entity = (EntityRef) value;
+            out.writeVarInt((entity != null && entity.exists()) ? entity.getId() + 1 : 0);
+        }
+
+        @Override
+        Object read(SnapshotInput in) throws IOException {
+            int id = in.readVarInt() - 1;
+            if (id < 0 || entityLookup == null) {
+                return NullEntityRef.get();
+            }
+            return entityLookup.apply(id);
+        }
+    }
+
+    private static final class ListCodec extends ValueCodec {
+
+        private final ValueCodec element;
+
+        private ListCodec(ValueCodec element) {
+            super(LIST);
+            this.element = element;
+        }
+
+        @Override
+        void writeDescriptor(SnapshotOutput out) throws IOException {
+            super.writeDescriptor(out);
+            element.writeDescriptor(out);
+        }
+
+        @Override
+        boolean sameEncoding(ValueCodec other) {
+            return other instanceof ListCodec && element.sameEncoding(((ListCodec) other).element);
+        }
+
+        @Override
+        void write(SnapshotOutput out, Object value) throws IOException {
+            if (value == null) {
+                out.writeVarInt(0);
+                return;
+            }
+            List<?> list = (List<?>) value;
+            out.writeVarInt(list.size() + 1);
+            for (Object item : list) {
+                element.write(out, item);
+            }
+        }
+
+        @Override
+        Object read(SnapshotInput in) throws IOException {
+            int size = in.readVarInt() - 1;
+            if (size < 0) {
+                return null;
+            }
+            // Don't trust the size for preallocation, in case the snapshot is malformed
+            List<Object> result = new ArrayList<>(Math.min(size, 1024));
+            for (int i = 0; i < size; i++) {
+                result.add(element.read(in));
+            }
+            return result;
+        }
+    }
+
+    private static final class ObjectCodec extends ValueCodec {
+
+        private final Type type;
+        private final Gson gson;
+
+        private ObjectCodec(Type type, Gson gson) {
+            super(OBJECT);
+            this.type = type;
+            this.gson = gson;
+        }
+
+        @Override
+        void write(SnapshotOutput out, Object value) throws IOException {
+            out.writeString((value != null) ? gson.toJson(value, type) : null);
+        }
+
+        @Override
+        Object read(SnapshotInput in) throws IOException {
+            String json = in.readString();
+            if (json == null || gson == null) {
+                return null;
+            }
+            return gson.fromJson(json, type);
+        }
+    }
+
+    private static final class EntityRefTypeAdapter extends TypeAdapter<EntityRef> {
+
+        private final IntFunction<EntityRef> entityLookup;
+
+        private EntityRefTypeAdapter(IntFunction<EntityRef> entityLookup) {
+            this.entityLookup = entityLookup;
+        }
+
+        @Override
+        public void write(JsonWriter out, EntityRef value) throws IOException {
+            if (value != null && value.exists()) {
+                out.value(value.getId());
+            } else {
+                out.nullValue();
+            }
+        }
+
+        @Override
+        public EntityRef read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return NullEntityRef.get();
+            }
+            int id = in.nextInt();
+            return (entityLookup != null) ? entityLookup.apply(id) : NullEntityRef.get();
+        }
+    }
+}
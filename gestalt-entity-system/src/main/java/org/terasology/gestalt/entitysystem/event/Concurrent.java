@@ -0,0 +1,22 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an event handling method, or all the event handling methods of a class, as safe to run concurrently with other
+ * event handlers. When an event system processes events in parallel, handlers for events against different entities
+ * may run at the same time - a concurrent handler must therefore only modify the entity it receives the event against,
+ * and synchronize access to any other state itself. Handlers that are not marked as concurrent are run one at a time.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(value = {ElementType.METHOD, ElementType.TYPE})
+@Inherited
+public @interface Concurrent {
+}
@@ -38,4 +38,12 @@
      * @return Whether the event processing should continue or be halted.
      */
     EventResult onEvent(T event, EntityRef entity);
+
+    /**
+     * @return Whether this handler is safe to run concurrently with other handlers, when events are processed in parallel.
+     * @see Concurrent
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
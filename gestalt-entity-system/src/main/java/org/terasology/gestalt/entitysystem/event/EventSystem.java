@@ -17,12 +17,15 @@
 package org.terasology.gestalt.entitysystem.event;
 
 import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.entity.EntityIterator;
 import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.EntityView;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An EventSystem manages the sending of events against entities.
@@ -51,6 +54,89 @@ default void send(Event event, EntityRef entity) {
      */
     void send(Event event, EntityRef entity, Set<Class<? extends Component>> triggeringComponents);
 
+    /**
+     * Sends an event against each of a number of entities. This event will be processed immediately (and on the same thread) if annotated as {@link Synchronous},
+     * otherwise it will be processed at some future point. Implementations may queue the batch more efficiently than individual sends.
+     *
+     * @param event    The event to send.
+     * @param entities The entities to send the event against.
+     */
+    default void sendBatch(Event event, Collection<? extends EntityRef> entities) {
+        sendBatch(event, entities, Collections.emptySet());
+    }
+
+    /**
+     * Sends an event against each of a number of entities. This event will be processed immediately (and on the same thread) if annotated as {@link Synchronous},
+     * otherwise it will be processed at some future point. Implementations may queue the batch more efficiently than individual sends.
+     *
+     * @param event                The event to send.
+     * @param entities             The entities to send the event against.
+     * @param triggeringComponents The components triggering the event if any - only event handlers interested in these components will be notified.
+     */
+    default void sendBatch(Event event, Collection<? extends EntityRef> entities, Set<Class<? extends Component>> triggeringComponents) {
+        for (EntityRef entity : entities) {
+            send(event, entity, triggeringComponents);
+        }
+    }
+
+    /**
+     * Sends an event against each entity provided by an iterator. This event will be processed immediately (and on the same thread) if annotated as {@link Synchronous},
+     * otherwise it will be processed at some future point. Implementations may dispatch the event to entities with the same component types in bulk.
+     *
+     * @param event    The event to send.
+     * @param entities An iterator over the entities to send the event against.
+     */
+    default void broadcast(Event event, EntityIterator entities) {
+        while (entities.next()) {
+            send(event, entities.getEntity());
+        }
+    }
+
+    /**
+     * Sends an event against each entity in a view. This event will be processed immediately (and on the same thread) if annotated as {@link Synchronous},
+     * otherwise it will be processed at some future point.
+     *
+     * @param event The event to send.
+     * @param view  The view over the entities to send the event against.
+     */
+    default void broadcast(Event event, EntityView view) {
+        broadcast(event, view.iterate());
+    }
+
+    /**
+     * Schedules an event to be sent against an entity after a delay. Once the delay has passed, the event is sent during
+     * the next call to {@link #processEvents}, regardless of whether it is {@link Synchronous}. If the entity no longer
+     * exists by then the event is discarded.
+     *
+     * @param event  The event to send.
+     * @param entity The entity to send the event against.
+     * @param delay  The minimum delay before sending the event.
+     * @param unit   The unit of the delay.
+     * @return A handle that can be used to cancel the event.
+     * @throws UnsupportedOperationException If the event system does not support scheduled events
+     */
+    default ScheduledEvent sendAfter(Event event, EntityRef entity, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException("Scheduled events are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Schedules an event to be sent against an entity repeatedly. Each time the period passes, the event is sent during
+     * the next call to {@link #processEvents}. If calls to processEvents are further apart than the period, the missed
+     * sends are skipped rather than sent all at once. The event stops being sent once it is cancelled or the entity no
+     * longer exists.
+     *
+     * @param event        The event to send.
+     * @param entity       The entity to send the event against.
+     * @param initialDelay The minimum delay before first sending the event.
+     * @param period       The period between sends.
+     * @param unit         The unit of the initial delay and period.
+     * @return A handle that can be used to cancel the event.
+     * @throws IllegalArgumentException      If the period is not positive
+     * @throws UnsupportedOperationException If the event system does not support scheduled events
+     */
+    default ScheduledEvent sendPeriodically(Event event, EntityRef entity, long initialDelay, long period, TimeUnit unit) {
+        throw new UnsupportedOperationException("Scheduled events are not supported by " + getClass().getSimpleName());
+    }
 
     /**
      * Blocks until all pending events and events sent by those events have been processed.
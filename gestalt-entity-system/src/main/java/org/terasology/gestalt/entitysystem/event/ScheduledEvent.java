@@ -0,0 +1,35 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event;
+
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+
+/**
+ * A handle to an event scheduled to be sent after a delay, or periodically, by an {@link EventSystem}.
+ */
+public interface ScheduledEvent {
+
+    /**
+     * @return The event that is scheduled
+     */
+    Event getEvent();
+
+    /**
+     * @return The entity the event is scheduled to be sent against
+     */
+    EntityRef getEntity();
+
+    /**
+     * @return Whether the event is still to be sent. This is false once a one-off event has been sent, or once the
+     * scheduled event has been cancelled or its entity deleted.
+     */
+    boolean isPending();
+
+    /**
+     * Cancels the scheduled event, so it will not be sent again.
+     *
+     * @return Whether the event was still pending
+     */
+    boolean cancel();
+}
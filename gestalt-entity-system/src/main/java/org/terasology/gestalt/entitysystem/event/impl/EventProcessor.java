@@ -28,18 +28,22 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.entity.EntityIterator;
 import org.terasology.gestalt.entitysystem.entity.EntityRef;
 import org.terasology.gestalt.entitysystem.event.Event;
 import org.terasology.gestalt.entitysystem.event.EventHandler;
 import org.terasology.gestalt.entitysystem.event.EventResult;
+import org.terasology.gestalt.entitysystem.event.metrics.EventMetricsListener;
 import org.terasology.gestalt.util.collection.KahnSorter;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
@@ -49,14 +53,24 @@
  * filtering out handlers that are not appropriate for the target entity based on the components it
  * has.  All of this occurs within a provided transaction. If an event handler
  * returns EventResult.COMPLETE or EventResult.CANCEL the event processing is halted.
+ * <p>
+ * The handlers that are valid for each combination of entity component types and triggering components are cached in
+ * a dispatch table, so repeated events against similar entities only visit the handlers that will be invoked. The
+ * dispatch table is rebuilt whenever handlers are added or removed.
+ * <p>
+ * If an {@link EventMetricsListener} is set, it is notified of the processing of each event and invocation of each handler.
  *
  * @author Immortius
  */
 public class EventProcessor {
     private static final Logger logger = LoggerFactory.getLogger(EventProcessor.class);
+    private static final int MAX_CACHED_SIGNATURES = 4096;
+
     private final List<EventProcessor> children = new ArrayList<>();
     private final List<EventHandlerRegistration> eventHandlers = new CopyOnWriteArrayList<>();
     private final Multimap<Class<?>, EventHandlerRegistration> eventHandlersByProvider = ArrayListMultimap.create();
+    private volatile DispatchTable dispatchTable = new DispatchTable(Collections.emptyList());
+    private volatile EventMetricsListener metricsListener = EventMetricsListener.NONE;
 
     public EventProcessor() {
         this(null);
@@ -72,9 +86,18 @@ public EventProcessor(EventProcessor parent) {
             parent.children.add(this);
             this.eventHandlers.addAll(parent.eventHandlers);
             this.eventHandlersByProvider.putAll(parent.eventHandlersByProvider);
+            this.dispatchTable = new DispatchTable(eventHandlers);
+            this.metricsListener = parent.metricsListener;
         }
     }
 
+    /**
+     * @param listener The listener to notify of the processing of events, or {@link EventMetricsListener#NONE}
+     */
+    public void setMetricsListener(EventMetricsListener listener) {
+        this.metricsListener = Objects.requireNonNull(listener);
+    }
+
 
     /**
      * Sends an event against an entity
@@ -101,23 +124,84 @@ public EventResult process(Event event, EntityRef entity) {
      * @return The result of the event. If any event handler returns EventResult.CANCEL then that is returned, otherwise the result will be EventResult.COMPLETE.
      */
     public EventResult process(Event event, EntityRef entity, Set<Class<? extends Component>> triggeringComponents) {
+        return process(event, entity, triggeringComponents, null);
+    }
+
+    /**
+     * Sends an event against an entity, where other events may be processed concurrently. Event handlers that are not
+     * {@link EventHandler#isThreadSafe() thread safe} are only invoked while holding the monitor of serialLane.
+     *
+     * @param event                The event to send
+     * @param entity               The entity to send the event against
+     * @param triggeringComponents The components triggering the event, if any.
+     * @param serialLane           The object to synchronize on when invoking handlers that are not thread safe, or null if
+     *                             all handlers can be invoked directly
+     * @return The result of the event. If any event handler returns EventResult.CANCEL then that is returned, otherwise the result will be EventResult.COMPLETE.
+     */
+    public EventResult process(Event event, EntityRef entity, Set<Class<? extends Component>> triggeringComponents, Object serialLane) {
+        DispatchTable table = dispatchTable;
+        EventHandlerRegistration[] handlers = table.getHandlers(entity.getComponentTypes(), triggeringComponents);
+        return invoke(handlers, table.handlers.length, event, entity, serialLane);
+    }
+
+    /**
+     * Sends an event against each entity provided by an iterator. The handlers to invoke are only resolved when the
+     * component types of an entity differ from those of the previous entity, so this is considerably cheaper than
+     * processing the event against each entity separately when the entities share component types.
+     *
+     * @param event      The event to send
+     * @param entities   An iterator over the entities to send the event against. Entities that do not exist are skipped.
+     * @param serialLane The object to synchronize on when invoking handlers that are not thread safe, or null if
+     *                   all handlers can be invoked directly
+     */
+    public void broadcast(Event event, EntityIterator entities, Object serialLane) {
+        DispatchTable table = null;
+        Set<Class<? extends Component>> signature = null;
+        EventHandlerRegistration[] handlers = null;
+        while (entities.next()) {
+            EntityRef entity = entities.getEntity();
+            if (!entity.exists()) {
+                continue;
+            }
+            Set<Class<? extends Component>> componentTypes = entity.getComponentTypes();
+            if (componentTypes != signature || table != dispatchTable) {
+                table = dispatchTable;
+                signature = componentTypes;
+                handlers = table.getHandlers(componentTypes, Collections.emptySet());
+            }
+            invoke(handlers, table.handlers.length, event, entity, serialLane);
+        }
+    }
+
+    private EventResult invoke(EventHandlerRegistration[] handlers, int registeredHandlers, Event event, EntityRef entity, Object serialLane) {
+        EventMetricsListener metrics = metricsListener;
+        boolean measured = metrics != EventMetricsListener.NONE;
+        long eventStart = measured ? System.nanoTime() : 0;
+        int invokedHandlers = 0;
         EventResult result = EventResult.CONTINUE;
-        Set<Class<? extends Component>> componentTypes = entity.getComponentTypes();
-        for (EventHandlerRegistration handler : eventHandlers) {
-            if (validToInvoke(handler, componentTypes, triggeringComponents)) {
-                try {
+        for (EventHandlerRegistration handler : handlers) {
+            invokedHandlers++;
+            long handlerStart = measured ? System.nanoTime() : 0;
+            try {
+                if (serialLane == null || handler.receiver.isThreadSafe()) {
                     result = handler.invoke(event, entity);
-                    switch (result) {
-                        case COMPLETE:
-                        case CANCEL:
-                            return result;
-                        default:
-                            // Continue
+                } else {
+                    synchronized (serialLane) {
+                        result = handler.invoke(event, entity);
                     }
-                } catch (RuntimeException e) {
-                    logger.error("Exception thrown when processing event {}", event.getClass(), e);
                 }
+            } catch (RuntimeException e) {
+                logger.error("Exception thrown when processing event {}", event.getClass(), e);
+            }
+            if (measured) {
+                metrics.onHandlerInvoked(event.getClass(), handler.provider, System.nanoTime() - handlerStart);
             }
+            if (result == EventResult.COMPLETE || result == EventResult.CANCEL) {
+                break;
+            }
+        }
+        if (measured) {
+            metrics.onEventProcessed(event.getClass(), registeredHandlers, handlers.length, invokedHandlers, System.nanoTime() - eventStart);
         }
 
         if (result == EventResult.CONTINUE) {
@@ -126,7 +210,7 @@ public EventResult process(Event event, EntityRef entity, Set<Class<? extends Co
         return result;
     }
 
-    private boolean validToInvoke(EventHandlerRegistration handler, Set<Class<? extends Component>> targetComponents, Set<Class<? extends Component>> triggeringComponents) {
+    private static boolean validToInvoke(EventHandlerRegistration handler, Set<Class<? extends Component>> targetComponents, Set<Class<? extends Component>> triggeringComponents) {
         for (Class<? extends Component> component : handler.components) {
             if (!targetComponents.contains(component) && !triggeringComponents.contains(component)) {
                 return false;
@@ -154,7 +238,7 @@ private boolean validToInvoke(EventHandlerRegistration handler, Set<Class<? exte
      */
     public synchronized void registerHandler(EventHandler<?> eventHandler, Class<?> provider, Collection<Class<?>> before, Collection<Class<?>> after, Iterable<Class<? extends Component>> requiredComponents) {
         children.forEach(child -> child.registerHandler(eventHandler, provider, before, after, requiredComponents));
-        EventHandlerRegistration eventHandlerRegistration = new EventHandlerRegistration(eventHandler, before, after, requiredComponents);
+        EventHandlerRegistration eventHandlerRegistration = new EventHandlerRegistration(eventHandler, provider, before, after, requiredComponents);
         eventHandlersByProvider.put(provider, eventHandlerRegistration);
         sortHandlers();
     }
@@ -172,6 +256,7 @@ private void sortHandlers() {
         }
         eventHandlers.clear();
         eventHandlers.addAll(sorter.sort());
+        dispatchTable = new DispatchTable(eventHandlers);
     }
 
     /**
@@ -180,7 +265,11 @@ private void sortHandlers() {
      * @return Whether any handlers were removed
      */
     public synchronized boolean removeProvider(Class<?> provider) {
-        return eventHandlers.removeAll(eventHandlersByProvider.removeAll(provider));
+        if (eventHandlers.removeAll(eventHandlersByProvider.removeAll(provider))) {
+            dispatchTable = new DispatchTable(eventHandlers);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -190,26 +279,116 @@ public synchronized boolean removeProvider(Class<?> provider) {
      */
     public synchronized boolean removeHandler(EventHandler<?> handler) {
         if (eventHandlersByProvider.values().removeIf(x -> x.receiver.equals(handler))) {
-            return eventHandlers.removeIf(x -> x.receiver.equals(handler));
+            boolean removed = eventHandlers.removeIf(x -> x.receiver.equals(handler));
+            dispatchTable = new DispatchTable(eventHandlers);
+            return removed;
         }
         return false;
     }
 
+    /**
+     * A snapshot of the ordered event handlers, along with a cache of the handlers valid to invoke for each combination
+     * of entity component types and triggering components encountered. Each change to the handlers replaces the
+     * dispatch table. The number of cached combinations is capped, beyond which handlers are resolved for each event.
+     */
+    private static final class DispatchTable {
+        private final EventHandlerRegistration[] handlers;
+        private final Map<Set<Class<? extends Component>>, EventHandlerRegistration[]> untriggeredHandlers = new ConcurrentHashMap<>();
+        private final Map<DispatchKey, EventHandlerRegistration[]> triggeredHandlers = new ConcurrentHashMap<>();
+
+        DispatchTable(Collection<EventHandlerRegistration> handlers) {
+            this.handlers = handlers.toArray(new EventHandlerRegistration[0]);
+        }
+
+        /**
+         * @param componentTypes       The component types of the target entity
+         * @param triggeringComponents The components triggering the event
+         * @return The ordered handlers valid to invoke
+         */
+        EventHandlerRegistration[] getHandlers(Set<Class<? extends Component>> componentTypes, Set<Class<? extends Component>> triggeringComponents) {
+            if (triggeringComponents.isEmpty()) {
+                EventHandlerRegistration[] result = untriggeredHandlers.get(componentTypes);
+                if (result == null) {
+                    result = resolve(componentTypes, triggeringComponents);
+                    if (untriggeredHandlers.size() < MAX_CACHED_SIGNATURES) {
+                        untriggeredHandlers.put(ImmutableSet.copyOf(componentTypes), result);
+                    }
+                }
+                return result;
+            } else {
+                DispatchKey key = new DispatchKey(componentTypes, triggeringComponents);
+                EventHandlerRegistration[] result = triggeredHandlers.get(key);
+                if (result == null) {
+                    result = resolve(componentTypes, triggeringComponents);
+                    if (triggeredHandlers.size() < MAX_CACHED_SIGNATURES) {
+                        triggeredHandlers.put(new DispatchKey(ImmutableSet.copyOf(componentTypes), ImmutableSet.copyOf(triggeringComponents)), result);
+                    }
+                }
+                return result;
+            }
+        }
+
+        private EventHandlerRegistration[] resolve(Set<Class<? extends Component>> componentTypes, Set<Class<? extends Component>> triggeringComponents) {
+            List<EventHandlerRegistration> result = new ArrayList<>();
+            for (EventHandlerRegistration handler : handlers) {
+                if (validToInvoke(handler, componentTypes, triggeringComponents)) {
+                    result.add(handler);
+                }
+            }
+            return result.toArray(new EventHandlerRegistration[0]);
+        }
+    }
+
+    /**
+     * Key for the dispatch of events with triggering components
+     */
+    private static final class DispatchKey {
+        private final Set<Class<? extends Component>> componentTypes;
+        private final Set<Class<? extends Component>> triggeringComponents;
+        private final int hash;
+
+        DispatchKey(Set<Class<? extends Component>> componentTypes, Set<Class<? extends Component>> triggeringComponents) {
+            this.componentTypes = componentTypes;
+            this.triggeringComponents = triggeringComponents;
+            this.hash = 31 * componentTypes.hashCode() + triggeringComponents.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj instanceof DispatchKey) {
+                DispatchKey other = (DispatchKey) obj;
+                return hash == other.hash && componentTypes.equals(other.componentTypes) && triggeringComponents.equals(other.triggeringComponents);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     /**
      * A registration of an EventHandler. Includes the handler to call and the components that an entity must have for the handler to be called.
      */
     private static class EventHandlerRegistration {
         private final EventHandler receiver;
+        private final Class<?> provider;
         private final ImmutableList<Class<? extends Component>> components;
         private final List<Class<?>> before;
         private final List<Class<?>> after;
 
         /**
          * @param receiver           The event handler
+         * @param provider           The class providing the event handler
          * @param requiredComponents The components an entity must have for the receiver to be called.
          */
-        EventHandlerRegistration(EventHandler<?> receiver, Iterable<Class<?>> before, Iterable<Class<?>> after, Iterable<Class<? extends Component>> requiredComponents) {
+        EventHandlerRegistration(EventHandler<?> receiver, Class<?> provider, Iterable<Class<?>> before, Iterable<Class<?>> after, Iterable<Class<? extends Component>> requiredComponents) {
             this.receiver = receiver;
+            this.provider = provider;
             this.components = ImmutableList.copyOf(requiredComponents);
             this.before = ImmutableList.copyOf(before);
             this.after = ImmutableList.copyOf(after);
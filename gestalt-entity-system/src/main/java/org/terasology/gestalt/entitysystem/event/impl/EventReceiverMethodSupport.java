@@ -25,6 +25,7 @@
 import org.terasology.gestalt.entitysystem.component.Component;
 import org.terasology.gestalt.entitysystem.event.After;
 import org.terasology.gestalt.entitysystem.event.Before;
+import org.terasology.gestalt.entitysystem.event.Concurrent;
 import org.terasology.gestalt.entitysystem.event.Event;
 import org.terasology.gestalt.entitysystem.event.EventHandler;
 import org.terasology.gestalt.entitysystem.event.EventHandlerFactory;
@@ -133,6 +134,15 @@ private <T extends Event> void registerEventHandler(EventHandler<T> eventHandler
         eventSystem.registerHandler(type, eventHandler, handlerClass, beforeUnion, afterUnion, requiredComponents);
     }
 
+    /**
+     * @param handler The object providing an event handling method
+     * @param method  The event handling method
+     * @return Whether the method, or the class of the handler object, is marked as {@link Concurrent}
+     */
+    public static boolean isConcurrent(Object handler, Method method) {
+        return method.isAnnotationPresent(Concurrent.class) || handler.getClass().isAnnotationPresent(Concurrent.class);
+    }
+
     @SuppressWarnings("unchecked")
     private List<Class<? extends Component>> gatherComponentParameters(Class<?>[] types) {
         List<Class<? extends Component>> componentParams = Lists.newArrayList();
@@ -1,68 +1,347 @@
 package org.terasology.gestalt.entitysystem.event.impl;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Lists;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
 
 import net.jcip.annotations.ThreadSafe;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.entity.EntityIterator;
 import org.terasology.gestalt.entitysystem.entity.EntityRef;
 import org.terasology.gestalt.entitysystem.event.Event;
 import org.terasology.gestalt.entitysystem.event.EventHandler;
 import org.terasology.gestalt.entitysystem.event.EventSystem;
+import org.terasology.gestalt.entitysystem.event.ScheduledEvent;
 import org.terasology.gestalt.entitysystem.event.Synchronous;
+import org.terasology.gestalt.entitysystem.event.metrics.EventMetricsListener;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
 
 /**
  * Threadsafe event system implementation. Events are queued up from any thread (run immediately if {@link Synchronous}, and then processed
  * when processEvents is called. processEvents can only be called on a single thread at a time and is blocking until completed.
+ * <p>
+ * By default all events are processed one at a time. Optionally an executor can be provided, in which case processEvents partitions the
+ * pending events by the id of their target entity and processes the partitions concurrently on the executor. Events sent against the same
+ * entity are still processed in the order they were sent. Event handlers that are not {@link org.terasology.gestalt.entitysystem.event.Concurrent}
+ * are run one at a time regardless. The executor must not run its tasks on the thread calling processEvents.
+ * <p>
+ * Event handlers may call processEvents. On the processing thread this processes any events sent since, before returning to the
+ * rest of the batch. On an executor thread it returns immediately - the events remain pending, and are processed by the outer call
+ * once the current batch is complete. Event handlers may also call clearPendingEvents from either thread.
+ * <p>
+ * Delayed and periodic events are held in a {@link TimingWheel}, and moved into the pending events as they become due at the
+ * start of each call to processEvents.
+ * <p>
+ * Event processing can be profiled by {@link #setMetricsListener setting a metrics listener}, such as an
+ * {@link org.terasology.gestalt.entitysystem.event.metrics.EventMetricsRecorder}.
  */
 @ThreadSafe
 public class EventSystemImpl implements EventSystem {
 
     private static final Logger logger = LoggerFactory.getLogger(EventSystemImpl.class);
 
-    private final BlockingQueue<PendingEventInfo> pendingEvents = new LinkedBlockingQueue<>();
-    private final Map<Class<? extends Event>, EventProcessor> eventProcessorLookup = new LinkedHashMap<>();
+    private static final int QUEUE_CAPACITY = 1 << 14;
+    private static final int MAX_INTERNED_TRIGGERING_SETS = 1024;
+
+    private final PendingEventQueue pendingEvents = new PendingEventQueue(QUEUE_CAPACITY);
+    private final LongSupplier clock;
+    private final TimingWheel scheduledEvents;
+    private final BiConsumer<Event, EntityRef> enqueueDueEvent = (event, entity) -> pendingEvents.add(event, entity, Collections.emptySet());
+    private PendingEventQueue.Batch spareBatch = new PendingEventQueue.Batch(256);
+    private final Map<Set<Class<? extends Component>>, Set<Class<? extends Component>>> triggeringComponentSets = new ConcurrentHashMap<>();
+    private final Map<Class<? extends Event>, EventProcessor> eventProcessorLookup = new ConcurrentHashMap<>();
+    private final Object processingLock = new Object();
+    private final Object serialLane = new Object();
+    private final ThreadLocal<Boolean> processingPartition = ThreadLocal.withInitial(() -> false);
+    private final Executor executor;
+    private final TIntList[] partitions;
+    private volatile EventMetricsListener metricsListener = EventMetricsListener.NONE;
+
+    /**
+     * Creates an event system that processes events one at a time, on the thread calling processEvents.
+     */
+    public EventSystemImpl() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Creates an event system that processes events one at a time, on the thread calling processEvents.
+     *
+     * @param clock Provides the current time in nanoseconds, for scheduled events
+     */
+    public EventSystemImpl(LongSupplier clock) {
+        Preconditions.checkNotNull(clock);
+        this.executor = null;
+        this.partitions = new TIntList[0];
+        this.clock = clock;
+        this.scheduledEvents = new TimingWheel(clock.getAsLong());
+    }
+
+    /**
+     * Creates an event system that processes pending events concurrently on the provided executor, with a partition per
+     * available processor.
+     *
+     * @param executor The executor to process partitions of pending events on
+     */
+    public EventSystemImpl(Executor executor) {
+        this(executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an event system that processes pending events concurrently on the provided executor.
+     *
+     * @param executor   The executor to process partitions of pending events on
+     * @param partitions The number of partitions to split pending events into
+     * @throws IllegalArgumentException If partitions is less than 1
+     */
+    public EventSystemImpl(Executor executor, int partitions) {
+        this(executor, partitions, System::nanoTime);
+    }
+
+    /**
+     * Creates an event system that processes pending events concurrently on the provided executor.
+     *
+     * @param executor   The executor to process partitions of pending events on
+     * @param partitions The number of partitions to split pending events into
+     * @param clock      Provides the current time in nanoseconds, for scheduled events
+     * @throws IllegalArgumentException If partitions is less than 1
+     */
+    public EventSystemImpl(Executor executor, int partitions, LongSupplier clock) {
+        Preconditions.checkNotNull(executor);
+        Preconditions.checkNotNull(clock);
+        Preconditions.checkArgument(partitions > 0, "partitions must be at least 1");
+        this.executor = executor;
+        this.partitions = new TIntList[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new TIntArrayList();
+        }
+        this.clock = clock;
+        this.scheduledEvents = new TimingWheel(clock.getAsLong());
+    }
+
+    /**
+     * @return The listener notified of the processing of events
+     */
+    public EventMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Sets the listener to notify of the processing of events. By default this is {@link EventMetricsListener#NONE}, in
+     * which case no measurements are taken.
+     *
+     * @param listener The listener to notify of the processing of events
+     */
+    public synchronized void setMetricsListener(EventMetricsListener listener) {
+        Preconditions.checkNotNull(listener);
+        this.metricsListener = listener;
+        for (EventProcessor processor : eventProcessorLookup.values()) {
+            processor.setMetricsListener(listener);
+        }
+    }
 
     @Override
     public void send(Event event, EntityRef entity, Set<Class<? extends Component>> triggeringComponents) {
         if (event.getClass().isAnnotationPresent(Synchronous.class)) {
             processEvent(event, entity, triggeringComponents);
         } else {
-            pendingEvents.add(new PendingEventInfo(event, entity, triggeringComponents));
+            pendingEvents.add(event, entity, intern(triggeringComponents));
+        }
+    }
+
+    @Override
+    public void sendBatch(Event event, Collection<? extends EntityRef> entities, Set<Class<? extends Component>> triggeringComponents) {
+        if (event.getClass().isAnnotationPresent(Synchronous.class)) {
+            for (EntityRef entity : entities) {
+                processEvent(event, entity, triggeringComponents);
+            }
+        } else {
+            pendingEvents.addAll(event, entities, intern(triggeringComponents));
+        }
+    }
+
+    @Override
+    public void broadcast(Event event, EntityIterator entities) {
+        if (event.getClass().isAnnotationPresent(Synchronous.class)) {
+            EventProcessor eventProcessor = getEventProcessor(event.getClass());
+            if (executor == null) {
+                synchronized (serialLane) {
+                    eventProcessor.broadcast(event, entities, null);
+                }
+            } else {
+                eventProcessor.broadcast(event, entities, serialLane);
+            }
+        } else {
+            while (entities.next()) {
+                pendingEvents.add(event, entities.getEntity(), Collections.emptySet());
+            }
         }
     }
 
     @Override
-    public synchronized void processEvents() {
-        List<PendingEventInfo> events = Lists.newArrayListWithExpectedSize(pendingEvents.size());
-        while (!pendingEvents.isEmpty()) {
-            pendingEvents.drainTo(events);
-            for (PendingEventInfo eventInfo : events) {
-                processEvent(eventInfo.getEvent(), eventInfo.getEntity(), eventInfo.triggeringComponents);
+    public ScheduledEvent sendAfter(Event event, EntityRef entity, long delay, TimeUnit unit) {
+        return scheduledEvents.schedule(event, entity, unit.toNanos(delay), 0, clock.getAsLong());
+    }
+
+    @Override
+    public ScheduledEvent sendPeriodically(Event event, EntityRef entity, long initialDelay, long period, TimeUnit unit) {
+        Preconditions.checkArgument(period > 0, "period must be positive");
+        return scheduledEvents.schedule(event, entity, unit.toNanos(initialDelay), unit.toNanos(period), clock.getAsLong());
+    }
+
+    /**
+     * Triggering components are usually one of a small number of sets (commonly a single component), so rather than copying
+     * the set for every pending event a single immutable copy of each distinct set is shared.
+     *
+     * @param triggeringComponents The triggering components of an event
+     * @return An immutable set equal to triggeringComponents
+     */
+    private Set<Class<? extends Component>> intern(Set<Class<? extends Component>> triggeringComponents) {
+        if (triggeringComponents.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<Class<? extends Component>> result = triggeringComponentSets.get(triggeringComponents);
+        if (result == null) {
+            result = ImmutableSet.copyOf(triggeringComponents);
+            if (triggeringComponentSets.size() < MAX_INTERNED_TRIGGERING_SETS) {
+                triggeringComponentSets.putIfAbsent(result, result);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void processEvents() {
+        if (processingPartition.get()) {
+            // The processing thread is waiting on this partition while holding the processing lock
+            return;
+        }
+        synchronized (processingLock) {
+            // A handler may process events itself, in which case the nested call needs its own batch
+            PendingEventQueue.Batch batch = (spareBatch != null) ? spareBatch : new PendingEventQueue.Batch(16);
+            spareBatch = null;
+            try {
+                scheduledEvents.advance(clock.getAsLong(), enqueueDueEvent);
+                while (!pendingEvents.isEmpty()) {
+                    pendingEvents.drainTo(batch);
+                    metricsListener.onPendingEventsDrained(batch.size());
+                    try {
+                        if (executor == null || batch.size() == 1) {
+                            processSequentially(batch);
+                        } else {
+                            processConcurrently(batch);
+                        }
+                    } finally {
+                        batch.clear();
+                    }
+                }
+            } finally {
+                spareBatch = batch;
+            }
+        }
+    }
+
+    /**
+     * Processes the batch of events in order. Runs of the same event sent against multiple entities (such as from
+     * {@link #broadcast} or {@link #sendBatch}) are dispatched in bulk.
+     */
+    private void processSequentially(PendingEventQueue.Batch batch) {
+        int start = 0;
+        while (start < batch.size()) {
+            Event event = batch.getEvent(start);
+            int end = start + 1;
+            if (batch.getTriggeringComponents(start).isEmpty()) {
+                while (end < batch.size() && batch.getEvent(end) == event && batch.getTriggeringComponents(end).isEmpty()) {
+                    end++;
+                }
+            }
+            if (end - start == 1) {
+                processEvent(event, batch.getEntity(start), batch.getTriggeringComponents(start));
+            } else {
+                EventProcessor eventProcessor = getEventProcessor(event.getClass());
+                synchronized (serialLane) {
+                    eventProcessor.broadcast(event, new BatchRangeIterator(batch, start, end), null);
+                }
+            }
+            start = end;
+        }
+    }
+
+    private void processConcurrently(PendingEventQueue.Batch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            partitions[Math.floorMod(batch.getEntity(i).getId(), partitions.length)].add(i);
+        }
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(partitions.length);
+        for (TIntList partition : partitions) {
+            if (!partition.isEmpty()) {
+                tasks.add(CompletableFuture.runAsync(() -> {
+                    processingPartition.set(true);
+                    try {
+                        partition.forEach(index -> {
+                            processEvent(batch.getEvent(index), batch.getEntity(index), batch.getTriggeringComponents(index));
+                            return true;
+                        });
+                    } finally {
+                        processingPartition.set(false);
+                    }
+                }, executor));
+            }
+        }
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            logger.error("Exception thrown when processing events", e.getCause());
+        } finally {
+            for (TIntList partition : partitions) {
+                partition.clear();
             }
         }
     }
 
     @Override
     public void clearPendingEvents() {
-        pendingEvents.clear();
+        if (processingPartition.get()) {
+            // The processing thread holds the processing lock, but does not drain the queue while waiting on the
+            // partitions - so only other partitions need to be excluded
+            synchronized (pendingEvents) {
+                pendingEvents.clear();
+            }
+            return;
+        }
+        synchronized (processingLock) {
+            pendingEvents.clear();
+        }
     }
 
-    private synchronized void processEvent(Event event, EntityRef entity, Set<Class<? extends Component>> triggeringComponents) {
+    private void processEvent(Event event, EntityRef entity, Set<Class<? extends Component>> triggeringComponents) {
         if (entity.exists()) {
             EventProcessor eventProcessor = getEventProcessor(event.getClass());
-            eventProcessor.process(event, entity, triggeringComponents);
+            if (executor == null) {
+                synchronized (serialLane) {
+                    eventProcessor.process(event, entity, triggeringComponents);
+                }
+            } else {
+                eventProcessor.process(event, entity, triggeringComponents, serialLane);
+            }
         }
     }
 
@@ -90,10 +369,15 @@ public synchronized boolean removeHandler(EventHandler<?> handler) {
         return result;
     }
 
-    private synchronized EventProcessor getEventProcessor(Class<? extends Event> eventClass) {
+    private EventProcessor getEventProcessor(Class<? extends Event> eventClass) {
         EventProcessor eventProcessor = eventProcessorLookup.get(eventClass);
         if (eventProcessor == null) {
-            eventProcessor = createEventProcessor(eventClass);
+            synchronized (this) {
+                eventProcessor = eventProcessorLookup.get(eventClass);
+                if (eventProcessor == null) {
+                    eventProcessor = createEventProcessor(eventClass);
+                }
+            }
         }
         return eventProcessor;
     }
@@ -106,31 +390,34 @@ private EventProcessor createEventProcessor(Class<? extends Event> eventClass) {
         } else {
             processor = new EventProcessor();
         }
+        processor.setMetricsListener(metricsListener);
         eventProcessorLookup.put(eventClass, processor);
         return processor;
     }
 
-    private static class PendingEventInfo {
-        private final Event event;
-        private final EntityRef entity;
-        private final Set<Class<? extends Component>> triggeringComponents;
+    /**
+     * Iterates over the entities of a range of a batch of events
+     */
+    private static final class BatchRangeIterator implements EntityIterator {
+        private final PendingEventQueue.Batch batch;
+        private final int end;
+        private int index;
 
-        private PendingEventInfo(Event event, EntityRef entity, Set<Class<? extends Component>> triggeringComponents) {
-            this.event = event;
-            this.entity = entity;
-            this.triggeringComponents = ImmutableSet.copyOf(triggeringComponents);
+        BatchRangeIterator(PendingEventQueue.Batch batch, int start, int end) {
+            this.batch = batch;
+            this.index = start - 1;
+            this.end = end;
         }
 
-        public EntityRef getEntity() {
-            return entity;
-        }
-
-        public Event getEvent() {
-            return event;
+        @Override
+        public boolean next() {
+            index++;
+            return index < end;
         }
 
-        public Set<Class<? extends Component>> getTriggeringComponents() {
-            return triggeringComponents;
+        @Override
+        public EntityRef getEntity() {
+            return batch.getEntity(index);
         }
     }
 }
@@ -0,0 +1,277 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event.impl;
+
+import com.google.common.base.Preconditions;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.event.Event;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A multi-producer, single-consumer queue of pending events. Events are written into a pre-allocated ring of reusable
+ * slots, so queueing an event does not allocate. If the ring fills up, events spill into an unbounded overflow queue
+ * until the consumer catches up - events from a single producer are always drained in the order they were queued.
+ * Overflowed events are only drained once every slot claimed before them has been published and drained, so they cannot
+ * overtake an earlier event from the same producer that is behind a slot another producer is still writing.
+ * <p>
+ * Any thread may {@link #add} events, but only one thread at a time may {@link #drainTo} or {@link #clear} the queue.
+ */
+@ThreadSafe
+final class PendingEventQueue {
+
+    /**
+     * The largest capacity that can be rounded up to a power of two
+     */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final Queue<Slot> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicLong overflowed = new AtomicLong();
+    private long head;
+    private long overflowDrained;
+
+    /**
+     * @param capacity The number of slots in the ring. Rounded up to a power of two, of at least two - with a single slot,
+     *                 a published slot could not be told apart from a free one.
+     * @throws IllegalArgumentException If the capacity is not positive, or greater than {@link #MAX_CAPACITY}
+     */
+    PendingEventQueue(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+        Preconditions.checkArgument(capacity <= MAX_CAPACITY, "capacity must be at most %s", MAX_CAPACITY);
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.ring = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot(i);
+        }
+    }
+
+    /**
+     * Queues an event
+     *
+     * @param event                The event to queue
+     * @param entity               The entity to send the event against
+     * @param triggeringComponents The components triggering the event. This set must not be modified afterwards.
+     */
+    void add(Event event, EntityRef entity, Set<Class<? extends Component>> triggeringComponents) {
+        if (!overflow.isEmpty() || !offer(event, entity, triggeringComponents)) {
+            overflow.add(new Slot(event, entity, triggeringComponents));
+            overflowed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Queues an event against each of a number of entities. Where possible the slots for all the entities are claimed at
+     * once, and the events will be drained contiguously.
+     *
+     * @param event                The event to queue
+     * @param entities             The entities to send the event against
+     * @param triggeringComponents The components triggering the event. This set must not be modified afterwards.
+     */
+    void addAll(Event event, Collection<? extends EntityRef> entities, Set<Class<? extends Component>> triggeringComponents) {
+        int count = entities.size();
+        if (count == 0) {
+            return;
+        }
+        long start = overflow.isEmpty() ? claim(count) : -1;
+        if (start >= 0) {
+            long pos = start;
+            for (EntityRef entity : entities) {
+                ring[(int) pos & mask].publish(pos, event, entity, triggeringComponents);
+                pos++;
+            }
+        } else {
+            for (EntityRef entity : entities) {
+                add(event, entity, triggeringComponents);
+            }
+        }
+    }
+
+    private boolean offer(Event event, EntityRef entity, Set<Class<? extends Component>> triggeringComponents) {
+        long pos = claim(1);
+        if (pos < 0) {
+            return false;
+        }
+        ring[(int) pos & mask].publish(pos, event, entity, triggeringComponents);
+        return true;
+    }
+
+    /**
+     * Claims count consecutive slots. As the consumer releases slots in order, the range is free if its last slot is free.
+     *
+     * @param count The number of slots to claim
+     * @return The position of the first claimed slot, or -1 if there was not enough free space
+     */
+    private long claim(int count) {
+        if (count > ring.length) {
+            return -1;
+        }
+        long pos = tail.get();
+        while (true) {
+            long last = pos + count - 1;
+            long diff = ring[(int) last & mask].sequence - last;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + count)) {
+                    return pos;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return -1;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * @return Whether there are no events queued. Events that are in the process of being queued count as queued.
+     */
+    boolean isEmpty() {
+        return tail.get() == head && overflow.isEmpty();
+    }
+
+    /**
+     * Moves all the events that have been fully queued into the given batch, in the order they were queued. Overflowed
+     * events are left queued while any slot of the ring is claimed but not yet published, to be drained by a later call.
+     *
+     * @param batch The batch to add the events to
+     */
+    void drainTo(Batch batch) {
+        Slot slot = ring[(int) head & mask];
+        while (slot.sequence == head + 1) {
+            batch.add(slot.event, slot.entity, slot.triggeringComponents);
+            slot.release(head + ring.length);
+            head++;
+            slot = ring[(int) head & mask];
+        }
+        // Only overflowed events counted before the ring is seen to be drained are known to follow the ring's events
+        long pending = overflowed.get() - overflowDrained;
+        if (tail.get() != head) {
+            return;
+        }
+        Slot next;
+        for (long i = 0; i < pending && (next = overflow.poll()) != null; i++) {
+            batch.add(next.event, next.entity, next.triggeringComponents);
+            overflowDrained++;
+        }
+    }
+
+    /**
+     * Discards all the events that have been fully queued
+     */
+    void clear() {
+        Slot slot = ring[(int) head & mask];
+        while (slot.sequence == head + 1) {
+            slot.release(head + ring.length);
+            head++;
+            slot = ring[(int) head & mask];
+        }
+        while (overflow.poll() != null) {
+            overflowDrained++;
+        }
+    }
+
+    /**
+     * A slot in the ring. The sequence of a slot is equal to the position it can next be claimed for when it is free,
+     * and one greater than that position once an event has been published to it.
+     */
+    private static final class Slot {
+        private volatile long sequence;
+        private Event event;
+        private EntityRef entity;
+        private Set<Class<? extends Component>> triggeringComponents;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+        Slot(Event event, EntityRef entity, Set<Class<? extends Component>> triggeringComponents) {
+            this.event = event;
+            this.entity = entity;
+            this.triggeringComponents = triggeringComponents;
+        }
+
+        void publish(long pos, Event newEvent, EntityRef newEntity, Set<Class<? extends Component>> newTriggeringComponents) {
+            this.event = newEvent;
+            this.entity = newEntity;
+            this.triggeringComponents = newTriggeringComponents;
+            this.sequence = pos + 1;
+        }
+
+        void release(long nextPos) {
+            this.event = null;
+            this.entity = null;
+            this.triggeringComponents = null;
+            this.sequence = nextPos;
+        }
+    }
+
+    /**
+     * A reusable batch of drained events, held as parallel arrays. Only to be used by a single thread.
+     */
+    static final class Batch {
+        private Event[] events;
+        private EntityRef[] entities;
+        private Set<Class<? extends Component>>[] triggeringComponents;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        Batch(int initialCapacity) {
+            events = new Event[initialCapacity];
+            entities = new EntityRef[initialCapacity];
+            triggeringComponents = new Set[initialCapacity];
+        }
+
+        private void add(Event event, EntityRef entity, Set<Class<? extends Component>> triggering) {
+            if (size == events.length) {
+                int newCapacity = Math.max(16, size * 2);
+                events = Arrays.copyOf(events, newCapacity);
+                entities = Arrays.copyOf(entities, newCapacity);
+                triggeringComponents = Arrays.copyOf(triggeringComponents, newCapacity);
+            }
+            events[size] = event;
+            entities[size] = entity;
+            triggeringComponents[size] = triggering;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        Event getEvent(int index) {
+            return events[index];
+        }
+
+        EntityRef getEntity(int index) {
+            return entities[index];
+        }
+
+        Set<Class<? extends Component>> getTriggeringComponents(int index) {
+            return triggeringComponents[index];
+        }
+
+        /**
+         * Empties the batch, releasing its references to events and entities
+         */
+        void clear() {
+            Arrays.fill(events, 0, size, null);
+            Arrays.fill(entities, 0, size, null);
+            Arrays.fill(triggeringComponents, 0, size, null);
+            size = 0;
+        }
+    }
+}
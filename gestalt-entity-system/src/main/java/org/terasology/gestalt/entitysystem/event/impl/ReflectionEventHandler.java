@@ -38,6 +38,7 @@ public class ReflectionEventHandler implements EventHandler {
     private Object handler;
     private Method method;
     private ImmutableList<Class<? extends Component>> componentParams;
+    private boolean threadSafe;
 
     /**
      * @param handler The object providing the event handler
@@ -50,6 +51,12 @@ public ReflectionEventHandler(Object handler,
         this.handler = handler;
         this.method = method;
         this.componentParams = ImmutableList.copyOf(componentParams);
+        this.threadSafe = EventReceiverMethodSupport.isConcurrent(handler, method);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return threadSafe;
     }
 
     @Override
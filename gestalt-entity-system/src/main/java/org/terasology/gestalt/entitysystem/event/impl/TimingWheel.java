@@ -0,0 +1,282 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event.impl;
+
+import com.google.common.base.Preconditions;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.event.Event;
+import org.terasology.gestalt.entitysystem.event.ScheduledEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * A hierarchical timing wheel of scheduled events. Time is divided into ticks of {@link #TICK_NANOS}, and each level of
+ * the wheel has 64 slots, with each slot of a level spanning the whole of the level below. A scheduled event is placed
+ * in the lowest level that can hold its deadline, and as time advances the slots of the higher levels are cascaded down,
+ * so scheduling, cancelling and expiring an event are all constant time. Deadlines beyond the range of the wheel are
+ * held in the top level and re-cascaded until they are in range.
+ * <p>
+ * Any thread may schedule or cancel events, but only one thread at a time may {@link #advance} the wheel.
+ */
+@ThreadSafe
+final class TimingWheel {
+
+    static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (LEVEL_BITS * LEVELS)) - 1;
+
+    private final Entry[][] levels = new Entry[LEVELS][SLOTS];
+    private final List<Entry> overdue = new ArrayList<>();
+    private final List<Entry> due = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param nowNanos The current time, in nanoseconds
+     */
+    TimingWheel(long nowNanos) {
+        this.currentTick = Math.floorDiv(nowNanos, TICK_NANOS);
+        for (Entry[] level : levels) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Entry(this);
+            }
+        }
+    }
+
+    /**
+     * Schedules an event
+     *
+     * @param event       The event to send
+     * @param entity      The entity to send the event against
+     * @param delayNanos  The delay before sending the event, in nanoseconds. If not positive, the event is due at the
+     *                    next advance of the wheel.
+     * @param periodNanos The period between sends, in nanoseconds, or 0 to send the event once
+     * @param nowNanos    The current time, in nanoseconds
+     * @return The scheduled event
+     */
+    synchronized ScheduledEvent schedule(Event event, EntityRef entity, long delayNanos, long periodNanos, long nowNanos) {
+        Preconditions.checkArgument(periodNanos >= 0, "period must not be negative");
+        if (size == 0) {
+            // Nothing to expire, so skip straight to the present rather than having the next advance step through every tick
+            currentTick = Math.max(currentTick, Math.floorDiv(nowNanos, TICK_NANOS));
+        }
+        long deadline = Math.floorDiv(nowNanos + Math.max(delayNanos, 0) + TICK_NANOS - 1, TICK_NANOS);
+        long period = (periodNanos == 0) ? 0 : Math.max(1, periodNanos / TICK_NANOS);
+        Entry entry = new Entry(this, event, entity, deadline, period);
+        if (delayNanos <= 0 || deadline <= currentTick) {
+            overdue.add(entry);
+        } else {
+            insert(entry);
+        }
+        size++;
+        return entry;
+    }
+
+    /**
+     * @return The number of events scheduled
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Advances the wheel to the given time, passing each event that has become due to the sink along with its entity.
+     * Events against entities that no longer exist are discarded rather than passed to the sink. Periodic events are
+     * rescheduled for their next deadline after the given time.
+     *
+     * @param nowNanos The current time, in nanoseconds
+     * @param sink     The consumer of due events
+     */
+    void advance(long nowNanos, BiConsumer<Event, EntityRef> sink) {
+        long targetTick = Math.floorDiv(nowNanos, TICK_NANOS);
+        synchronized (this) {
+            due.addAll(overdue);
+            size -= overdue.size();
+            overdue.clear();
+            while (currentTick < targetTick && size > 0) {
+                currentTick++;
+                int index = (int) currentTick & SLOT_MASK;
+                if (index == 0) {
+                    cascade(1);
+                }
+                Entry head = levels[0][index];
+                while (head.next != head) {
+                    Entry entry = head.next;
+                    entry.unlink();
+                    if (entry.deadline <= currentTick) {
+                        size--;
+                        due.add(entry);
+                    } else {
+                        insert(entry);
+                    }
+                }
+            }
+            if (currentTick < targetTick) {
+                currentTick = targetTick;
+            }
+        }
+
+        // Entities are checked and events sent outside of the lock, so the wheel is not held while calling out
+        for (int i = 0; i < due.size(); i++) {
+            Entry entry = due.get(i);
+            if (entry.cancelled) {
+                continue;
+            }
+            if (!entry.entity.exists()) {
+                entry.cancelled = true;
+                continue;
+            }
+            sink.accept(entry.event, entry.entity);
+            if (entry.period > 0) {
+                reschedule(entry, targetTick);
+            } else {
+                entry.done = true;
+            }
+        }
+        due.clear();
+    }
+
+    private synchronized void reschedule(Entry entry, long afterTick) {
+        if (!entry.cancelled) {
+            long missed = Math.max(0, (afterTick - entry.deadline) / entry.period + 1);
+            entry.deadline += missed * entry.period;
+            insert(entry);
+            size++;
+        }
+    }
+
+    /**
+     * Moves the entries of the current slot of a level down into the lower levels, first cascading the level above if
+     * this level has wrapped around.
+     */
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+        int index = (int) (currentTick >>> (LEVEL_BITS * level)) & SLOT_MASK;
+        if (index == 0) {
+            cascade(level + 1);
+        }
+        Entry head = levels[level][index];
+        while (head.next != head) {
+            Entry entry = head.next;
+            entry.unlink();
+            insert(entry);
+        }
+    }
+
+    /**
+     * Inserts an entry into the slot for its deadline. An entry that is already due (as when it is cascaded down on its
+     * deadline) goes into the current slot of the lowest level, which is expired after cascading.
+     */
+    private void insert(Entry entry) {
+        long delta = entry.deadline - currentTick;
+        long slotTick = entry.deadline;
+        if (delta <= 0) {
+            entry.linkBefore(levels[0][(int) currentTick & SLOT_MASK]);
+            return;
+        }
+        if (delta > MAX_DELTA) {
+            slotTick = currentTick + MAX_DELTA;
+            delta = MAX_DELTA;
+        }
+        int level = 0;
+        while (delta >= (1L << (LEVEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) (slotTick >>> (LEVEL_BITS * level)) & SLOT_MASK;
+        entry.linkBefore(levels[level][index]);
+    }
+
+    /**
+     * An entry in the wheel. Each slot is a circular doubly linked list of entries, with a sentinel entry as its head.
+     */
+    private static final class Entry implements ScheduledEvent {
+        private final TimingWheel wheel;
+        private final Event event;
+        private final EntityRef entity;
+        private final long period;
+        private long deadline;
+        private Entry prev;
+        private Entry next;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        /**
+         * Creates a sentinel entry
+         */
+        Entry(TimingWheel wheel) {
+            this(wheel, null, null, 0, 0);
+            this.prev = this;
+            this.next = this;
+        }
+
+        Entry(TimingWheel wheel, Event event, EntityRef entity, long deadline, long period) {
+            this.wheel = wheel;
+            this.event = event;
+            this.entity = entity;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        void linkBefore(Entry head) {
+            this.prev = head.prev;
+            this.next = head;
+            head.prev.next = this;
+            head.prev = this;
+        }
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+
+        @Override
+        public Event getEvent() {
+            return event;
+        }
+
+        @Override
+        public EntityRef getEntity() {
+            return entity;
+        }
+
+        @Override
+        public boolean isPending() {
+            return !cancelled && !done;
+        }
+
+        @Override
+        public boolean cancel() {
+            synchronized (wheel) {
+                if (!isPending()) {
+                    return false;
+                }
+                cancelled = true;
+                if (next != null) {
+                    unlink();
+                    wheel.size--;
+                }
+                return true;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ScheduledEvent(" + event + " -> " + entity + ")";
+        }
+    }
+}
@@ -21,6 +21,10 @@
 import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
 import org.terasology.gestalt.entitysystem.component.management.ComponentType;
 import org.terasology.gestalt.entitysystem.entity.EntityManager;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 /**
  * A wrapper for ComponentStore that captures component changes that should trigger lifecycle events.
@@ -32,7 +36,7 @@
 
     private final LifecycleEventManager lifecycleEventManager;
     private final ComponentStore<T> inner;
-    private final EntityManager entityManager;
+    private final IntFunction<EntityRef> entityLookup;
 
     /**
      * @param lifecycleEventManager The lifecycle event manager to notify of component changes
@@ -42,26 +46,34 @@
     public LifecycleAwareComponentStore(LifecycleEventManager lifecycleEventManager, EntityManager entityManager, ComponentStore<T> inner) {
         this.inner = inner;
         this.lifecycleEventManager = lifecycleEventManager;
-        this.entityManager = entityManager;
+        this.entityLookup = id -> entityManager.getEntity(id);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public boolean set(int entityId, T component) {
         if (inner.set(entityId, component)) {
-            lifecycleEventManager.componentAdded(entityManager.getEntity(entityId), component.getClass());
+            lifecycleEventManager.componentAdded(entityId, null, component.getClass(), entityLookup);
             return true;
         } else {
-            lifecycleEventManager.componentChanged(entityManager.getEntity(entityId), component.getClass());
+            lifecycleEventManager.componentChanged(entityId, null, component.getClass(), entityLookup);
             return false;
         }
     }
 
+    /**
+     * Restores the component into the wrapped store without sending any lifecycle events
+     */
+    @Override
+    public boolean restore(int entityId, T component) {
+        return inner.restore(entityId, component);
+    }
+
     @Override
     public T remove(int entityId) {
         T result = inner.remove(entityId);
         if (result != null) {
-            lifecycleEventManager.componentRemoved(entityManager.getEntity(entityId), result);
+            lifecycleEventManager.componentRemoved(entityId, null, result, entityLookup);
         }
         return result;
     }
@@ -81,6 +93,11 @@ public boolean get(int entityId, T into) {
         return inner.get(entityId, into);
     }
 
+    @Override
+    public boolean read(int entityId, Consumer<? super T> reader) {
+        return inner.read(entityId, reader);
+    }
+
     @Override
     public int iterationCost() {
         return inner.iterationCost();
@@ -14,14 +14,31 @@
  * limitations under the License.
  */
 
+
 package org.terasology.gestalt.entitysystem.event.lifecycle;
 
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+
+import net.jcip.annotations.ThreadSafe;
+
 import org.terasology.gestalt.entitysystem.component.Component;
 import org.terasology.gestalt.entitysystem.entity.EntityRef;
 import org.terasology.gestalt.entitysystem.event.EventSystem;
+import org.terasology.gestalt.util.collection.TypeKeyedMap;
 
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
 
 /**
  * A manager for collating and sending Lifecycle events.
@@ -40,14 +57,44 @@
  *     <li>If the component was added and/or changed, then removed, only an OnRemoved event is sent</li>
  * </ul>
  *
- * This class is not thread safe. It is expected all modification and sending events happens on a single
- * thread.
+ * Changes are recorded as bits in per-entity masks held in primitive arrays indexed by entity id, with each component
+ * type assigned a bit the first time it is seen. The events themselves are only created when pending events are sent.
+ * Changes may be recorded from multiple threads at once - entities are guarded by a set of lock stripes - but only
+ * one thread should send pending events at a time.
+ *
+ * As entity ids are reused, each id's pending changes are held for a specific entity. If a change is recorded for a
+ * different entity with the same id, the pending changes of the previous entity are set aside as events, to be sent
+ * along with the other pending events.
  */
+@ThreadSafe
 public class LifecycleEventManager {
 
-    private Map<EntityRef, OnAdded> onAddedEvents = new LinkedHashMap<>();
-    private Map<EntityRef, OnChanged> onChangedEvents = new LinkedHashMap<>();
-    private Map<EntityRef, OnRemoved> onRemovedEvents = new LinkedHashMap<>();
+    private static final int STRIPES = 64;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<Class<? extends Component>, Integer> typeIndices = new ConcurrentHashMap<>();
+    private final List<Class<? extends Component>> types = new CopyOnWriteArrayList<>();
+    private final Map<Integer, TypeKeyedMap<Component>> removedComponents = new ConcurrentHashMap<>();
+    private final TIntList dirtyEntities = new TIntArrayList();
+    private final Queue<PendingEvent> displacedAdded = new ConcurrentLinkedQueue<>();
+    private final Queue<PendingEvent> displacedChanged = new ConcurrentLinkedQueue<>();
+    private final Queue<PendingEvent> displacedRemoved = new ConcurrentLinkedQueue<>();
+    private final Object[] stripes = new Object[STRIPES];
+
+    /** Guards the replacement of the arrays below - held for reading while recording changes */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int words = 1;
+    private long[] added = new long[INITIAL_CAPACITY];
+    private long[] changed = new long[INITIAL_CAPACITY];
+    private long[] removed = new long[INITIAL_CAPACITY];
+    /** For each entity id with pending events, the entity the events are for */
+    private EntityRef[] entities = new EntityRef[INITIAL_CAPACITY];
+
+    public LifecycleEventManager() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
 
     /**
      * Notifies that a component has been added to an entity.
@@ -56,22 +103,7 @@ public class LifecycleEventManager {
      * @param <T> The type of component that was added
      */
     public <T extends Component<T>> void componentAdded(EntityRef entity, Class<T> componentType) {
-        // Create or add to an existing OnAdded event
-        OnAdded onAdded = onAddedEvents.get(entity);
-        if (onAdded == null) {
-            onAdded = new OnAdded(componentType);
-            onAddedEvents.put(entity, onAdded);
-        } else {
-            onAdded.getComponentTypes().add(componentType);
-        }
-
-        // If the component was previously removed, then remove it and add componentChanged instead
-        OnRemoved onRemoved = onRemovedEvents.get(entity);
-        if (onRemoved != null) {
-            if (onRemoved.getComponentTypes().remove(componentType)) {
-                componentChanged(entity, componentType);
-            }
-        }
+        componentAdded(entity.getId(), entity, componentType, null);
     }
 
     /**
@@ -81,13 +113,7 @@ public <T extends Component<T>> void componentAdded(EntityRef entity, Class<T> c
      * @param <T> The type of component that was modified
      */
     public <T extends Component<T>> void componentChanged(EntityRef entity, Class<T> componentType) {
-        OnChanged onChanged = onChangedEvents.get(entity);
-        if (onChanged == null) {
-            onChanged = new OnChanged(componentType);
-            onChangedEvents.put(entity, onChanged);
-        } else {
-            onChanged.getComponentTypes().add(componentType);
-        }
+        componentChanged(entity.getId(), entity, componentType, null);
     }
 
     /**
@@ -97,22 +123,70 @@ public <T extends Component<T>> void componentChanged(EntityRef entity, Class<T>
      * @param <T> The type of component that was removed
      */
     public <T extends Component<T>> void componentRemoved(EntityRef entity, T component) {
-        OnRemoved onRemoved = onRemovedEvents.get(entity);
-        if (onRemoved == null) {
-            onRemoved = new OnRemoved(component);
-            onRemovedEvents.put(entity, onRemoved);
-        } else {
-            onRemoved.getComponents().put(component);
+        componentRemoved(entity.getId(), entity, component, null);
+    }
+
+    /**
+     * Records that a component has been added. Either the entity or a function to look it up must be provided.
+     */
+    void componentAdded(int entityId, EntityRef entity, Class<? extends Component> componentType, IntFunction<EntityRef> entityLookup) {
+        int typeIndex = indexOf(componentType);
+        EntityRef ref = resolve(entityId, entity, entityLookup);
+        lockFor(entityId, typeIndex);
+        try {
+            synchronized (stripes[entityId & (STRIPES - 1)]) {
+                touch(entityId, ref);
+                int word = entityId * words + (typeIndex >>> 6);
+                long bit = 1L << typeIndex;
+                added[word] |= bit;
+                // If the component was previously removed, then it has changed instead
+                if ((removed[word] & bit) != 0) {
+                    removed[word] &= ~bit;
+                    changed[word] |= bit;
+                    removedComponents.get(entityId).remove(componentType);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        OnAdded onAdded = onAddedEvents.get(entity);
-        if (onAdded != null) {
-            onAdded.getComponentTypes().remove(component.getClass());
+    /**
+     * Records that a component was modified. Either the entity or a function to look it up must be provided.
+     */
+    void componentChanged(int entityId, EntityRef entity, Class<? extends Component> componentType, IntFunction<EntityRef> entityLookup) {
+        int typeIndex = indexOf(componentType);
+        EntityRef ref = resolve(entityId, entity, entityLookup);
+        lockFor(entityId, typeIndex);
+        try {
+            synchronized (stripes[entityId & (STRIPES - 1)]) {
+                touch(entityId, ref);
+                changed[entityId * words + (typeIndex >>> 6)] |= 1L << typeIndex;
+            }
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        OnChanged onChanged = onChangedEvents.get(entity);
-        if (onChanged != null) {
-            onChanged.getComponentTypes().remove(component.getClass());
+    /**
+     * Records that a component was removed. Either the entity or a function to look it up must be provided.
+     */
+    void componentRemoved(int entityId, EntityRef entity, Component component, IntFunction<EntityRef> entityLookup) {
+        int typeIndex = indexOf(component.getClass());
+        EntityRef ref = resolve(entityId, entity, entityLookup);
+        lockFor(entityId, typeIndex);
+        try {
+            synchronized (stripes[entityId & (STRIPES - 1)]) {
+                touch(entityId, ref);
+                int word = entityId * words + (typeIndex >>> 6);
+                long bit = 1L << typeIndex;
+                removed[word] |= bit;
+                added[word] &= ~bit;
+                changed[word] &= ~bit;
+                removedComponents.computeIfAbsent(entityId, id -> new TypeKeyedMap<>()).put(component);
+            }
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
@@ -121,19 +195,177 @@ public <T extends Component<T>> void componentRemoved(EntityRef entity, T compon
      * @param eventSystem The event system to send the events to
      */
     public void sendPendingEvents(EventSystem eventSystem) {
-        sendEvents(eventSystem, onAddedEvents);
-        sendEvents(eventSystem, onChangedEvents);
-        sendEvents(eventSystem, onRemovedEvents);
+        List<PendingEvent> onAdded = new ArrayList<>();
+        List<PendingEvent> onChanged = new ArrayList<>();
+        List<PendingEvent> onRemoved = new ArrayList<>();
+
+        lock.writeLock().lock();
+        try {
+            drain(displacedAdded, onAdded);
+            drain(displacedChanged, onChanged);
+            drain(displacedRemoved, onRemoved);
+            for (int i = 0; i < dirtyEntities.size(); i++) {
+                collect(dirtyEntities.get(i), onAdded, onChanged, onRemoved);
+            }
+            dirtyEntities.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Events are sent outside of the lock as handlers may call back into this manager
+        onAdded.forEach(pending -> pending.send(eventSystem));
+        onChanged.forEach(pending -> pending.send(eventSystem));
+        onRemoved.forEach(pending -> pending.send(eventSystem));
+    }
+
+    private void drain(Queue<PendingEvent> from, List<PendingEvent> to) {
+        PendingEvent event;
+        while ((event = from.poll()) != null) {
+            to.add(event);
+        }
+    }
+
+    /**
+     * Creates the events for the pending changes of an entity id, and clears them. Must be called holding either the
+     * write lock, or the read lock and the entity's stripe.
+     */
+    private void collect(int entityId, Collection<PendingEvent> onAdded, Collection<PendingEvent> onChanged, Collection<PendingEvent> onRemoved) {
+        EntityRef entity = entities[entityId];
+        int start = entityId * words;
+        if (any(added, start)) {
+            onAdded.add(new PendingEvent(entity, new OnAdded(typesOf(added, start))));
+        }
+        if (any(changed, start)) {
+            onChanged.add(new PendingEvent(entity, new OnChanged(typesOf(changed, start))));
+        }
+        TypeKeyedMap<Component> removedFromEntity = removedComponents.remove(entityId);
+        if (removedFromEntity != null && !removedFromEntity.isEmpty()) {
+            onRemoved.add(new PendingEvent(entity, new OnRemoved(removedFromEntity)));
+        }
+        Arrays.fill(added, start, start + words, 0);
+        Arrays.fill(changed, start, start + words, 0);
+        Arrays.fill(removed, start, start + words, 0);
+        entities[entityId] = null;
     }
 
-    private void sendEvents(EventSystem eventSystem, Map<EntityRef, ? extends LifecycleEvent> events) {
-        events.forEach((ref, event) -> {
-            if (!event.getComponentTypes().isEmpty()) {
-                eventSystem.send(event, ref, event.getComponentTypes());
+    /**
+     * Looks up the entity if it is not provided. This is done before taking any locks, as looking up the entity may need
+     * to wait on the entity manager, which may itself be waiting to record a change.
+     */
+    private EntityRef resolve(int entityId, EntityRef entity, IntFunction<EntityRef> entityLookup) {
+        return (entity != null) ? entity : entityLookup.apply(entityId);
+    }
+
+    /**
+     * Marks the entity as having pending events, if it is not already. If the id has pending events for a different
+     * entity - one that has since been deleted, and its id reused - those events are set aside first. Must be called
+     * holding the read lock and the entity's stripe.
+     */
+    private void touch(int entityId, EntityRef entity) {
+        EntityRef current = entities[entityId];
+        if (current == null) {
+            entities[entityId] = entity;
+            synchronized (dirtyEntities) {
+                dirtyEntities.add(entityId);
+            }
+        } else if (!current.equals(entity)) {
+            collect(entityId, displacedAdded, displacedChanged, displacedRemoved);
+            // The id remains in the dirty list
+            entities[entityId] = entity;
+        }
+    }
+
+    private boolean any(long[] masks, int start) {
+        for (int i = start; i < start + words; i++) {
+            if (masks[i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Class<? extends Component>> typesOf(long[] masks, int start) {
+        List<Class<? extends Component>> result = new ArrayList<>(Long.bitCount(masks[start]));
+        for (int word = 0; word < words; word++) {
+            long mask = masks[start + word];
+            while (mask != 0) {
+                int bit = Long.numberOfTrailingZeros(mask);
+                result.add(types.get(word * 64 + bit));
+                mask &= mask - 1;
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(Class<? extends Component> componentType) {
+        Integer index = typeIndices.get(componentType);
+        if (index == null) {
+            synchronized (types) {
+                index = typeIndices.get(componentType);
+                if (index == null) {
+                    index = types.size();
+                    types.add(componentType);
+                    typeIndices.put(componentType, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Acquires the read lock, first growing the arrays if they cannot hold the given entity and component type
+     */
+    private void lockFor(int entityId, int typeIndex) {
+        lock.readLock().lock();
+        while (entityId >= entities.length || typeIndex >= words * 64) {
+            lock.readLock().unlock();
+            grow(entityId, typeIndex);
+            lock.readLock().lock();
+        }
+    }
+
+    private void grow(int entityId, int typeIndex) {
+        lock.writeLock().lock();
+        try {
+            int newWords = Math.max(words, (typeIndex >>> 6) + 1);
+            int newCapacity = (entityId >= entities.length) ? Math.max(entityId + 1, entities.length * 2) : entities.length;
+            if (newWords != words || newCapacity != entities.length) {
+                added = resize(added, newCapacity, newWords);
+                changed = resize(changed, newCapacity, newWords);
+                removed = resize(removed, newCapacity, newWords);
+                entities = Arrays.copyOf(entities, newCapacity);
+                words = newWords;
             }
-        });
-        events.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
+    private long[] resize(long[] masks, int newCapacity, int newWords) {
+        if (newWords == words) {
+            return Arrays.copyOf(masks, newCapacity * newWords);
+        }
+        long[] result = new long[newCapacity * newWords];
+        for (int entity = 0; entity < entities.length; entity++) {
+            System.arraycopy(masks, entity * words, result, entity * newWords, words);
+        }
+        return result;
+    }
+
+    /**
+     * A lifecycle event ready to send, along with the entity to send it to
+     */
+    private static final class PendingEvent {
+        private final EntityRef entity;
+        private final LifecycleEvent event;
 
+        PendingEvent(EntityRef entity, LifecycleEvent event) {
+            this.entity = entity;
+            this.event = event;
+        }
+
+        void send(EventSystem eventSystem) {
+            eventSystem.send(event, entity, event.getComponentTypes());
+        }
+    }
 }
@@ -0,0 +1,55 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event.metrics;
+
+import org.terasology.gestalt.entitysystem.event.Event;
+
+/**
+ * A listener notified of the dispatch of events, for profiling the event system. Listeners may be notified from
+ * multiple threads at once, and are invoked on the hot path of event processing so should be cheap.
+ * <p>
+ * Event processing checks for {@link #NONE} before taking any measurements, so there is no overhead when metrics are
+ * not being gathered.
+ */
+public interface EventMetricsListener {
+
+    /**
+     * A listener that ignores all notifications. This is the default for event systems.
+     */
+    EventMetricsListener NONE = new EventMetricsListener() {
+    };
+
+    /**
+     * Called after an event has been processed against an entity.
+     *
+     * @param eventClass         The class of the event
+     * @param registeredHandlers The number of handlers registered for the event
+     * @param validHandlers      The number of those handlers that were valid to invoke for the entity, with the rest
+     *                           filtered out by the components of the entity
+     * @param invokedHandlers    The number of handlers actually invoked. This may be less than validHandlers if a handler
+     *                           completed or cancelled the event.
+     * @param durationNanos      The time taken to process the event, in nanoseconds
+     */
+    default void onEventProcessed(Class<? extends Event> eventClass, int registeredHandlers, int validHandlers, int invokedHandlers, long durationNanos) {
+    }
+
+    /**
+     * Called after an event handler has been invoked.
+     *
+     * @param eventClass    The class of the event
+     * @param provider      The class that provided the event handler
+     * @param durationNanos The time taken by the handler, in nanoseconds. This includes any time spent waiting to
+     *                      invoke a handler that is not thread safe.
+     */
+    default void onHandlerInvoked(Class<? extends Event> eventClass, Class<?> provider, long durationNanos) {
+    }
+
+    /**
+     * Called each time the pending events of an event system are drained for processing.
+     *
+     * @param queueDepth The number of pending events drained
+     */
+    default void onPendingEventsDrained(int queueDepth) {
+    }
+}
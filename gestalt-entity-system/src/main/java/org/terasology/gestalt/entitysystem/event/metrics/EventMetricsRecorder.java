@@ -0,0 +1,119 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event.metrics;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.terasology.gestalt.entitysystem.event.Event;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An EventMetricsListener that aggregates the metrics it is notified of: counts and latency for each class of event
+ * and each handler provider, how many handlers were filtered out versus invoked, and the depth of the pending event
+ * queue. The aggregated metrics can be polled with {@link #snapshot()}.
+ * <pre>
+ *     EventMetricsRecorder recorder = new EventMetricsRecorder();
+ *     eventSystem.setMetricsListener(recorder);
+ *     ...
+ *     logger.info(recorder.snapshot().dump());
+ * </pre>
+ */
+@ThreadSafe
+public class EventMetricsRecorder implements EventMetricsListener {
+
+    private final Map<Class<? extends Event>, EventRecord> eventRecords = new ConcurrentHashMap<>();
+    private final Map<Class<?>, LatencyRecord> providerRecords = new ConcurrentHashMap<>();
+    private final LongAdder drains = new LongAdder();
+    private final LongAdder drainedEvents = new LongAdder();
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+
+    @Override
+    public void onEventProcessed(Class<? extends Event> eventClass, int registeredHandlers, int validHandlers, int invokedHandlers, long durationNanos) {
+        EventRecord record = eventRecords.computeIfAbsent(eventClass, k -> new EventRecord());
+        record.latency.record(durationNanos);
+        record.registeredHandlers.add(registeredHandlers);
+        record.validHandlers.add(validHandlers);
+        record.invokedHandlers.add(invokedHandlers);
+    }
+
+    @Override
+    public void onHandlerInvoked(Class<? extends Event> eventClass, Class<?> provider, long durationNanos) {
+        providerRecords.computeIfAbsent(provider, k -> new LatencyRecord()).record(durationNanos);
+    }
+
+    @Override
+    public void onPendingEventsDrained(int queueDepth) {
+        drains.increment();
+        drainedEvents.add(queueDepth);
+        maxQueueDepth.accumulate(queueDepth);
+    }
+
+    /**
+     * @return A copy of the metrics recorded so far. Metrics recorded concurrently with taking the snapshot may be
+     * partially included.
+     */
+    public EventMetricsSnapshot snapshot() {
+        Map<Class<? extends Event>, EventMetricsSnapshot.EventStatistics> eventStatistics = new LinkedHashMap<>();
+        eventRecords.forEach((eventClass, record) -> eventStatistics.put(eventClass, record.snapshot()));
+        Map<Class<?>, LatencyStatistics> providerStatistics = new LinkedHashMap<>();
+        providerRecords.forEach((provider, record) -> providerStatistics.put(provider, record.snapshot()));
+        return new EventMetricsSnapshot(eventStatistics, providerStatistics, drains.sum(), drainedEvents.sum(), (int) maxQueueDepth.get());
+    }
+
+    /**
+     * Discards all the metrics recorded so far
+     */
+    public void reset() {
+        eventRecords.clear();
+        providerRecords.clear();
+        drains.reset();
+        drainedEvents.reset();
+        maxQueueDepth.reset();
+    }
+
+    /**
+     * Accumulates the metrics of a class of event
+     */
+    private static final class EventRecord {
+        private final LatencyRecord latency = new LatencyRecord();
+        private final LongAdder registeredHandlers = new LongAdder();
+        private final LongAdder validHandlers = new LongAdder();
+        private final LongAdder invokedHandlers = new LongAdder();
+
+        EventMetricsSnapshot.EventStatistics snapshot() {
+            return new EventMetricsSnapshot.EventStatistics(latency.snapshot(), registeredHandlers.sum(), validHandlers.sum(), invokedHandlers.sum());
+        }
+    }
+
+    /**
+     * Accumulates measured durations into a histogram
+     */
+    private static final class LatencyRecord {
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(LatencyStatistics.BUCKETS);
+
+        void record(long nanos) {
+            total.add(nanos);
+            max.accumulate(nanos);
+            histogram.incrementAndGet(LatencyStatistics.bucketOf(nanos));
+        }
+
+        LatencyStatistics snapshot() {
+            long[] buckets = new long[histogram.length()];
+            long bucketCount = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = histogram.get(i);
+                bucketCount += buckets[i];
+            }
+            return new LatencyStatistics(bucketCount, total.sum(), max.get(), buckets);
+        }
+    }
+}
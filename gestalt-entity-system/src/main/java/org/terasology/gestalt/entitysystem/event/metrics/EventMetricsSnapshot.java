@@ -0,0 +1,151 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event.metrics;
+
+import com.google.common.collect.ImmutableMap;
+
+import net.jcip.annotations.Immutable;
+
+import org.terasology.gestalt.entitysystem.event.Event;
+
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * A point-in-time copy of the metrics gathered by an {@link EventMetricsRecorder}.
+ */
+@Immutable
+public final class EventMetricsSnapshot {
+
+    private final ImmutableMap<Class<? extends Event>, EventStatistics> eventStatistics;
+    private final ImmutableMap<Class<?>, LatencyStatistics> providerStatistics;
+    private final long drains;
+    private final long drainedEvents;
+    private final int maxQueueDepth;
+
+    EventMetricsSnapshot(Map<Class<? extends Event>, EventStatistics> eventStatistics, Map<Class<?>, LatencyStatistics> providerStatistics,
+                         long drains, long drainedEvents, int maxQueueDepth) {
+        this.eventStatistics = ImmutableMap.copyOf(eventStatistics);
+        this.providerStatistics = ImmutableMap.copyOf(providerStatistics);
+        this.drains = drains;
+        this.drainedEvents = drainedEvents;
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    /**
+     * @return Statistics for each class of event that has been processed
+     */
+    public ImmutableMap<Class<? extends Event>, EventStatistics> getEventStatistics() {
+        return eventStatistics;
+    }
+
+    /**
+     * @return The latency of the handlers of each handler provider that has had a handler invoked
+     */
+    public ImmutableMap<Class<?>, LatencyStatistics> getProviderStatistics() {
+        return providerStatistics;
+    }
+
+    /**
+     * @return The number of times pending events have been drained for processing
+     */
+    public long getQueueDrains() {
+        return drains;
+    }
+
+    /**
+     * @return The mean number of pending events per drain
+     */
+    public double getMeanQueueDepth() {
+        return (drains == 0) ? 0 : (double) drainedEvents / drains;
+    }
+
+    /**
+     * @return The largest number of pending events drained at once
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return A human readable report of the metrics, with the event classes and providers that took the most time first
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Pending events: drains=%d meanDepth=%.1f maxDepth=%d%n", drains, getMeanQueueDepth(), maxQueueDepth));
+        builder.append(String.format("Events:%n"));
+        eventStatistics.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> -entry.getValue().getLatency().getTotalNanos()))
+                .forEach(entry -> builder.append(String.format("  %s: %s%n", entry.getKey().getName(), entry.getValue())));
+        builder.append(String.format("Providers:%n"));
+        providerStatistics.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> -entry.getValue().getTotalNanos()))
+                .forEach(entry -> builder.append(String.format("  %s: %s%n", entry.getKey().getName(), entry.getValue())));
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return dump();
+    }
+
+    /**
+     * Statistics on the processing of a class of event
+     */
+    @Immutable
+    public static final class EventStatistics {
+        private final LatencyStatistics latency;
+        private final long registeredHandlers;
+        private final long validHandlers;
+        private final long invokedHandlers;
+
+        EventStatistics(LatencyStatistics latency, long registeredHandlers, long validHandlers, long invokedHandlers) {
+            this.latency = latency;
+            this.registeredHandlers = registeredHandlers;
+            this.validHandlers = validHandlers;
+            this.invokedHandlers = invokedHandlers;
+        }
+
+        /**
+         * @return The latency of processing an event against an entity
+         */
+        public LatencyStatistics getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return The total number of handlers registered, summed over each time the event was processed
+         */
+        public long getRegisteredHandlers() {
+            return registeredHandlers;
+        }
+
+        /**
+         * @return The total number of handlers that were valid to invoke, summed over each time the event was processed
+         */
+        public long getValidHandlers() {
+            return validHandlers;
+        }
+
+        /**
+         * @return The total number of handlers invoked, summed over each time the event was processed
+         */
+        public long getInvokedHandlers() {
+            return invokedHandlers;
+        }
+
+        /**
+         * @return The proportion of registered handlers that were filtered out due to the components of the target entity
+         */
+        public double getFilteredRatio() {
+            return (registeredHandlers == 0) ? 0 : (double) (registeredHandlers - validHandlers) / registeredHandlers;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s handlers(registered=%d valid=%d invoked=%d filtered=%.1f%%)", latency,
+                    registeredHandlers, validHandlers, invokedHandlers, getFilteredRatio() * 100);
+        }
+    }
+}
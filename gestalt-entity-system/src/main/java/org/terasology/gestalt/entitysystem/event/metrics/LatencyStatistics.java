@@ -0,0 +1,114 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event.metrics;
+
+import com.google.common.base.Preconditions;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics on a set of measured durations. Percentiles are computed from a histogram with four buckets per power of
+ * two, so are accurate to within 25%.
+ */
+@Immutable
+public final class LatencyStatistics {
+
+    static final int SUB_BUCKET_BITS = 2;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] histogram;
+
+    LatencyStatistics(long count, long totalNanos, long maxNanos, long[] histogram) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.histogram = histogram;
+    }
+
+    /**
+     * @param nanos A duration in nanoseconds
+     * @return The index of the histogram bucket the duration falls into
+     */
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @param bucket The index of a histogram bucket
+     * @return The largest duration that falls into the bucket
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (magnitude - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * @return The number of durations measured
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The sum of all the durations measured, in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return The longest duration measured, in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * @return The mean duration, in nanoseconds
+     */
+    public double getMeanNanos() {
+        return (count == 0) ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * @param percentile The percentile to calculate, between 0 and 100
+     * @return An upper bound on the given percentile of the durations, in nanoseconds
+     */
+    public long getPercentileNanos(double percentile) {
+        Preconditions.checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d total=%dms mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus", count, TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                getMeanNanos() / 1000.0, getPercentileNanos(50) / 1000.0, getPercentileNanos(99) / 1000.0, maxNanos / 1000.0);
+    }
+}
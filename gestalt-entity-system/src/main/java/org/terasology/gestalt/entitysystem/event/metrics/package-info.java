@@ -0,0 +1,7 @@
+/**
+ * Instrumentation for the event system. An {@link org.terasology.gestalt.entitysystem.event.metrics.EventMetricsListener}
+ * can be attached to an event system to observe event dispatch, and the
+ * {@link org.terasology.gestalt.entitysystem.event.metrics.EventMetricsRecorder} aggregates those observations into
+ * snapshots that can be polled.
+ */
+package org.terasology.gestalt.entitysystem.event.metrics;
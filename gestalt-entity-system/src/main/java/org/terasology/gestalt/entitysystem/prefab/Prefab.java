@@ -17,6 +17,7 @@
 package org.terasology.gestalt.entitysystem.prefab;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
 
 import org.terasology.gestalt.assets.Asset;
 import org.terasology.gestalt.assets.AssetType;
@@ -24,16 +25,21 @@
 import org.terasology.gestalt.assets.exceptions.InvalidAssetDataException;
 
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * A prefab is the template for generating one or more entities, that may reference each other.
  * Each prefab has a root entity recipe - this is the entity that will be returned when instantiating the prefab. Also, if one prefab references another in a EntityRef property,
  * that prefab will be instantiated and the reference linked to the root entity from that prefab when the referencing prefab is instantiated.
+ * <p>
+ * Entity managers may compile a prefab into a form that is faster to instantiate. The compiled forms are cached on the prefab
+ * against the entity manager that compiled them, and discarded whenever the prefab is reloaded.
  */
 public class Prefab extends Asset<PrefabData> {
 
     private ResourceUrn rootEntityId;
     private Map<ResourceUrn, EntityRecipe> recipes;
+    private volatile Map<Object, Object> compiledForms = new MapMaker().weakKeys().makeMap();
 
     /**
      * The constructor for an asset. It is suggested that implementing classes provide a constructor taking both the urn, and an initial AssetData to load.
@@ -56,6 +62,32 @@ protected void doReload(PrefabData data) {
         }
         this.rootEntityId = data.getRootEntityId();
         this.recipes = ImmutableMap.copyOf(data.getRecipes());
+        // Replaced rather than cleared, so a form compiled concurrently from the old recipes is not cached afterwards
+        compiledForms = new MapMaker().weakKeys().makeMap();
+    }
+
+    /**
+     * Obtains a compiled form of this prefab, compiling it if there is no compiled form cached for the owner. The cache
+     * holds owners weakly, so compiled forms should not reference their owner.
+     *
+     * @param owner    The owner of the compiled form, such as an entity manager
+     * @param compiler The function to compile this prefab, if needed
+     * @param <T>      The type of the compiled form
+     * @return The compiled form of this prefab for the owner
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getCompiledForm(Object owner, Function<? super Prefab, ? extends T> compiler) {
+        // Read the cache before compiling - it is published after the recipes it is for
+        Map<Object, Object> forms = compiledForms;
+        Object result = forms.get(owner);
+        if (result == null) {
+            result = compiler.apply(this);
+            Object existing = forms.putIfAbsent(owner, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return (T) result;
     }
 
     /**
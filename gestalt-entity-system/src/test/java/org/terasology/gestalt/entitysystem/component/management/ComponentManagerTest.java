@@ -43,11 +43,18 @@ public abstract class ComponentManagerTest {
 
     @Before
     public void before() {
-        componentManager = new ComponentManager(getComponentTypeFactory());
+        componentManager = createComponentManager();
     }
 
     public abstract ComponentTypeFactory getComponentTypeFactory();
 
+    /**
+     * @return The component manager to test. By default this uses only the component type factory, ignoring any generated descriptors.
+     */
+    protected ComponentManager createComponentManager() {
+        return new ComponentManager(getComponentTypeFactory(), false);
+    }
+
     @Test
     public void constructComponent() {
         BasicComponent instance = componentManager.create(BasicComponent.class);
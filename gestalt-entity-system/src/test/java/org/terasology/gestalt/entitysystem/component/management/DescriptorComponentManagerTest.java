@@ -0,0 +1,54 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.management;
+
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import modules.test.components.ArrayContainingComponent;
+import modules.test.components.PrimitiveComponent;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the component types of the descriptors generated at compile time. The factory fails for every component, so
+ * every component type must come from a descriptor.
+ */
+public class DescriptorComponentManagerTest extends ComponentManagerTest {
+
+    public ComponentTypeFactory getComponentTypeFactory() {
+        return new ComponentTypeFactory() {
+            @Override
+            public <T extends Component<T>> ComponentType<T> createComponentType(Class<T> type) {
+                throw new ComponentTypeGenerationException("No descriptor for " + type);
+            }
+        };
+    }
+
+    @Override
+    protected ComponentManager createComponentManager() {
+        return new ComponentManager(getComponentTypeFactory());
+    }
+
+    @Test
+    public void genericPropertyType() throws Exception {
+        ComponentType<ArrayContainingComponent> type = createComponentManager().getType(ArrayContainingComponent.class);
+        PropertyAccessor<ArrayContainingComponent, ?> property = type.getPropertyInfo().getProperty("strings").get();
+        assertEquals(ArrayContainingComponent.class.getField("strings").getGenericType(), property.getPropertyType());
+        assertEquals(property.getPropertyType(), ArrayContainingComponent.class.getField("strings").getGenericType());
+        assertEquals(ArrayContainingComponent.class.getField("strings").getGenericType().hashCode(), property.getPropertyType().hashCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void primitiveProperty() {
+        ComponentType<PrimitiveComponent> type = createComponentManager().getType(PrimitiveComponent.class);
+        PrimitiveComponent component = type.create();
+        PropertyAccessor<PrimitiveComponent, Object> property = (PropertyAccessor<PrimitiveComponent, Object>) type.getPropertyInfo().getProperty("count").get();
+        assertEquals(Integer.TYPE, property.getPropertyType());
+        property.set(component, 5);
+        assertEquals(5, component.getCount());
+        assertEquals(5, type.createCopy(component).getCount());
+    }
+}
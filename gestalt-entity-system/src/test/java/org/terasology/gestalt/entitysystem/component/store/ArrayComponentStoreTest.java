@@ -0,0 +1,41 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+
+import modules.test.components.PrimitiveComponent;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+public class ArrayComponentStoreTest extends ComponentStoreTest {
+
+    @Override
+    protected ComponentStore<PrimitiveComponent> createStore(ComponentType<PrimitiveComponent> type) {
+        return new ArrayComponentStore<>(type);
+    }
+
+    @Test
+    public void readProvidesStoredComponent() {
+        ArrayComponentStore<PrimitiveComponent> store = new ArrayComponentStore<>(new ComponentManager().getType(PrimitiveComponent.class));
+        store.set(1, new PrimitiveComponent());
+        PrimitiveComponent[] first = new PrimitiveComponent[1];
+        store.read(1, x -> first[0] = x);
+        store.read(1, x -> assertSame(first[0], x));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void modifyingReadComponentDetected() {
+        boolean assertionsEnabled = false;
+        assert assertionsEnabled = true;
+        assumeTrue(assertionsEnabled);
+
+        ArrayComponentStore<PrimitiveComponent> store = new ArrayComponentStore<>(new ComponentManager().getType(PrimitiveComponent.class));
+        store.set(1, new PrimitiveComponent());
+        store.read(1, x -> x.setCount(5));
+    }
+}
@@ -0,0 +1,111 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.ComponentIterator;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import modules.test.components.PrimitiveComponent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChangeTrackingComponentStoreTest extends ComponentStoreTest {
+
+    private ComponentType<PrimitiveComponent> type = new ComponentManager().getType(PrimitiveComponent.class);
+
+    @Override
+    protected ComponentStore<PrimitiveComponent> createStore(ComponentType<PrimitiveComponent> componentType) {
+        return new ChangeTrackingComponentStore<>(new ArrayComponentStore<>(componentType));
+    }
+
+    @Test
+    public void settingEqualComponentIsNotAChange() {
+        ChangeTrackingComponentStore<PrimitiveComponent> store = new ChangeTrackingComponentStore<>(new ArrayComponentStore<>(type));
+        PrimitiveComponent component = new PrimitiveComponent();
+        component.setCount(1);
+        store.set(1, component);
+        long tick = store.getCurrentTick();
+        assertEquals(tick, store.getChangeTick(1));
+
+        store.set(1, new PrimitiveComponent(component));
+        assertEquals(tick, store.getCurrentTick());
+        assertFalse(store.hasChangedSince(1, tick));
+
+        component.setCount(2);
+        store.set(1, component);
+        assertTrue(store.hasChangedSince(1, tick));
+    }
+
+    @Test
+    public void filterToChangedSince() {
+        ChangeTrackingComponentStore<PrimitiveComponent> store = new ChangeTrackingComponentStore<>(new SparseComponentStore<>(type));
+        PrimitiveComponent component = new PrimitiveComponent();
+        store.set(1, component);
+        store.set(2, component);
+        store.set(3, component);
+        long tick = store.getCurrentTick();
+
+        component.setCount(5);
+        store.set(3, component);
+        store.set(2000, component);
+        store.set(1, component);
+        store.remove(1);
+
+        assertEquals(Arrays.asList(3, 2000), changedIds(store.iterate().filter(store.changedSince(tick))));
+        assertEquals(Arrays.asList(2, 3, 2000), changedIds(store.iterate().filter(store.changedSince(0))));
+        assertTrue(changedIds(store.iterate().filter(store.changedSince(store.getCurrentTick()))).isEmpty());
+    }
+
+    @Test
+    public void removedSince() {
+        ChangeTrackingComponentStore<PrimitiveComponent> store = new ChangeTrackingComponentStore<>(new ArrayComponentStore<>(type));
+        PrimitiveComponent component = new PrimitiveComponent();
+        store.set(1, component);
+        store.set(2, component);
+        store.set(3, component);
+        store.remove(1);
+        long tick = store.getCurrentTick();
+
+        store.remove(2);
+        store.remove(3);
+        store.set(3, component);
+
+        List<Integer> removed = new ArrayList<>();
+        store.forEachRemovedSince(tick, removed::add);
+        assertEquals(Arrays.asList(2), removed);
+    }
+
+    @Test
+    public void trackPropertyChanges() {
+        ChangeTrackingComponentStore<PrimitiveComponent> store = new ChangeTrackingComponentStore<>(new ArrayComponentStore<>(type), true);
+        PrimitiveComponent component = new PrimitiveComponent();
+        store.set(1, component);
+        long added = store.getCurrentTick();
+
+        component.setSpeed(2.5f);
+        store.set(1, component);
+
+        assertEquals(added, store.getPropertyChangeTick(1, "count"));
+        assertEquals(store.getCurrentTick(), store.getPropertyChangeTick(1, "speed"));
+        assertEquals(store.getCurrentTick(), store.getChangeTick(1));
+    }
+
+    private List<Integer> changedIds(ComponentIterator<PrimitiveComponent> iterator) {
+        List<Integer> ids = new ArrayList<>();
+        while (iterator.next()) {
+            ids.add(iterator.getEntityId());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+}
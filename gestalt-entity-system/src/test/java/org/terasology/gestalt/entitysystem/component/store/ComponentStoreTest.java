@@ -0,0 +1,148 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.ComponentIterator;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import modules.test.components.PrimitiveComponent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Core tests showing correct behaviour for any ComponentStore implementation.
+ */
+public abstract class ComponentStoreTest {
+
+    private ComponentStore<PrimitiveComponent> store;
+    private PrimitiveComponent component;
+
+    @Before
+    public void setup() {
+        ComponentManager componentManager = new ComponentManager();
+        store = createStore(componentManager.getType(PrimitiveComponent.class));
+        store.extend(16);
+        component = new PrimitiveComponent();
+        component.setCount(3);
+        component.setTimestamp(1234567890123L);
+        component.setSpeed(1.5f);
+        component.setWeight(2.25);
+        component.setActive(true);
+    }
+
+    protected abstract ComponentStore<PrimitiveComponent> createStore(ComponentType<PrimitiveComponent> type);
+
+    @Test
+    public void setAndGetComponent() {
+        assertTrue(store.set(1, component));
+        assertTrue(store.has(1));
+        PrimitiveComponent retrieved = new PrimitiveComponent();
+        assertTrue(store.get(1, retrieved));
+        assertEquals(component, retrieved);
+    }
+
+    @Test
+    public void getMissingComponent() {
+        assertFalse(store.has(2));
+        assertFalse(store.get(2, new PrimitiveComponent()));
+    }
+
+    @Test
+    public void updateComponent() {
+        store.set(1, component);
+        component.setCount(7);
+        assertFalse(store.set(1, component));
+        PrimitiveComponent retrieved = new PrimitiveComponent();
+        store.get(1, retrieved);
+        assertEquals(7, retrieved.getCount());
+    }
+
+    @Test
+    public void storedComponentUnaffectedByChangesToOriginal() {
+        store.set(1, component);
+        component.setCount(7);
+        PrimitiveComponent retrieved = new PrimitiveComponent();
+        store.get(1, retrieved);
+        assertEquals(3, retrieved.getCount());
+    }
+
+    @Test
+    public void removeComponent() {
+        store.set(1, component);
+        assertEquals(component, store.remove(1));
+        assertFalse(store.has(1));
+        assertNull(store.remove(1));
+    }
+
+    @Test
+    public void extendRetainsComponents() {
+        store.set(15, component);
+        store.extend(5000);
+        store.set(4999, component);
+        PrimitiveComponent retrieved = new PrimitiveComponent();
+        assertTrue(store.get(15, retrieved));
+        assertEquals(component, retrieved);
+        assertTrue(store.has(4999));
+    }
+
+    @Test
+    public void iterateComponents() {
+        store.set(2, component);
+        component.setCount(5);
+        store.set(9, component);
+
+        List<Integer> ids = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        PrimitiveComponent retrieved = new PrimitiveComponent();
+        ComponentIterator<PrimitiveComponent> iterator = store.iterate();
+        while (iterator.next()) {
+            ids.add(iterator.getEntityId());
+            iterator.getComponent(retrieved);
+            counts.add(retrieved.getCount());
+        }
+        assertEquals(2, ids.size());
+        assertTrue(ids.indexOf(2) >= 0 && ids.indexOf(9) >= 0);
+        assertEquals(3, (int) counts.get(ids.indexOf(2)));
+        assertEquals(5, (int) counts.get(ids.indexOf(9)));
+    }
+
+    @Test
+    public void readComponent() {
+        store.set(1, component);
+        List<PrimitiveComponent> read = new ArrayList<>();
+        assertTrue(store.read(1, read::add));
+        assertEquals(Collections.singletonList(component), read);
+    }
+
+    @Test
+    public void readMissingComponent() {
+        assertFalse(store.read(1, x -> fail("Reader should not be called")));
+    }
+
+    @Test
+    public void readComponentsWhileIterating() {
+        store.set(2, component);
+        store.set(9, component);
+
+        List<PrimitiveComponent> read = new ArrayList<>();
+        PrimitiveComponent view = new PrimitiveComponent();
+        ComponentIterator<PrimitiveComponent> iterator = store.iterate();
+        while (iterator.next()) {
+            iterator.read(view, x -> read.add(new PrimitiveComponent(x)));
+        }
+        assertEquals(Arrays.asList(component, component), read);
+    }
+}
@@ -0,0 +1,34 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+
+import modules.test.components.PrimitiveComponent;
+import modules.test.components.Sample;
+
+public class OffHeapComponentStoreTest extends ComponentStoreTest {
+
+    @Override
+    protected ComponentStore<PrimitiveComponent> createStore(ComponentType<PrimitiveComponent> type) {
+        return new OffHeapComponentStore<>(type);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsComponentsWithObjectProperties() {
+        new OffHeapComponentStore<>(new ComponentManager().getType(Sample.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCapacityTooLargeForBuffer() {
+        new OffHeapComponentStore<>(new ComponentManager().getType(PrimitiveComponent.class), Integer.MAX_VALUE / 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsExtendingBeyondBuffer() {
+        new OffHeapComponentStore<>(new ComponentManager().getType(PrimitiveComponent.class)).extend(Integer.MAX_VALUE);
+    }
+}
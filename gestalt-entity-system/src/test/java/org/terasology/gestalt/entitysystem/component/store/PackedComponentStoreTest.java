@@ -0,0 +1,36 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+
+import modules.test.components.Empty;
+import modules.test.components.PrimitiveComponent;
+import modules.test.components.Sample;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PackedComponentStoreTest extends ComponentStoreTest {
+
+    @Override
+    protected ComponentStore<PrimitiveComponent> createStore(ComponentType<PrimitiveComponent> type) {
+        return new PackedComponentStore<>(type);
+    }
+
+    @Test
+    public void supportsPrimitiveAndEmptyComponents() {
+        ComponentManager componentManager = new ComponentManager();
+        assertTrue(PackedComponentStore.isSupported(componentManager.getType(PrimitiveComponent.class)));
+        assertTrue(PackedComponentStore.isSupported(componentManager.getType(Empty.class)));
+        assertFalse(PackedComponentStore.isSupported(componentManager.getType(Sample.class)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsComponentsWithObjectProperties() {
+        new PackedComponentStore<>(new ComponentManager().getType(Sample.class));
+    }
+}
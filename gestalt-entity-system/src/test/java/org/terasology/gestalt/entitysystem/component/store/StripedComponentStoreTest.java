@@ -0,0 +1,69 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import modules.test.components.PrimitiveComponent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StripedComponentStoreTest extends ComponentStoreTest {
+
+    @Override
+    protected ComponentStore<PrimitiveComponent> createStore(ComponentType<PrimitiveComponent> type) {
+        return new StripedComponentStore<>(type);
+    }
+
+    @Test
+    public void concurrentReadsSeeConsistentComponents() throws Exception {
+        StripedComponentStore<PrimitiveComponent> store = new StripedComponentStore<>(new ComponentManager().getType(PrimitiveComponent.class), 64, 4);
+        PrimitiveComponent initial = new PrimitiveComponent();
+        for (int i = 0; i < 64; i++) {
+            store.set(i, initial);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                PrimitiveComponent component = new PrimitiveComponent();
+                for (int i = 0; i < 100000; i++) {
+                    component.setCount(i);
+                    component.setTimestamp(i);
+                    store.set(i % 64, component);
+                    if (i % 1000 == 0) {
+                        store.extend(64 + i / 1000);
+                    }
+                }
+            });
+            Future<?>[] readers = new Future<?>[3];
+            for (int r = 0; r < readers.length; r++) {
+                readers[r] = executor.submit(() -> {
+                    PrimitiveComponent component = new PrimitiveComponent();
+                    while (!writer.isDone()) {
+                        for (int i = 0; i < 64; i++) {
+                            assertTrue(store.get(i, component));
+                            assertEquals(component.getCount(), component.getTimestamp());
+                        }
+                    }
+                });
+            }
+            writer.get();
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
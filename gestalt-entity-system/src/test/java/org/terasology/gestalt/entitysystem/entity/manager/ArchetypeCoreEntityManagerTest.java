@@ -0,0 +1,104 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.entity.EntityIterator;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+
+import java.util.List;
+import java.util.Set;
+
+import modules.test.components.Sample;
+import modules.test.components.Second;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the CoreEntityManager tests with archetype storage enabled
+ */
+public class ArchetypeCoreEntityManagerTest extends CoreEntityManagerTest {
+
+    @Before
+    public void enableArchetypes() {
+        entityManager.setArchetypeStorageEnabled(true);
+    }
+
+    @Test
+    public void enableWithExistingEntities() {
+        entityManager.setArchetypeStorageEnabled(false);
+        EntityRef entity = entityManager.createEntity(new Sample(), new Second());
+        entityManager.createEntity(new Sample());
+        entityManager.setArchetypeStorageEnabled(true);
+
+        Set<EntityRef> result = Sets.newHashSet();
+        EntityIterator iterator = entityManager.iterate(new Sample(), new Second());
+        while (iterator.next()) {
+            result.add(iterator.getEntity());
+        }
+        assertEquals(Sets.newHashSet(entity), result);
+    }
+
+    @Test
+    public void changesWhileDisabledIncludedWhenReenabled() {
+        EntityRef entity = entityManager.createEntity(new Sample(), new Second());
+        EntityRef changed = entityManager.createEntity(new Sample(), new Second());
+        entityManager.setArchetypeStorageEnabled(false);
+        changed.removeComponent(Second.class);
+        EntityRef created = entityManager.createEntity(new Sample(), new Second());
+        entityManager.setArchetypeStorageEnabled(true);
+
+        assertEquals(Sets.newHashSet(entity, created), iterate(new Sample(), new Second()));
+    }
+
+    @Test
+    public void addedArchetypesIncludedInRepeatedQueries() {
+        EntityIterator iterator = entityManager.iterate(new Sample(), new Second());
+        assertFalse(iterator.next());
+        entityManager.createEntity(new Sample(), new Second());
+        iterator = entityManager.iterate(new Sample(), new Second());
+        assertTrue(iterator.next());
+    }
+
+    @Test
+    public void deleteEntitiesDuringIteration() {
+        for (int i = 0; i < 10; i++) {
+            entityManager.createEntity(new Sample(), new Second());
+        }
+        int count = 0;
+        EntityIterator iterator = entityManager.iterate(new Sample(), new Second());
+        while (iterator.next()) {
+            iterator.getEntity().delete();
+            count++;
+        }
+        assertEquals(10, count);
+        assertTrue(iterate(new Sample(), new Second()).isEmpty());
+    }
+
+    @Test
+    public void deleteOtherEntityDuringIteration() {
+        List<EntityRef> entities = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            entities.add(entityManager.createEntity(new Sample(), new Second()));
+        }
+        List<EntityRef> visited = Lists.newArrayList();
+        EntityIterator iterator = entityManager.iterate(new Sample(), new Second());
+        while (iterator.next()) {
+            EntityRef entity = iterator.getEntity();
+            if (visited.isEmpty()) {
+                EntityRef other = entities.get(entities.get(0).equals(entity) ? 1 : 0);
+                other.delete();
+            }
+            visited.add(entity);
+        }
+        assertEquals(9, visited.size());
+        assertEquals(9, Sets.newHashSet(visited).size());
+    }
+}
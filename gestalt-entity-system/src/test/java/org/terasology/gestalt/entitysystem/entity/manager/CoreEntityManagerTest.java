@@ -0,0 +1,401 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.store.ArrayComponentStore;
+import org.terasology.gestalt.entitysystem.component.store.SparseComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityCommandBuffer;
+import org.terasology.gestalt.entitysystem.entity.EntityIterator;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.EntityView;
+import org.terasology.gestalt.entitysystem.entity.NullEntityRef;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import modules.test.components.Empty;
+import modules.test.components.Sample;
+import modules.test.components.Second;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CoreEntityManagerTest {
+
+    protected CoreEntityManager entityManager;
+
+    @Before
+    public void setup() {
+        ComponentManager componentManager = new ComponentManager();
+        entityManager = new CoreEntityManager(
+                new ArrayComponentStore<>(componentManager.getType(Sample.class)),
+                new SparseComponentStore<>(componentManager.getType(Second.class)),
+                new ArrayComponentStore<>(componentManager.getType(Empty.class)));
+    }
+
+    protected Set<EntityRef> iterate(Sample sample, Second second) {
+        Set<EntityRef> result = Sets.newHashSet();
+        EntityIterator iterator = entityManager.iterate(sample, second);
+        while (iterator.next()) {
+            result.add(iterator.getEntity());
+        }
+        return result;
+    }
+
+    @Test
+    public void iterateEntitiesWithAllComponents() {
+        Sample sample = new Sample();
+        sample.setName("Fred");
+        EntityRef both = entityManager.createEntity(sample, new Second());
+        entityManager.createEntity(new Sample());
+        entityManager.createEntity(new Second());
+        EntityRef bothAndMore = entityManager.createEntity(new Sample(), new Second(), new Empty());
+
+        assertEquals(Sets.newHashSet(both, bothAndMore), iterate(new Sample(), new Second()));
+    }
+
+    @Test
+    public void iterationRetrievesComponents() {
+        Sample sample = new Sample();
+        sample.setName("Fred");
+        Second second = new Second();
+        second.setName("Jerry");
+        entityManager.createEntity(sample, second);
+
+        Sample retrievedSample = new Sample();
+        Second retrievedSecond = new Second();
+        EntityIterator iterator = entityManager.iterate(retrievedSample, retrievedSecond);
+        assertTrue(iterator.next());
+        assertEquals("Fred", retrievedSample.getName());
+        assertEquals("Jerry", retrievedSecond.getName());
+        assertFalse(iterator.next());
+    }
+
+    @Test
+    public void readComponentWhileIterating() {
+        Sample sample = new Sample();
+        sample.setName("Fred");
+        entityManager.createEntity(sample, new Second());
+
+        List<String> names = new ArrayList<>();
+        EntityIterator iterator = entityManager.iterate(new Sample(), new Second());
+        assertTrue(iterator.next());
+        assertTrue(iterator.readComponent(Sample.class, x -> names.add(x.getName())));
+        assertFalse(iterator.readComponent(Empty.class, x -> names.add("Empty")));
+        assertEquals(Collections.singletonList("Fred"), names);
+    }
+
+    @Test
+    public void iterationReflectsRemovedComponents() {
+        EntityRef entity = entityManager.createEntity(new Sample(), new Second());
+        EntityRef other = entityManager.createEntity(new Sample(), new Second());
+        entity.removeComponent(Second.class);
+
+        assertEquals(Sets.newHashSet(other), iterate(new Sample(), new Second()));
+    }
+
+    @Test
+    public void iterationReflectsDeletedEntities() {
+        EntityRef entity = entityManager.createEntity(new Sample(), new Second());
+        EntityRef other = entityManager.createEntity(new Sample(), new Second());
+        entity.delete();
+
+        assertEquals(Sets.newHashSet(other), iterate(new Sample(), new Second()));
+    }
+
+    @Test
+    public void iterateAfterStorageExtended() {
+        for (int i = 0; i < 2000; i++) {
+            entityManager.createEntity(new Sample(), new Second());
+        }
+        assertEquals(2000, iterate(new Sample(), new Second()).size());
+    }
+
+    @Test
+    public void setComponentThroughStore() {
+        EntityRef entity = entityManager.createEntity(new Sample());
+        entityManager.getComponentStore(Second.class).set(entity.getId(), new Second());
+        assertEquals(Sets.newHashSet(entity), iterate(new Sample(), new Second()));
+    }
+
+    private Set<EntityRef> iterate(EntityView view) {
+        Set<EntityRef> result = Sets.newHashSet();
+        EntityIterator iterator = view.iterate(new Sample(), new Second());
+        while (iterator.next()) {
+            result.add(iterator.getEntity());
+        }
+        return result;
+    }
+
+    @Test
+    public void viewContainsExistingEntities() {
+        EntityRef entity = entityManager.createEntity(new Sample(), new Second());
+        entityManager.createEntity(new Sample());
+        try (EntityView view = entityManager.createView(Sample.class, Second.class)) {
+            assertEquals(1, view.size());
+            assertTrue(view.contains(entity));
+            assertEquals(Sets.newHashSet(entity), iterate(view));
+        }
+    }
+
+    @Test
+    public void viewUpdatedAsComponentsChange() {
+        try (EntityView view = entityManager.createView(Sample.class, Second.class)) {
+            EntityRef entity = entityManager.createEntity(new Sample());
+            assertFalse(view.contains(entity));
+            entity.setComponent(new Second());
+            assertTrue(view.contains(entity));
+            entity.removeComponent(Sample.class);
+            assertFalse(view.contains(entity));
+            entity.setComponent(new Sample());
+            entity.delete();
+            assertFalse(view.contains(entity));
+            assertEquals(0, view.size());
+        }
+    }
+
+    @Test
+    public void viewIterationRetrievesComponents() {
+        Sample sample = new Sample();
+        sample.setName("Fred");
+        entityManager.createEntity(sample, new Second());
+        try (EntityView view = entityManager.createView(Sample.class, Second.class)) {
+            Sample retrieved = new Sample();
+            EntityIterator iterator = view.iterate(retrieved);
+            assertTrue(iterator.next());
+            assertEquals("Fred", retrieved.getName());
+            assertFalse(iterator.next());
+        }
+    }
+
+    @Test
+    public void deleteEntitiesDuringViewIteration() {
+        for (int i = 0; i < 10; i++) {
+            entityManager.createEntity(new Sample(), new Second());
+        }
+        try (EntityView view = entityManager.createView(Sample.class, Second.class)) {
+            int count = 0;
+            EntityIterator iterator = view.iterate();
+            while (iterator.next()) {
+                iterator.getEntity().delete();
+                count++;
+            }
+            assertEquals(10, count);
+            assertEquals(0, view.size());
+        }
+    }
+
+    @Test
+    public void closedViewNoLongerUpdated() {
+        EntityView view = entityManager.createView(Sample.class);
+        view.close();
+        entityManager.createEntity(new Sample());
+        assertEquals(0, view.size());
+    }
+
+    @Test
+    public void forEachParallel() {
+        List<EntityRef> entities = Lists.newArrayList();
+        for (int i = 0; i < 5000; i++) {
+            Sample sample = new Sample();
+            sample.setName("Entity " + i);
+            entities.add(entityManager.createEntity(sample, new Second()));
+        }
+        entityManager.createEntity(new Sample());
+
+        AtomicInteger count = new AtomicInteger();
+        entityManager.forEachParallel((entity, components, commands) -> {
+            count.incrementAndGet();
+            Second second = components.get(Second.class);
+            second.setName(components.get(Sample.class).getName());
+            commands.setComponent(entity, second);
+        }, Sample.class, Second.class);
+
+        assertEquals(5000, count.get());
+        for (int i = 0; i < entities.size(); i++) {
+            assertEquals("Entity " + i, entities.get(i).getComponent(Second.class).get().getName());
+        }
+    }
+
+    @Test
+    public void forEachParallelOnlyVisitsEntitiesOfSmallestStore() {
+        for (int i = 0; i < 5000; i++) {
+            if (i % 500 == 0) {
+                entityManager.createEntity(new Sample(), new Second());
+            } else {
+                entityManager.createEntity(new Sample());
+            }
+        }
+
+        Set<Integer> processed = Sets.newConcurrentHashSet();
+        entityManager.forEachParallel((entity, components, commands) -> processed.add(entity.getId()), Sample.class, Second.class);
+
+        assertEquals(10, processed.size());
+        for (int id : processed) {
+            assertEquals(0, id % 500);
+        }
+    }
+
+    @Test
+    public void forEachParallelRemovingComponents() {
+        for (int i = 0; i < 1000; i++) {
+            entityManager.createEntity(new Sample(), new Second());
+        }
+        entityManager.forEachParallel((entity, components, commands) -> commands.removeComponent(entity, Second.class), Sample.class, Second.class);
+        assertTrue(iterate(new Sample(), new Second()).isEmpty());
+    }
+
+    @Test
+    public void applyCommandBuffer() {
+        EntityRef toDelete = entityManager.createEntity(new Sample());
+        EntityRef toChange = entityManager.createEntity(new Sample());
+        Sample sample = new Sample();
+        sample.setName("Fred");
+
+        EntityCommandBuffer commands = new EntityCommandBuffer(entityManager);
+        commands.createEntity(sample, new Second());
+        commands.delete(toDelete);
+        commands.setComponent(toChange, new Second());
+        commands.removeComponent(toChange, Sample.class);
+        sample.setName("Jerry");
+        assertTrue(toDelete.exists());
+        assertEquals(1, commands.getPendingCreations());
+
+        entityManager.apply(commands);
+        assertTrue(commands.isEmpty());
+        assertFalse(toDelete.exists());
+        assertTrue(toChange.hasComponent(Second.class));
+        assertFalse(toChange.hasComponent(Sample.class));
+        Set<EntityRef> created = iterate(new Sample(), new Second());
+        assertEquals(1, created.size());
+        assertEquals("Fred", created.iterator().next().getComponent(Sample.class).get().getName());
+    }
+
+    @Test
+    public void recordCommandsFromMultipleThreads() throws Exception {
+        EntityCommandBuffer commands = new EntityCommandBuffer(entityManager);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = Lists.newArrayList();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        commands.createEntity(new Sample(), new Second());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        entityManager.apply(commands);
+        assertEquals(4000, entityManager.size());
+        assertEquals(4000, iterate(new Sample(), new Second()).size());
+    }
+
+    @Test
+    public void changeComponentsFromMultipleThreads() throws Exception {
+        List<EntityRef> entities = Lists.newArrayList();
+        for (int i = 0; i < 400; i++) {
+            entities.add(entityManager.createEntity(new Sample()));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = Lists.newArrayList();
+            for (int i = 0; i < 4; i++) {
+                List<EntityRef> assigned = entities.subList(i * 100, (i + 1) * 100);
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        for (EntityRef entity : assigned) {
+                            if (entity.hasComponent(Empty.class)) {
+                                entity.removeComponent(Empty.class);
+                            } else {
+                                entity.setComponent(new Empty());
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (EntityRef entity : entities) {
+            assertEquals(Sets.newHashSet(Sample.class), entity.getComponentTypes());
+        }
+    }
+
+    @Test
+    public void readComponentFromEntity() {
+        Sample sample = new Sample();
+        sample.setName("Fred");
+        EntityRef entity = entityManager.createEntity(sample);
+        List<String> names = Lists.newArrayList();
+        assertTrue(entity.readComponent(Sample.class, x -> names.add(x.getName())));
+        assertFalse(entity.readComponent(Second.class, x -> names.add(x.getName())));
+        assertEquals(Lists.newArrayList("Fred"), names);
+    }
+
+    @Test
+    public void reusedIdsDoNotReviveDeletedEntities() {
+        EntityRef deleted = entityManager.createEntity(new Sample());
+        int id = deleted.getId();
+        deleted.delete();
+        assertEquals(NullEntityRef.get(), entityManager.getEntity(id));
+
+        EntityRef reused = entityManager.createEntity(new Second());
+        assertEquals(id, reused.getId());
+        assertTrue(reused.exists());
+        assertFalse(deleted.exists());
+        assertTrue(deleted.delete().isEmpty());
+        assertTrue(reused.exists());
+        assertEquals(reused, entityManager.getEntity(id));
+        assertEquals(1, entityManager.size());
+    }
+
+    @Test
+    public void componentTypesTrackChanges() {
+        EntityRef entity = entityManager.createEntity();
+        assertTrue(entity.getComponentTypes().isEmpty());
+        entity.setComponents(new Sample(), new Second());
+        assertEquals(Sets.newHashSet(Sample.class, Second.class), entity.getComponentTypes());
+        assertTrue(entity.hasComponent(Second.class));
+        entity.removeComponent(Second.class);
+        assertEquals(Sets.newHashSet(Sample.class), entity.getComponentTypes());
+        assertFalse(entity.hasComponent(Second.class));
+        entity.delete();
+        assertTrue(entity.getComponentTypes().isEmpty());
+        assertFalse(entity.hasComponent(Sample.class));
+    }
+
+    @Test
+    public void componentTypesAreSharedByEntitiesWithTheSameComponents() {
+        EntityRef entity = entityManager.createEntity(new Sample());
+        EntityRef other = entityManager.createEntity(new Sample());
+        assertSame(entity.getComponentTypes(), other.getComponentTypes());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void componentTypesCannotBeModified() {
+        entityManager.createEntity(new Sample()).getComponentTypes().add(Second.class);
+    }
+}
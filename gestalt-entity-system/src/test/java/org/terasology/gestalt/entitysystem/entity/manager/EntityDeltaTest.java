@@ -0,0 +1,189 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.store.ArrayComponentStore;
+import org.terasology.gestalt.entitysystem.component.store.SparseComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import modules.test.components.Reference;
+import modules.test.components.Sample;
+import modules.test.components.Second;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EntityDeltaTest {
+
+    private ComponentManager componentManager = new ComponentManager();
+    private CoreEntityManager leader;
+    private CoreEntityManager follower;
+    private EntityDeltaRecorder recorder;
+    private EntityDeltaApplier applier;
+
+    @Before
+    public void setup() {
+        leader = createEntityManager();
+        follower = createEntityManager();
+        recorder = new EntityDeltaRecorder(leader);
+        applier = new EntityDeltaApplier(follower);
+    }
+
+    private CoreEntityManager createEntityManager() {
+        return new CoreEntityManager(
+                new ArrayComponentStore<>(componentManager.getType(Sample.class)),
+                new SparseComponentStore<>(componentManager.getType(Second.class)),
+                new ArrayComponentStore<>(componentManager.getType(Reference.class)));
+    }
+
+    private byte[] full() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.writeFull(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private byte[] delta() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.writeDelta(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private void apply(byte[] delta) throws IOException {
+        applier.apply(Channels.newChannel(new ByteArrayInputStream(delta)));
+    }
+
+    private Sample sample(String name) {
+        Sample sample = new Sample();
+        sample.setName(name);
+        return sample;
+    }
+
+    private String followerName(EntityRef leaderEntity) {
+        return applier.getEntity(leaderEntity.getId()).getComponent(Sample.class).get().getName();
+    }
+
+    @Test
+    public void fullDeltaCopiesExistingEntities() throws IOException {
+        EntityRef first = leader.createEntity(sample("First"), new Second());
+        EntityRef second = leader.createEntity(sample("Second"));
+
+        apply(full());
+
+        assertEquals(2, follower.size());
+        assertEquals("First", followerName(first));
+        assertEquals("Second", followerName(second));
+        assertTrue(applier.getEntity(first.getId()).hasComponent(Second.class));
+        assertEquals(recorder.getCheckpoint(), applier.getCheckpoint());
+    }
+
+    @Test
+    public void deltaAppliesChanges() throws IOException {
+        EntityRef changed = leader.createEntity(sample("Before"), new Second());
+        EntityRef deleted = leader.createEntity(sample("Deleted"));
+        apply(full());
+
+        changed.setComponent(sample("After"));
+        changed.removeComponent(Second.class);
+        deleted.delete();
+        EntityRef created = leader.createEntity(sample("Created"));
+        apply(delta());
+
+        assertEquals(2, follower.size());
+        assertEquals("After", followerName(changed));
+        assertFalse(applier.getEntity(changed.getId()).hasComponent(Second.class));
+        assertEquals("Created", followerName(created));
+        assertEquals(1, applier.getCheckpoint());
+    }
+
+    @Test
+    public void deltaContainsOnlyChanges() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            leader.createEntity(sample("Entity " + i));
+        }
+        byte[] full = full();
+        apply(full);
+        apply(delta());
+        leader.getEntity(500).setComponent(sample("Changed"));
+
+        byte[] delta = delta();
+        apply(delta);
+
+        assertTrue(delta.length * 100 < full.length);
+        assertEquals("Changed", followerName(leader.getEntity(500)));
+        assertEquals("Entity 499", followerName(leader.getEntity(499)));
+    }
+
+    @Test
+    public void entityReferencesAreMappedToFollowerEntities() throws IOException {
+        follower.createEntity(sample("Follower's own entity"));
+        apply(full());
+
+        EntityRef target = leader.createEntity(sample("Target"));
+        Reference reference = new Reference();
+        reference.setReference(target);
+        EntityRef referencing = leader.createEntity(reference);
+        apply(delta());
+
+        EntityRef followerTarget = applier.getEntity(target.getId());
+        assertNotEquals(target.getId(), followerTarget.getId());
+        assertEquals(followerTarget, applier.getEntity(referencing.getId()).getComponent(Reference.class).get().getReference());
+    }
+
+    @Test
+    public void reusedIdIsRecreated() throws IOException {
+        EntityRef original = leader.createEntity(sample("Original"), new Second());
+        apply(full());
+
+        original.delete();
+        EntityRef replacement = leader.createEntity(sample("Replacement"));
+        assertEquals(original.getId(), replacement.getId());
+        apply(delta());
+
+        assertEquals(1, follower.size());
+        assertEquals("Replacement", followerName(replacement));
+        assertFalse(applier.getEntity(replacement.getId()).hasComponent(Second.class));
+    }
+
+    @Test
+    public void entitiesCreatedAndDeletedBetweenDeltasAreNotSent() throws IOException {
+        apply(full());
+        leader.createEntity(sample("Transient")).delete();
+        leader.createEntity(sample("Permanent"));
+        apply(delta());
+
+        assertEquals(1, follower.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void deltaMustFollowOnFromLastApplied() throws IOException {
+        apply(full());
+        delta();
+        apply(delta());
+    }
+
+    @Test(expected = IOException.class)
+    public void deltaRequiresFullFirst() throws IOException {
+        apply(delta());
+    }
+
+    @Test
+    public void closedRecorderStopsRecording() throws IOException {
+        recorder.close();
+        leader.createEntity(sample("Unrecorded"));
+        recorder = new EntityDeltaRecorder(leader);
+        apply(full());
+        apply(delta());
+        assertEquals(1, follower.size());
+    }
+}
@@ -0,0 +1,202 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.store.ArrayComponentStore;
+import org.terasology.gestalt.entitysystem.component.store.ChangeTrackingComponentStore;
+import org.terasology.gestalt.entitysystem.component.store.SparseComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.event.lifecycle.LifecycleAwareComponentStore;
+import org.terasology.gestalt.entitysystem.event.lifecycle.LifecycleEventManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.List;
+
+import modules.test.components.PrimitiveComponent;
+import modules.test.components.Reference;
+import modules.test.components.Sample;
+import modules.test.components.Second;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class EntitySnapshotTest {
+
+    private ComponentManager componentManager = new ComponentManager();
+    private CoreEntityManager entityManager;
+
+    @Before
+    public void setup() {
+        entityManager = createEntityManager();
+    }
+
+    private CoreEntityManager createEntityManager() {
+        return new CoreEntityManager(
+                new ArrayComponentStore<>(componentManager.getType(Sample.class)),
+                new SparseComponentStore<>(componentManager.getType(Second.class)),
+                new ArrayComponentStore<>(componentManager.getType(PrimitiveComponent.class)),
+                new ArrayComponentStore<>(componentManager.getType(Reference.class)));
+    }
+
+    private byte[] write(CoreEntityManager source, int bufferSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new EntitySnapshotWriter(bufferSize).write(source, Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private void read(byte[] snapshot, CoreEntityManager target, int bufferSize) throws IOException {
+        new EntitySnapshotReader(bufferSize).read(Channels.newChannel(new ByteArrayInputStream(snapshot)), target);
+    }
+
+    private Sample sample(String name) {
+        Sample sample = new Sample();
+        sample.setName(name);
+        return sample;
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        PrimitiveComponent primitive = new PrimitiveComponent();
+        primitive.setCount(-12);
+        primitive.setTimestamp(Long.MAX_VALUE);
+        primitive.setSpeed(1.5f);
+        primitive.setWeight(-2.25);
+        primitive.setActive(true);
+        EntityRef first = entityManager.createEntity(sample("First"), primitive);
+        EntityRef deleted = entityManager.createEntity(sample("Deleted"));
+        EntityRef second = entityManager.createEntity(new Second());
+        Reference reference = new Reference();
+        reference.setReference(first);
+        reference.setReferences(Lists.newArrayList(second, deleted));
+        EntityRef referencing = entityManager.createEntity(reference);
+        deleted.delete();
+
+        CoreEntityManager loaded = createEntityManager();
+        read(write(entityManager, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE), loaded, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+
+        assertEquals(3, loaded.size());
+        assertEquals("First", loaded.getEntity(first.getId()).getComponent(Sample.class).get().getName());
+        PrimitiveComponent loadedPrimitive = loaded.getEntity(first.getId()).getComponent(PrimitiveComponent.class).get();
+        assertEquals(-12, loadedPrimitive.getCount());
+        assertEquals(Long.MAX_VALUE, loadedPrimitive.getTimestamp());
+        assertEquals(1.5f, loadedPrimitive.getSpeed(), 0);
+        assertEquals(-2.25, loadedPrimitive.getWeight(), 0);
+        assertTrue(loadedPrimitive.isActive());
+        assertFalse(loaded.getEntity(deleted.getId()).exists());
+        assertTrue(loaded.getEntity(second.getId()).hasComponent(Second.class));
+
+        Reference loadedReference = loaded.getEntity(referencing.getId()).getComponent(Reference.class).get();
+        assertEquals(first.getId(), loadedReference.getReference().getId());
+        assertTrue(loadedReference.getReference().exists());
+        assertEquals(second.getId(), loadedReference.getReferences().get(0).getId());
+        assertFalse(loadedReference.getReferences().get(1).exists());
+    }
+
+    @Test
+    public void freedIdsAreReusedAfterLoad() throws IOException {
+        entityManager.createEntity(sample("First"));
+        EntityRef deleted = entityManager.createEntity(sample("Deleted"));
+        entityManager.createEntity(sample("Third"));
+        deleted.delete();
+
+        CoreEntityManager loaded = createEntityManager();
+        read(write(entityManager, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE), loaded, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+
+        assertEquals(deleted.getId(), loaded.createEntity().getId());
+        assertEquals(3, loaded.createEntity().getId());
+    }
+
+    @Test
+    public void manyEntitiesWithSmallBuffers() throws IOException {
+        String longName = Strings.repeat("Long name ", 20);
+        for (int i = 0; i < 3000; i++) {
+            entityManager.createEntity(sample((i % 100 == 0) ? longName : "Entity " + i));
+        }
+
+        CoreEntityManager loaded = createEntityManager();
+        read(write(entityManager, 16), loaded, 16);
+
+        assertEquals(3000, loaded.size());
+        assertEquals(longName, loaded.getEntity(2900).getComponent(Sample.class).get().getName());
+        assertEquals("Entity 2999", loaded.getEntity(2999).getComponent(Sample.class).get().getName());
+    }
+
+    @Test
+    public void loadingDoesNotSendLifecycleEvents() throws IOException {
+        entityManager.createEntity(sample("First"));
+        LifecycleEventManager lifecycleEventManager = mock(LifecycleEventManager.class);
+        CoreEntityManager loaded = new CoreEntityManager();
+        loaded.addComponentStore(new LifecycleAwareComponentStore<>(lifecycleEventManager, loaded, new ArrayComponentStore<>(componentManager.getType(Sample.class))));
+
+        read(write(entityManager, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE), loaded, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+
+        assertEquals("First", loaded.getEntity(0).getComponent(Sample.class).get().getName());
+        verifyZeroInteractions(lifecycleEventManager);
+    }
+
+    @Test
+    public void loadingThroughChangeTrackingDoesNotSendLifecycleEvents() throws IOException {
+        entityManager.createEntity(sample("First"));
+        LifecycleEventManager lifecycleEventManager = mock(LifecycleEventManager.class);
+        CoreEntityManager loaded = new CoreEntityManager();
+        ChangeTrackingComponentStore<Sample> store = new ChangeTrackingComponentStore<>(
+                new LifecycleAwareComponentStore<>(lifecycleEventManager, loaded, new ArrayComponentStore<>(componentManager.getType(Sample.class))));
+        loaded.addComponentStore(store);
+
+        read(write(entityManager, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE), loaded, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+
+        assertEquals("First", loaded.getEntity(0).getComponent(Sample.class).get().getName());
+        assertTrue(store.hasChangedSince(0, 0));
+        verifyZeroInteractions(lifecycleEventManager);
+    }
+
+    @Test
+    public void unknownComponentTypesAreSkipped() throws IOException {
+        EntityRef entity = entityManager.createEntity(new Second(), sample("First"));
+        CoreEntityManager loaded = new CoreEntityManager(new ArrayComponentStore<>(componentManager.getType(Sample.class)));
+
+        read(write(entityManager, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE), loaded, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+
+        assertEquals("First", loaded.getEntity(entity.getId()).getComponent(Sample.class).get().getName());
+    }
+
+    @Test
+    public void loadedComponentsAreIterable() throws IOException {
+        List<EntityRef> entities = Lists.newArrayList(entityManager.createEntity(sample("A"), new Second()), entityManager.createEntity(sample("B")));
+        CoreEntityManager loaded = createEntityManager();
+        loaded.setArchetypeStorageEnabled(true);
+
+        read(write(entityManager, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE), loaded, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+
+        Sample sample = new Sample();
+        Second second = new Second();
+        assertTrue(loaded.iterate(sample, second).next());
+        assertEquals("A", sample.getName());
+        assertEquals(entities.size(), loaded.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotLoadIntoUsedEntityManager() throws IOException {
+        entityManager.createEntity(sample("First"));
+        byte[] snapshot = write(entityManager, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+        read(snapshot, entityManager, EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherData() throws IOException {
+        read(new byte[]{1, 2, 3, 4, 5, 6}, createEntityManager(), EntitySnapshotWriter.DEFAULT_BUFFER_SIZE);
+    }
+}
@@ -26,6 +26,7 @@
 import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
 import org.terasology.gestalt.entitysystem.entity.EntityManager;
 import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.EntityView;
 import org.terasology.gestalt.entitysystem.entity.manager.CoreEntityManager;
 import org.terasology.gestalt.entitysystem.event.impl.EventProcessor;
 
@@ -39,7 +40,10 @@
 import modules.test.TestEvent;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -198,4 +202,65 @@ public void handleExceptionWhenInvokingHandler() {
     private interface EventHandlerB<T extends Event> extends EventHandler<T> {
     }
 
+
+    @Test
+    public void dispatchUpdatedWhenHandlersChange() {
+        EventHandler<TestEvent> handler = mock(EventHandler.class);
+        EventHandler<TestEvent> handler2 = mock(EventHandler.class);
+        when(handler.onEvent(event, testEntity)).thenReturn(EventResult.CONTINUE);
+        when(handler2.onEvent(event, testEntity)).thenReturn(EventResult.CONTINUE);
+        eventProcessor.registerHandler(handler, EventHandler.class, Collections.emptyList(), Collections.emptyList(), ImmutableList.of(Sample.class));
+        eventProcessor.process(event, testEntity);
+
+        eventProcessor.registerHandler(handler2, String.class, Collections.emptyList(), Collections.emptyList(), ImmutableList.of(Sample.class));
+        eventProcessor.process(event, testEntity);
+        verify(handler, times(2)).onEvent(event, testEntity);
+        verify(handler2).onEvent(event, testEntity);
+
+        eventProcessor.removeProvider(EventHandler.class);
+        eventProcessor.process(event, testEntity);
+        verify(handler, times(2)).onEvent(event, testEntity);
+        verify(handler2, times(2)).onEvent(event, testEntity);
+
+        eventProcessor.removeHandler(handler2);
+        eventProcessor.process(event, testEntity);
+        verifyNoMoreInteractions(handler, handler2);
+    }
+
+    @Test
+    public void dispatchUpdatedWhenEntityComponentsChange() {
+        EventHandler<TestEvent> handler = mock(EventHandler.class);
+        when(handler.onEvent(event, testEntity)).thenReturn(EventResult.CONTINUE);
+        eventProcessor.registerHandler(handler, EventHandler.class, Collections.emptyList(), Collections.emptyList(), ImmutableList.of(Sample.class, Second.class));
+
+        eventProcessor.process(event, testEntity);
+        testEntity.setComponent(new Second());
+        eventProcessor.process(event, testEntity);
+        testEntity.removeComponent(Second.class);
+        eventProcessor.process(event, testEntity);
+
+        verify(handler).onEvent(event, testEntity);
+    }
+
+    @Test
+    public void broadcastToEachMatchingEntity() {
+        EventHandler<TestEvent> handler = mock(EventHandler.class);
+        EventHandler<TestEvent> handler2 = mock(EventHandler.class);
+        when(handler.onEvent(eq(event), any(EntityRef.class))).thenReturn(EventResult.CONTINUE);
+        when(handler2.onEvent(eq(event), any(EntityRef.class))).thenReturn(EventResult.CONTINUE);
+        eventProcessor.registerHandler(handler, EventHandler.class, Collections.emptyList(), Collections.emptyList(), ImmutableList.of(Sample.class));
+        eventProcessor.registerHandler(handler2, String.class, Collections.emptyList(), Collections.emptyList(), ImmutableList.of(Second.class));
+        EntityRef both = entityManager.createEntity(new Sample(), new Second());
+        EntityRef sampleOnly = entityManager.createEntity(new Sample());
+
+        try (EntityView view = entityManager.createView(Sample.class)) {
+            eventProcessor.broadcast(event, view.iterate(), null);
+        }
+
+        verify(handler).onEvent(event, testEntity);
+        verify(handler).onEvent(event, both);
+        verify(handler).onEvent(event, sampleOnly);
+        verify(handler2).onEvent(event, both);
+        verifyNoMoreInteractions(handler, handler2);
+    }
 }
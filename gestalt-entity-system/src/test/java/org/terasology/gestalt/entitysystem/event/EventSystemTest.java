@@ -22,6 +22,7 @@
 import org.terasology.gestalt.entitysystem.component.Component;
 import org.terasology.gestalt.entitysystem.component.store.ArrayComponentStore;
 import org.terasology.gestalt.entitysystem.component.store.ComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityIterator;
 import org.terasology.gestalt.entitysystem.entity.EntityManager;
 import org.terasology.gestalt.entitysystem.entity.EntityRef;
 import org.terasology.gestalt.entitysystem.entity.manager.CoreEntityManager;
@@ -29,16 +30,24 @@
 import org.terasology.gestalt.entitysystem.event.impl.EventSystemImpl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import modules.test.TestEvent;
 import modules.test.TestSynchEvent;
 import modules.test.components.Sample;
 import modules.test.components.Second;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -51,9 +60,10 @@ public class EventSystemTest {
     private static final String EVENT_VALUE = "Test";
     private TestSynchEvent synchEvent = new TestSynchEvent(EVENT_VALUE);
     private TestEvent asynchEvent = new TestEvent(EVENT_VALUE);
-    private EntityManager entityManager;
+    protected EntityManager entityManager;
     private EntityRef entity;
-    private EventSystem eventSystem = new EventSystemImpl();
+    protected final AtomicLong clock = new AtomicLong();
+    protected EventSystem eventSystem = createEventSystem();
     private Set<Class<? extends Component>> triggeringComponents = ImmutableSet.of(Sample.class, Second.class);
 
 
@@ -63,6 +73,10 @@ public EventSystemTest() {
         entity = entityManager.createEntity();
     }
 
+    protected EventSystem createEventSystem() {
+        return new EventSystemImpl(clock::get);
+    }
+
     @Test
     public void sendAsynchEvent() throws Exception {
         EventHandler<TestEvent> eventHandler = mock(EventHandler.class);
@@ -73,6 +87,43 @@ public void sendAsynchEvent() throws Exception {
         verify(eventHandler).onEvent(asynchEvent, entity);
     }
 
+    @Test
+    public void sendAfterDelay() throws Exception {
+        EventHandler<TestEvent> eventHandler = mock(EventHandler.class);
+        eventSystem.registerHandler(TestEvent.class, eventHandler);
+        eventSystem.sendAfter(asynchEvent, entity, 1, TimeUnit.MILLISECONDS);
+        eventSystem.processEvents();
+        verify(eventHandler, never()).onEvent(asynchEvent, entity);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        eventSystem.processEvents();
+        eventSystem.processEvents();
+        verify(eventHandler, times(1)).onEvent(asynchEvent, entity);
+    }
+
+    @Test
+    public void sendAfterNotSentBeforeDelay() throws Exception {
+        EventHandler<TestEvent> eventHandler = mock(EventHandler.class);
+        eventSystem.registerHandler(TestEvent.class, eventHandler);
+        ScheduledEvent scheduled = eventSystem.sendAfter(asynchEvent, entity, 1, TimeUnit.HOURS);
+        eventSystem.processEvents();
+        verify(eventHandler, never()).onEvent(asynchEvent, entity);
+        assertTrue(scheduled.isPending());
+        assertTrue(scheduled.cancel());
+    }
+
+    @Test
+    public void sendPeriodicallyStopsWhenEntityDeleted() throws Exception {
+        EventHandler<TestEvent> eventHandler = mock(EventHandler.class);
+        eventSystem.registerHandler(TestEvent.class, eventHandler);
+        ScheduledEvent scheduled = eventSystem.sendPeriodically(asynchEvent, entity, 0, 1, TimeUnit.MILLISECONDS);
+        eventSystem.processEvents();
+        entity.delete();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+        eventSystem.processEvents();
+        verify(eventHandler, times(1)).onEvent(asynchEvent, entity);
+        assertFalse(scheduled.isPending());
+    }
+
     @Test
     public void sendAsynchEventHandleException() throws Exception {
         EventHandler<TestEvent> eventHandler = mock(EventHandler.class);
@@ -108,4 +159,55 @@ public void sendSynchEvent() throws Exception {
         verify(eventHandler).onEvent(synchEvent, entity);
     }
 
+    @Test
+    public void sendBatchToEachEntity() throws Exception {
+        EventHandler<TestEvent> eventHandler = mock(EventHandler.class);
+        eventSystem.registerHandler(TestEvent.class, eventHandler);
+        EntityRef other = entityManager.createEntity();
+        eventSystem.sendBatch(asynchEvent, Arrays.asList(entity, other));
+        verifyNoMoreInteractions(eventHandler);
+        eventSystem.processEvents();
+        verify(eventHandler).onEvent(asynchEvent, entity);
+        verify(eventHandler).onEvent(asynchEvent, other);
+    }
+
+    @Test
+    public void broadcastAsynchEvent() throws Exception {
+        EventHandler<TestEvent> eventHandler = mock(EventHandler.class);
+        eventSystem.registerHandler(TestEvent.class, eventHandler);
+        EntityRef other = entityManager.createEntity();
+        eventSystem.broadcast(asynchEvent, iterator(entity, other));
+        verifyNoMoreInteractions(eventHandler);
+        eventSystem.processEvents();
+        verify(eventHandler).onEvent(asynchEvent, entity);
+        verify(eventHandler).onEvent(asynchEvent, other);
+    }
+
+    @Test
+    public void broadcastSynchEvent() throws Exception {
+        EventHandler<TestSynchEvent> eventHandler = mock(EventHandler.class);
+        eventSystem.registerHandler(TestSynchEvent.class, eventHandler);
+        EntityRef other = entityManager.createEntity();
+        eventSystem.broadcast(synchEvent, iterator(entity, other));
+        verify(eventHandler).onEvent(synchEvent, entity);
+        verify(eventHandler).onEvent(synchEvent, other);
+    }
+
+    private static EntityIterator iterator(EntityRef... entities) {
+        Iterator<EntityRef> iterator = Arrays.asList(entities).iterator();
+        return new EntityIterator() {
+            private EntityRef current;
+
+            @Override
+            public boolean next() {
+                current = iterator.hasNext() ? iterator.next() : null;
+                return current != null;
+            }
+
+            @Override
+            public EntityRef getEntity() {
+                return current;
+            }
+        };
+    }
 }
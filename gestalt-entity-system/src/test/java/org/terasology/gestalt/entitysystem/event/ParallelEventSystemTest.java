@@ -0,0 +1,161 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event;
+
+import org.junit.After;
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.event.impl.EventSystemImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import modules.test.TestEvent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Runs the core event system tests against an EventSystemImpl processing events in parallel, along with tests for the
+ * ordering and serialization guarantees of parallel processing.
+ */
+public class ParallelEventSystemTest extends EventSystemTest {
+
+    private static final int ENTITY_COUNT = 64;
+    private static final int EVENTS_PER_ENTITY = 32;
+
+    private ExecutorService executor;
+
+    @Override
+    protected EventSystem createEventSystem() {
+        executor = Executors.newFixedThreadPool(4);
+        return new EventSystemImpl(executor, 8, clock::get);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void eventsProcessedInOrderPerEntity() {
+        Map<Integer, List<String>> received = new ConcurrentHashMap<>();
+        eventSystem.registerHandler(TestEvent.class, new EventHandler<TestEvent>() {
+            @Override
+            public EventResult onEvent(TestEvent event, EntityRef entity) {
+                received.computeIfAbsent(entity.getId(), id -> Collections.synchronizedList(new ArrayList<>())).add(event.getValue());
+                return EventResult.CONTINUE;
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        });
+
+        List<EntityRef> entities = new ArrayList<>();
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            entities.add(entityManager.createEntity());
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < EVENTS_PER_ENTITY; i++) {
+            expected.add(Integer.toString(i));
+            for (EntityRef entity : entities) {
+                eventSystem.send(new TestEvent(Integer.toString(i)), entity);
+            }
+        }
+        eventSystem.processEvents();
+
+        for (EntityRef entity : entities) {
+            assertEquals(expected, received.get(entity.getId()));
+        }
+    }
+
+    @Test
+    public void unsafeHandlersRunOneAtATime() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger invocations = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        eventSystem.registerHandler(TestEvent.class, (event, entity) -> {
+            if (active.incrementAndGet() > 1) {
+                overlapped.set(true);
+            }
+            invocations.incrementAndGet();
+            Thread.yield();
+            active.decrementAndGet();
+            return EventResult.CONTINUE;
+        });
+
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            EntityRef entity = entityManager.createEntity();
+            for (int j = 0; j < EVENTS_PER_ENTITY; j++) {
+                eventSystem.send(new TestEvent("Test"), entity);
+            }
+        }
+        eventSystem.processEvents();
+
+        assertFalse(overlapped.get());
+        assertEquals(ENTITY_COUNT * EVENTS_PER_ENTITY, invocations.get());
+    }
+
+    @Test(timeout = 10000)
+    public void processEventsFromConcurrentHandlerDoesNotDeadlock() {
+        AtomicInteger invocations = new AtomicInteger();
+        eventSystem.registerHandler(TestEvent.class, new EventHandler<TestEvent>() {
+            @Override
+            public EventResult onEvent(TestEvent event, EntityRef entity) {
+                if (invocations.incrementAndGet() <= ENTITY_COUNT) {
+                    eventSystem.send(new TestEvent("Nested"), entity);
+                    eventSystem.processEvents();
+                }
+                return EventResult.CONTINUE;
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        });
+
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            eventSystem.send(new TestEvent("Test"), entityManager.createEntity());
+        }
+        eventSystem.processEvents();
+
+        assertEquals(2 * ENTITY_COUNT, invocations.get());
+    }
+
+    @Test(timeout = 10000)
+    public void clearPendingEventsFromConcurrentHandlerDoesNotDeadlock() {
+        AtomicInteger invocations = new AtomicInteger();
+        eventSystem.registerHandler(TestEvent.class, new EventHandler<TestEvent>() {
+            @Override
+            public EventResult onEvent(TestEvent event, EntityRef entity) {
+                invocations.incrementAndGet();
+                eventSystem.send(new TestEvent("Nested"), entity);
+                eventSystem.clearPendingEvents();
+                return EventResult.CONTINUE;
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        });
+
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            eventSystem.send(new TestEvent("Test"), entityManager.createEntity());
+        }
+        eventSystem.processEvents();
+
+        assertEquals(ENTITY_COUNT, invocations.get());
+    }
+}
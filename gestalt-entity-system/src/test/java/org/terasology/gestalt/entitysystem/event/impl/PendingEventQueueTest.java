@@ -0,0 +1,177 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event.impl;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.NullEntityRef;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import modules.test.TestEvent;
+import modules.test.components.Sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PendingEventQueueTest {
+
+    private static final Set<Class<? extends Component>> TRIGGERING = ImmutableSet.of(Sample.class);
+
+    private PendingEventQueue queue = new PendingEventQueue(4);
+    private PendingEventQueue.Batch batch = new PendingEventQueue.Batch(1);
+
+    @Test
+    public void drainInOrder() {
+        List<TestEvent> events = createEvents(3);
+        events.forEach(event -> queue.add(event, NullEntityRef.get(), TRIGGERING));
+        assertFalse(queue.isEmpty());
+
+        queue.drainTo(batch);
+
+        assertTrue(queue.isEmpty());
+        assertBatchContains(events);
+        assertSame(TRIGGERING, batch.getTriggeringComponents(0));
+    }
+
+    @Test
+    public void overflowRetainsOrder() {
+        List<TestEvent> events = createEvents(10);
+        events.forEach(event -> queue.add(event, NullEntityRef.get(), TRIGGERING));
+
+        queue.drainTo(batch);
+
+        assertTrue(queue.isEmpty());
+        assertBatchContains(events);
+    }
+
+    @Test
+    public void slotsReusedAfterDrain() {
+        for (int round = 0; round < 5; round++) {
+            List<TestEvent> events = createEvents(3);
+            events.forEach(event -> queue.add(event, NullEntityRef.get(), TRIGGERING));
+            queue.drainTo(batch);
+            assertBatchContains(events);
+            batch.clear();
+        }
+    }
+
+    @Test
+    public void addAllToEachEntity() {
+        TestEvent event = new TestEvent("batch");
+        List<EntityRef> entities = Collections.nCopies(6, NullEntityRef.get());
+        queue.add(new TestEvent("first"), NullEntityRef.get(), TRIGGERING);
+        queue.addAll(event, entities, TRIGGERING);
+
+        queue.drainTo(batch);
+
+        assertEquals(7, batch.size());
+        assertEquals("first", ((TestEvent) batch.getEvent(0)).getValue());
+        for (int i = 1; i < batch.size(); i++) {
+            assertSame(event, batch.getEvent(i));
+        }
+    }
+
+    @Test
+    public void clearDiscardsEvents() {
+        createEvents(6).forEach(event -> queue.add(event, NullEntityRef.get(), TRIGGERING));
+        queue.clear();
+        assertTrue(queue.isEmpty());
+
+        queue.drainTo(batch);
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void concurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int eventsPerProducer = 1000;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < producers; i++) {
+            Thread thread = new Thread(() -> createEvents(eventsPerProducer).forEach(event -> queue.add(event, NullEntityRef.get(), TRIGGERING)));
+            threads.add(thread);
+            thread.start();
+        }
+        int drained = 0;
+        while (threads.stream().anyMatch(Thread::isAlive) || !queue.isEmpty()) {
+            queue.drainTo(batch);
+            drained += batch.size();
+            batch.clear();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(producers * eventsPerProducer, drained);
+    }
+
+    @Test
+    public void concurrentProducersDrainedInOrderPerProducer() throws InterruptedException {
+        int producers = 4;
+        int eventsPerProducer = 10000;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < producers; i++) {
+            String producer = Integer.toString(i);
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < eventsPerProducer; j++) {
+                    queue.add(new TestEvent(producer + ":" + j), NullEntityRef.get(), TRIGGERING);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        int[] nextExpected = new int[producers];
+        while (threads.stream().anyMatch(Thread::isAlive) || !queue.isEmpty()) {
+            queue.drainTo(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                String[] value = ((TestEvent) batch.getEvent(i)).getValue().split(":");
+                int producer = Integer.parseInt(value[0]);
+                assertEquals(nextExpected[producer]++, Integer.parseInt(value[1]));
+            }
+            batch.clear();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int expected : nextExpected) {
+            assertEquals(eventsPerProducer, expected);
+        }
+    }
+
+    @Test
+    public void capacityRoundedUpToPowerOfTwo() {
+        queue = new PendingEventQueue(1);
+        List<TestEvent> events = createEvents(3);
+        events.forEach(event -> queue.add(event, NullEntityRef.get(), TRIGGERING));
+        queue.drainTo(batch);
+        assertBatchContains(events);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCapacityTooLargeToRound() {
+        new PendingEventQueue(PendingEventQueue.MAX_CAPACITY + 1);
+    }
+
+    private List<TestEvent> createEvents(int count) {
+        List<TestEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new TestEvent(Integer.toString(i)));
+        }
+        return events;
+    }
+
+    private void assertBatchContains(List<TestEvent> events) {
+        assertEquals(events.size(), batch.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertSame(events.get(i), batch.getEvent(i));
+        }
+    }
+}
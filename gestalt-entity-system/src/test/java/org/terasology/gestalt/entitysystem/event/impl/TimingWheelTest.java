@@ -0,0 +1,140 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event.impl;
+
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.event.Event;
+import org.terasology.gestalt.entitysystem.event.ScheduledEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import modules.test.TestEvent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TimingWheelTest {
+
+    private TimingWheel wheel = new TimingWheel(0);
+    private EntityRef entity = mock(EntityRef.class);
+    private List<Event> sent = new ArrayList<>();
+
+    public TimingWheelTest() {
+        when(entity.exists()).thenReturn(true);
+    }
+
+    @Test
+    public void sendWhenDue() {
+        TestEvent event = new TestEvent("");
+        ScheduledEvent scheduled = wheel.schedule(event, entity, millis(10), 0, 0);
+        advance(9);
+        assertTrue(sent.isEmpty());
+        assertTrue(scheduled.isPending());
+
+        advance(10);
+        assertEquals(1, sent.size());
+        assertSame(event, sent.get(0));
+        assertFalse(scheduled.isPending());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void sendWithoutDelayOnNextAdvance() {
+        wheel.schedule(new TestEvent(""), entity, 0, 0, millis(5));
+        advance(5);
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void sendAcrossLevels() {
+        long[] delays = {1, 63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 300_000, 16_777_215, 20_000_000};
+        List<TestEvent> events = new ArrayList<>();
+        for (long delay : delays) {
+            TestEvent event = new TestEvent(Long.toString(delay));
+            events.add(event);
+            wheel.schedule(event, entity, millis(delay), 0, 0);
+        }
+        long step = 997;
+        int expected = 0;
+        for (long now = step; expected < delays.length; now += step) {
+            advance(now);
+            while (expected < delays.length && delays[expected] <= now) {
+                expected++;
+            }
+            assertEquals("Sent by " + now, events.subList(0, expected), sent);
+        }
+    }
+
+    @Test
+    public void sendOnFirstLevelBoundary() {
+        wheel.schedule(new TestEvent(""), entity, millis(64), 0, 0);
+        advance(63);
+        assertTrue(sent.isEmpty());
+        advance(64);
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void sendOnSecondLevelBoundary() {
+        wheel.schedule(new TestEvent(""), entity, millis(4096), 0, 0);
+        advance(4095);
+        assertTrue(sent.isEmpty());
+        advance(4096);
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void sendPeriodicallySkippingMissedPeriods() {
+        ScheduledEvent scheduled = wheel.schedule(new TestEvent(""), entity, millis(10), millis(10), 0);
+        advance(10);
+        assertEquals(1, sent.size());
+        advance(20);
+        assertEquals(2, sent.size());
+        advance(55);
+        assertEquals(3, sent.size());
+        advance(59);
+        assertEquals(3, sent.size());
+        advance(60);
+        assertEquals(4, sent.size());
+        assertTrue(scheduled.isPending());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    public void cancel() {
+        ScheduledEvent scheduled = wheel.schedule(new TestEvent(""), entity, millis(10), millis(10), 0);
+        assertTrue(scheduled.cancel());
+        assertFalse(scheduled.isPending());
+        assertFalse(scheduled.cancel());
+        assertEquals(0, wheel.size());
+        advance(100);
+        assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    public void discardEventsForDeletedEntities() {
+        ScheduledEvent scheduled = wheel.schedule(new TestEvent(""), entity, millis(10), millis(10), 0);
+        advance(10);
+        when(entity.exists()).thenReturn(false);
+        advance(20);
+        assertEquals(1, sent.size());
+        assertFalse(scheduled.isPending());
+        assertEquals(0, wheel.size());
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private void advance(long nowMillis) {
+        wheel.advance(millis(nowMillis), (event, target) -> sent.add(event));
+    }
+}
@@ -0,0 +1,140 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event.lifecycle;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.store.ArrayComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.manager.CoreEntityManager;
+import org.terasology.gestalt.entitysystem.event.Event;
+import org.terasology.gestalt.entitysystem.event.EventSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import modules.test.components.Sample;
+import modules.test.components.Second;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class LifecycleEventManagerTest {
+
+    private LifecycleEventManager lifecycleEventManager = new LifecycleEventManager();
+    private EventSystem eventSystem = mock(EventSystem.class);
+    private CoreEntityManager entityManager;
+
+    public LifecycleEventManagerTest() {
+        ComponentManager componentManager = new ComponentManager();
+        entityManager = new CoreEntityManager(new ArrayList<>());
+        entityManager.addComponentStore(new LifecycleAwareComponentStore<>(lifecycleEventManager, entityManager, new ArrayComponentStore<>(componentManager.getType(Sample.class))));
+        entityManager.addComponentStore(new LifecycleAwareComponentStore<>(lifecycleEventManager, entityManager, new ArrayComponentStore<>(componentManager.getType(Second.class))));
+    }
+
+    @Test
+    public void addedComponents() {
+        EntityRef entity = entityManager.createEntity(new Sample(), new Second());
+
+        List<Event> events = sendEvents(1);
+        assertTrue(events.get(0) instanceof OnAdded);
+        assertEquals(ImmutableSet.of(Sample.class, Second.class), ((OnAdded) events.get(0)).getComponentTypes());
+        verify(eventSystem).send(any(OnAdded.class), eq(entity), eq(ImmutableSet.of(Sample.class, Second.class)));
+    }
+
+    @Test
+    public void addedThenChangedOnlySendsAddedAndChanged() {
+        EntityRef entity = entityManager.createEntity(new Sample());
+        entity.setComponent(new Sample());
+
+        List<Event> events = sendEvents(2);
+        assertEquals(ImmutableSet.of(Sample.class), ((OnAdded) events.get(0)).getComponentTypes());
+        assertEquals(ImmutableSet.of(Sample.class), ((OnChanged) events.get(1)).getComponentTypes());
+    }
+
+    @Test
+    public void addedThenRemovedOnlySendsRemoved() {
+        EntityRef entity = entityManager.createEntity(new Second());
+        Sample sample = new Sample();
+        sample.setName("Removed");
+        entity.setComponent(sample);
+        entity.setComponent(sample);
+        entity.removeComponent(Sample.class);
+
+        List<Event> events = sendEvents(2);
+        assertEquals(ImmutableSet.of(Second.class), ((OnAdded) events.get(0)).getComponentTypes());
+        OnRemoved onRemoved = (OnRemoved) events.get(1);
+        assertEquals(ImmutableSet.of(Sample.class), onRemoved.getComponentTypes());
+        assertEquals("Removed", onRemoved.getComponent(Sample.class).getName());
+    }
+
+    @Test
+    public void removedThenAddedSendsChanged() {
+        EntityRef entity = entityManager.createEntity(new Sample());
+        lifecycleEventManager.sendPendingEvents(mock(EventSystem.class));
+
+        entity.removeComponent(Sample.class);
+        entity.setComponent(new Sample());
+
+        List<Event> events = sendEvents(2);
+        assertTrue(events.get(0) instanceof OnAdded);
+        assertEquals(ImmutableSet.of(Sample.class), ((OnChanged) events.get(1)).getComponentTypes());
+    }
+
+    @Test
+    public void eventsOrderedAddedChangedRemoved() {
+        EntityRef first = entityManager.createEntity(new Sample(), new Second());
+        EntityRef second = entityManager.createEntity(new Sample());
+        lifecycleEventManager.sendPendingEvents(mock(EventSystem.class));
+
+        first.removeComponent(Second.class);
+        second.setComponent(new Second());
+        first.setComponent(new Sample());
+
+        List<Event> events = sendEvents(3);
+        assertTrue(events.get(0) instanceof OnAdded);
+        assertTrue(events.get(1) instanceof OnChanged);
+        assertTrue(events.get(2) instanceof OnRemoved);
+    }
+
+    @Test
+    public void eventsOnlySentOnce() {
+        entityManager.createEntity(new Sample());
+        sendEvents(1);
+        lifecycleEventManager.sendPendingEvents(eventSystem);
+        verifyNoMoreInteractions(eventSystem);
+    }
+
+    @Test
+    public void eventsOfDeletedEntityKeptApartFromEntityReusingId() {
+        EntityRef deleted = entityManager.createEntity(new Sample());
+        lifecycleEventManager.sendPendingEvents(mock(EventSystem.class));
+        deleted.delete();
+        EntityRef created = entityManager.createEntity(new Sample());
+        assertEquals(deleted.getId(), created.getId());
+
+        List<Event> events = sendEvents(2);
+        assertTrue(events.get(0) instanceof OnAdded);
+        assertTrue(events.get(1) instanceof OnRemoved);
+        verify(eventSystem).send(any(OnAdded.class), eq(created), eq(ImmutableSet.of(Sample.class)));
+        verify(eventSystem).send(any(OnRemoved.class), eq(deleted), eq(ImmutableSet.of(Sample.class)));
+    }
+
+    private List<Event> sendEvents(int expected) {
+        lifecycleEventManager.sendPendingEvents(eventSystem);
+        ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
+        verify(eventSystem, times(expected)).send(captor.capture(), any(EntityRef.class), any(Set.class));
+        return captor.getAllValues();
+    }
+}
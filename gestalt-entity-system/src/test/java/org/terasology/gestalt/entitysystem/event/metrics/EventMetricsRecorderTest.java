@@ -0,0 +1,99 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event.metrics;
+
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.store.ArrayComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityManager;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.manager.CoreEntityManager;
+import org.terasology.gestalt.entitysystem.event.EventResult;
+import org.terasology.gestalt.entitysystem.event.impl.EventSystemImpl;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import modules.test.TestEvent;
+import modules.test.components.Sample;
+import modules.test.components.Second;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventMetricsRecorderTest {
+
+    private EventMetricsRecorder recorder = new EventMetricsRecorder();
+
+    @Test
+    public void recordEventDispatch() {
+        ComponentManager componentManager = new ComponentManager();
+        EntityManager entityManager = new CoreEntityManager(Arrays.asList(
+                new ArrayComponentStore<>(componentManager.getType(Sample.class)),
+                new ArrayComponentStore<>(componentManager.getType(Second.class))));
+        EventSystemImpl eventSystem = new EventSystemImpl();
+        eventSystem.setMetricsListener(recorder);
+        eventSystem.registerHandler(TestEvent.class, (event, entity) -> EventResult.CONTINUE, String.class, Collections.emptyList(), Collections.emptyList(), Sample.class);
+        eventSystem.registerHandler(TestEvent.class, (event, entity) -> EventResult.CONTINUE, Integer.class, Collections.emptyList(), Collections.emptyList(), Second.class);
+
+        EntityRef sampleEntity = entityManager.createEntity(new Sample());
+        EntityRef bothEntity = entityManager.createEntity(new Sample(), new Second());
+        eventSystem.send(new TestEvent("a"), sampleEntity);
+        eventSystem.send(new TestEvent("b"), bothEntity);
+        eventSystem.processEvents();
+
+        EventMetricsSnapshot snapshot = recorder.snapshot();
+        EventMetricsSnapshot.EventStatistics eventStatistics = snapshot.getEventStatistics().get(TestEvent.class);
+        assertEquals(2, eventStatistics.getLatency().getCount());
+        assertEquals(4, eventStatistics.getRegisteredHandlers());
+        assertEquals(3, eventStatistics.getValidHandlers());
+        assertEquals(3, eventStatistics.getInvokedHandlers());
+        assertEquals(0.25, eventStatistics.getFilteredRatio(), 0.0001);
+        assertEquals(2, snapshot.getProviderStatistics().get(String.class).getCount());
+        assertEquals(1, snapshot.getProviderStatistics().get(Integer.class).getCount());
+        assertEquals(1, snapshot.getQueueDrains());
+        assertEquals(2, snapshot.getMaxQueueDepth());
+        assertTrue(snapshot.dump().contains(TestEvent.class.getName()));
+    }
+
+    @Test
+    public void latencyPercentiles() {
+        for (int i = 1; i <= 100; i++) {
+            recorder.onHandlerInvoked(TestEvent.class, String.class, i * 1000L);
+        }
+        LatencyStatistics statistics = recorder.snapshot().getProviderStatistics().get(String.class);
+        assertEquals(100, statistics.getCount());
+        assertEquals(100_000, statistics.getMaxNanos());
+        assertEquals(50_500, statistics.getMeanNanos(), 0.0001);
+        assertWithinBucket(50_000, statistics.getPercentileNanos(50));
+        assertWithinBucket(99_000, statistics.getPercentileNanos(99));
+        assertEquals(100_000, statistics.getPercentileNanos(100));
+    }
+
+    @Test
+    public void bucketBoundsContainValues() {
+        for (long value : new long[]{0, 1, 3, 4, 5, 7, 8, 9, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            int bucket = LatencyStatistics.bucketOf(value);
+            assertTrue(bucket < LatencyStatistics.BUCKETS);
+            assertTrue(value <= LatencyStatistics.upperBoundOf(bucket));
+            assertTrue(bucket == 0 || value > LatencyStatistics.upperBoundOf(bucket - 1));
+        }
+    }
+
+    @Test
+    public void reset() {
+        recorder.onPendingEventsDrained(10);
+        recorder.onHandlerInvoked(TestEvent.class, String.class, 10);
+        recorder.reset();
+        EventMetricsSnapshot snapshot = recorder.snapshot();
+        assertEquals(0, snapshot.getQueueDrains());
+        assertEquals(0, snapshot.getMaxQueueDepth());
+        assertTrue(snapshot.getProviderStatistics().isEmpty());
+    }
+
+    private static void assertWithinBucket(long expected, long actual) {
+        assertTrue(actual + " is not an upper bound of " + expected, actual >= expected);
+        assertTrue(actual + " is not within 25% of " + expected, actual <= expected * 1.25);
+    }
+}
@@ -29,6 +29,10 @@
 import org.terasology.gestalt.entitysystem.entity.NullEntityRef;
 import org.terasology.gestalt.entitysystem.entity.manager.CoreEntityManager;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import modules.test.components.Reference;
 import modules.test.components.Sample;
 import modules.test.components.Second;
@@ -166,5 +170,49 @@ public void entitiesCreatedByPrefabHaveEntityRecipeUrnTracked() {
         assertEquals(comp.getEntityRecipe(), singlePrefab.getRootEntityUrn());
     }
 
+    @Test
+    public void createManyInstancesOfPrefab() {
+        List<EntityRef> roots = entityManager.createEntities(multiPrefab, 3);
+        assertEquals(3, roots.size());
+        assertEquals(6, entityManager.size());
+        Set<EntityRef> secondEntities = new HashSet<>();
+        for (EntityRef root : roots) {
+            EntityRef secondEntity = root.getComponent(Reference.class).orElseThrow(AssertionError::new).getReference();
+            assertEquals(TEST_NAME, secondEntity.getComponent(Sample.class).orElseThrow(AssertionError::new).getName());
+            secondEntities.add(secondEntity);
+        }
+        assertEquals(3, secondEntities.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createNegativeInstancesOfPrefabFails() {
+        entityManager.createEntities(singlePrefab, -1);
+    }
+
+    @Test
+    public void changingRecipeComponentDoesNotAffectCompiledPrefab() {
+        entityManager.createEntity(singlePrefab);
+        singlePrefab.getRootEntity().getComponent(Sample.class).orElseThrow(AssertionError::new).setName(TEST_NAME_2);
+
+        EntityRef entity = entityManager.createEntity(singlePrefab);
+        assertEquals(TEST_NAME, entity.getComponent(Sample.class).orElseThrow(AssertionError::new).getName());
+    }
+
+    @Test
+    public void reloadedPrefabInstantiatesNewRecipes() {
+        entityManager.createEntity(singlePrefab);
+
+        PrefabData prefabData = new PrefabData();
+        EntityRecipe entityRecipe = new EntityRecipe(SINGLE_PREFAB_ROOT_ENTITY_URN);
+        Sample sampleComponent = componentManager.create(Sample.class);
+        sampleComponent.setName(TEST_NAME_2);
+        entityRecipe.add(sampleComponent);
+        prefabData.addEntityRecipe(entityRecipe);
+        prefabData.setRootEntityId(SINGLE_PREFAB_ROOT_ENTITY_URN);
+        singlePrefab.reload(prefabData);
+
+        EntityRef entity = entityManager.createEntity(singlePrefab);
+        assertEquals(TEST_NAME_2, entity.getComponent(Sample.class).orElseThrow(AssertionError::new).getName());
+    }
 
 }
@@ -0,0 +1,94 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package modules.test.components;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.Objects;
+
+/**
+ * A component made up purely of primitive properties
+ */
+public final class PrimitiveComponent implements Component<PrimitiveComponent> {
+
+    private int count;
+    private long timestamp;
+    private float speed;
+    private double weight;
+    private boolean active;
+
+    public PrimitiveComponent() {
+
+    }
+
+    public PrimitiveComponent(PrimitiveComponent other) {
+        copyFrom(other);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    @Override
+    public void copyFrom(PrimitiveComponent other) {
+        this.count = other.count;
+        this.timestamp = other.timestamp;
+        this.speed = other.speed;
+        this.weight = other.weight;
+        this.active = other.active;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o instanceof PrimitiveComponent) {
+            PrimitiveComponent other = (PrimitiveComponent) o;
+            return count == other.count && timestamp == other.timestamp && speed == other.speed && weight == other.weight && active == other.active;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, timestamp, speed, weight, active);
+    }
+}
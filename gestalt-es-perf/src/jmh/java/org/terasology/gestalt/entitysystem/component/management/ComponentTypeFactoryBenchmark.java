@@ -0,0 +1,83 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.management;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import modules.test.components.Sample;
+
+/**
+ * Compares the constructors, copy constructors and property accessors produced by each ComponentTypeFactory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentTypeFactoryBenchmark {
+
+    @Param({"Reflection", "Lambda", "MethodHandle", "Generated"})
+    public String factory;
+
+    private ComponentType<Sample> type;
+    private PropertyAccessor<Sample, Object> name;
+    private Sample sample = new Sample();
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        type = new ComponentManager(createFactory(factory)).getType(Sample.class);
+        name = (PropertyAccessor<Sample, Object>) type.getPropertyInfo().getProperty("name").orElseThrow(IllegalStateException::new);
+        sample.setName("benchmark");
+    }
+
+    static ComponentTypeFactory createFactory(String name) {
+        switch (name) {
+            case "Reflection":
+                return new ReflectionComponentTypeFactory();
+            case "Lambda":
+                return new LambdaComponentTypeFactory();
+            case "MethodHandle":
+                return new MethodHandleComponentTypeFactory();
+            case "Generated":
+                return new GeneratedComponentTypeFactory();
+            default:
+                throw new IllegalArgumentException("Unknown factory " + name);
+        }
+    }
+
+    @Benchmark
+    public Sample create() {
+        return type.create();
+    }
+
+    @Benchmark
+    public Sample createCopy() {
+        return type.createCopy(sample);
+    }
+
+    @Benchmark
+    public Object getProperty() {
+        return name.get(sample);
+    }
+
+    @Benchmark
+    public Sample setProperty() {
+        name.set(sample, "benchmark");
+        return sample;
+    }
+}
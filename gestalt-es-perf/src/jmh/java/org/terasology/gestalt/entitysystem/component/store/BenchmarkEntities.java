@@ -0,0 +1,43 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Helpers for setting up the entities of benchmarks reproducibly.
+ */
+public final class BenchmarkEntities {
+
+    private static final long SEED = 0x5eed;
+
+    private BenchmarkEntities() {
+    }
+
+    /**
+     * @param entityCount The number of entity ids to select from
+     * @param density     The proportion of entity ids to select
+     * @return The selected entity ids, in ascending order. The same ids are selected on every run.
+     */
+    public static int[] selectIds(int entityCount, double density) {
+        Random random = new Random(SEED);
+        return IntStream.range(0, entityCount).filter(id -> random.nextDouble() < density).toArray();
+    }
+
+    /**
+     * Shuffles ids into the same random order on every run
+     *
+     * @param ids The ids to shuffle
+     */
+    public static void shuffle(int[] ids) {
+        Random random = new Random(SEED);
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = temp;
+        }
+    }
+}
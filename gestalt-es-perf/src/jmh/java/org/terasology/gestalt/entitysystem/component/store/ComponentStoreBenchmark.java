@@ -0,0 +1,102 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terasology.gestalt.entitysystem.component.ComponentIterator;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.management.ComponentType;
+
+import java.util.concurrent.TimeUnit;
+
+import modules.test.components.Sample;
+
+/**
+ * Measures single threaded access to each of the general purpose component stores, for a range of entity counts and
+ * proportions of entities that have the component.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentStoreBenchmark {
+
+    @Param({"Array", "Sparse", "Concurrent", "Striped"})
+    public String store;
+
+    @Param({"10000", "1000000"})
+    public int entityCount;
+
+    @Param({"0.1", "1.0"})
+    public double density;
+
+    private ComponentStore<Sample> componentStore;
+    private int[] ids;
+    private Sample component = new Sample();
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        componentStore = createStore(store, new ComponentManager().getType(Sample.class));
+        componentStore.extend(entityCount);
+        ids = BenchmarkEntities.selectIds(entityCount, density);
+        for (int id : ids) {
+            componentStore.set(id, component);
+        }
+        BenchmarkEntities.shuffle(ids);
+    }
+
+    static ComponentStore<Sample> createStore(String name, ComponentType<Sample> type) {
+        switch (name) {
+            case "Array":
+                return new ArrayComponentStore<>(type);
+            case "Sparse":
+                return new SparseComponentStore<>(type);
+            case "Concurrent":
+                return new ConcurrentComponentStore<>(new ArrayComponentStore<>(type));
+            case "Striped":
+                return new StripedComponentStore<>(type);
+            default:
+                throw new IllegalArgumentException("Unknown store " + name);
+        }
+    }
+
+    private int nextId() {
+        int id = ids[cursor];
+        cursor = (cursor + 1 == ids.length) ? 0 : cursor + 1;
+        return id;
+    }
+
+    @Benchmark
+    public boolean get() {
+        return componentStore.get(nextId(), component);
+    }
+
+    @Benchmark
+    public boolean set() {
+        return componentStore.set(nextId(), component);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        ComponentIterator<Sample> iterator = componentStore.iterate();
+        while (iterator.next()) {
+            iterator.getComponent(component);
+            blackhole.consume(component);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+
+import java.util.concurrent.TimeUnit;
+
+import modules.test.components.Sample;
+
+/**
+ * Compares the throughput of thread safe component stores under contention - a number of reader threads
+ * continuously reading components while a single writer thread continuously updates them.
+ * <p>
+ * By default there are three readers to the one writer. The number of threads can be changed with JMH's thread groups
+ * option, e.g. <code>-tg 7,1</code> for seven readers.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreContentionBenchmark {
+
+    private static final int ENTITIES = 10000;
+
+    @Param({"Concurrent", "Striped"})
+    public String store;
+
+    private ComponentStore<Sample> componentStore;
+
+    @Setup
+    public void setup() {
+        componentStore = ComponentStoreBenchmark.createStore(store, new ComponentManager().getType(Sample.class));
+        componentStore.extend(ENTITIES);
+        for (int i = 0; i < ENTITIES; i++) {
+            componentStore.set(i, new Sample());
+        }
+    }
+
+    /**
+     * The state of each reader or writer thread
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final Sample component = new Sample();
+        private int id = (int) (Thread.currentThread().getId() * 7919 % ENTITIES);
+        private long count;
+
+        int next() {
+            id = (id + 1 == ENTITIES) ? 0 : id + 1;
+            return id;
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public boolean read(Cursor cursor) {
+        return componentStore.get(cursor.next(), cursor.component);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public boolean write(Cursor cursor) {
+        cursor.component.setName("Name " + (cursor.count++ & 0xFF));
+        return componentStore.set(cursor.next(), cursor.component);
+    }
+}
@@ -0,0 +1,87 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.entity.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.store.ArrayComponentStore;
+import org.terasology.gestalt.entitysystem.component.store.BenchmarkEntities;
+import org.terasology.gestalt.entitysystem.entity.EntityIterator;
+
+import java.util.concurrent.TimeUnit;
+
+import modules.test.components.Sample;
+import modules.test.components.Second;
+
+/**
+ * Measures iterating over the entities of a CoreEntityManager that have one or two components. Every entity has a
+ * Sample component, and a proportion of them given by the density also have a Second component.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityIterationBenchmark {
+
+    @Param({"10000", "100000"})
+    public int entityCount;
+
+    @Param({"0.1", "0.5", "1.0"})
+    public double density;
+
+    @Param({"false", "true"})
+    public boolean archetypes;
+
+    private CoreEntityManager entityManager;
+    private Sample sample = new Sample();
+    private Second second = new Second();
+
+    @Setup
+    public void setup() {
+        ComponentManager componentManager = new ComponentManager();
+        entityManager = new CoreEntityManager(new ArrayComponentStore<>(componentManager.getType(Sample.class), entityCount),
+                new ArrayComponentStore<>(componentManager.getType(Second.class), entityCount));
+        entityManager.setArchetypeStorageEnabled(archetypes);
+        int[] withSecond = BenchmarkEntities.selectIds(entityCount, density);
+        int next = 0;
+        for (int i = 0; i < entityCount; i++) {
+            if (next < withSecond.length && withSecond[next] == i) {
+                entityManager.createEntity(new Sample(), new Second());
+                next++;
+            } else {
+                entityManager.createEntity(new Sample());
+            }
+        }
+    }
+
+    @Benchmark
+    public void iterateOne(Blackhole blackhole) {
+        EntityIterator iterator = entityManager.iterate(sample);
+        while (iterator.next()) {
+            blackhole.consume(sample);
+        }
+    }
+
+    @Benchmark
+    public void iterateTwo(Blackhole blackhole) {
+        EntityIterator iterator = entityManager.iterate(sample, second);
+        while (iterator.next()) {
+            blackhole.consume(sample);
+            blackhole.consume(second);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.store.ArrayComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.EntityView;
+import org.terasology.gestalt.entitysystem.entity.manager.CoreEntityManager;
+import org.terasology.gestalt.entitysystem.event.impl.EventSystemImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import modules.test.TestEvent;
+import modules.test.TestSynchEvent;
+import modules.test.components.Sample;
+import modules.test.components.Second;
+
+/**
+ * Measures sending an event to every entity of an entity manager and processing it, with a number of registered
+ * handlers of which half require a component that only half of the entities have. Partitions of 0 processes events
+ * sequentially, otherwise pending events are processed concurrently with that many partitions. Handlers that are not
+ * thread safe are run through the serial lane even when processing concurrently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSystemBenchmark {
+
+    @Param({"1000", "10000"})
+    public int entityCount;
+
+    @Param({"2", "8"})
+    public int handlers;
+
+    @Param({"0", "4"})
+    public int partitions;
+
+    @Param({"true", "false"})
+    public boolean threadSafe;
+
+    private final TestEvent event = new TestEvent("benchmark");
+    private final TestSynchEvent synchEvent = new TestSynchEvent("benchmark");
+    private final LongAdder handled = new LongAdder();
+    private ExecutorService executor;
+    private EventSystem eventSystem;
+    private List<EntityRef> entities;
+    private EntityView view;
+
+    @Setup
+    public void setup() {
+        ComponentManager componentManager = new ComponentManager();
+        CoreEntityManager entityManager = new CoreEntityManager(new ArrayComponentStore<>(componentManager.getType(Sample.class), entityCount),
+                new ArrayComponentStore<>(componentManager.getType(Second.class), entityCount));
+        entities = new ArrayList<>(entityCount);
+        for (int i = 0; i < entityCount; i++) {
+            entities.add((i % 2 == 0) ? entityManager.createEntity(new Sample(), new Second()) : entityManager.createEntity(new Sample()));
+        }
+        view = entityManager.createView(Sample.class);
+
+        if (partitions == 0) {
+            eventSystem = new EventSystemImpl();
+        } else {
+            executor = Executors.newFixedThreadPool(partitions);
+            eventSystem = new EventSystemImpl(executor, partitions);
+        }
+        for (int i = 0; i < handlers; i++) {
+            Class<? extends Component> required = (i % 2 == 0) ? Sample.class : Second.class;
+            eventSystem.registerHandler(TestEvent.class, new CountingHandler(), required);
+            eventSystem.registerHandler(TestSynchEvent.class, new CountingHandler(), required);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void sendAndProcess() {
+        for (EntityRef entity : entities) {
+            eventSystem.send(event, entity);
+        }
+        eventSystem.processEvents();
+    }
+
+    @Benchmark
+    public void sendBatchAndProcess() {
+        eventSystem.sendBatch(event, entities);
+        eventSystem.processEvents();
+    }
+
+    @Benchmark
+    public void broadcastAndProcess() {
+        eventSystem.broadcast(event, view);
+        eventSystem.processEvents();
+    }
+
+    @Benchmark
+    public void sendSynchronous() {
+        for (EntityRef entity : entities) {
+            eventSystem.send(synchEvent, entity);
+        }
+    }
+
+    private class CountingHandler implements EventHandler<Event> {
+
+        @Override
+        public EventResult onEvent(Event receivedEvent, EntityRef entity) {
+            handled.increment();
+            return EventResult.CONTINUE;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+    }
+}
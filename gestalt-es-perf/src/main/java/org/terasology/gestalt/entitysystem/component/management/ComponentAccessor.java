@@ -0,0 +1,279 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.management;
+
+import com.google.common.base.Preconditions;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Bulk and index-based access to the properties of a type of component. Properties are identified by their index, in
+ * the order of their names, so that a consumer can look up the index of each property once and then access the
+ * property without going through a per-property accessor. Properties of primitive types can be accessed without boxing
+ * through the typed get and set methods.
+ * <p>
+ * The base implementation works through the get and set methods of a subclass. Accessors produced by
+ * {@link GeneratedComponentTypeFactory} override every method with code specialized to the component class.
+ *
+ * @param <T> The type of component
+ */
+public abstract class ComponentAccessor<T extends Component<T>> {
+
+    private final Class<T> componentClass;
+    private final PropertyAccessor<T, ?>[] properties;
+
+    /**
+     * @param componentClass The class of component
+     * @param properties     The properties of the component, in index order
+     */
+    protected ComponentAccessor(Class<T> componentClass, PropertyAccessor<T, ?>[] properties) {
+        this.componentClass = componentClass;
+        this.properties = properties;
+    }
+
+    /**
+     * @return The class of component this accessor is for
+     */
+    public Class<T> getComponentClass() {
+        return componentClass;
+    }
+
+    /**
+     * @return The number of properties of the component
+     */
+    public int getPropertyCount() {
+        return properties.length;
+    }
+
+    /**
+     * @param index The index of a property
+     * @return The accessor for the property
+     */
+    public PropertyAccessor<T, ?> getProperty(int index) {
+        return properties[Preconditions.checkElementIndex(index, properties.length)];
+    }
+
+    /**
+     * @param name The name of a property
+     * @return The index of the property, or -1 if the component has no such property
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < properties.length; i++) {
+            if (properties[i].getName().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return A new instance of the component
+     */
+    public abstract T create();
+
+    /**
+     * @param from The component to copy
+     * @return A new copy of the component
+     */
+    public T createCopy(T from) {
+        T result = create();
+        copy(from, result);
+        return result;
+    }
+
+    /**
+     * Copies one component into another
+     *
+     * @param from The component to copy from
+     * @param to   The component to copy into
+     */
+    public void copy(T from, T to) {
+        to.copyFrom(from);
+    }
+
+    /**
+     * Compares the properties of two components, comparing arrays by their contents
+     *
+     * @param a A component
+     * @param b Another component of the same type
+     * @return Whether every property of the two components is equal
+     */
+    public boolean propertiesEqual(T a, T b) {
+        for (int i = 0; i < properties.length; i++) {
+            if (!Objects.deepEquals(get(a, i), get(b, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param component A component
+     * @return A hash of the properties of the component, consistent with {@link #propertiesEqual}
+     */
+    public int propertiesHash(T component) {
+        int result = 1;
+        for (int i = 0; i < properties.length; i++) {
+            result = 31 * result + hashOf(get(component, i));
+        }
+        return result;
+    }
+
+    /**
+     * @param component The component to get the property of
+     * @param index     The index of the property
+     * @return The value of the property
+     * @throws IndexOutOfBoundsException If there is no property with the given index
+     */
+    public abstract Object get(T component, int index);
+
+    /**
+     * @param component The component to set the property of
+     * @param index     The index of the property
+     * @param value     The new value of the property
+     * @throws IndexOutOfBoundsException If there is no property with the given index
+     * @throws ClassCastException        If the value is not of the type of the property
+     */
+    public abstract void set(T component, int index, Object value);
+
+    /**
+     * @param component The component to get the property of
+     * @param index     The index of an int property
+     * @return The value of the property
+     * @throws IllegalArgumentException If the property is not an int property
+     */
+    public int getInt(T component, int index) {
+        checkPropertyClass(index, Integer.TYPE);
+        return (Integer) get(component, index);
+    }
+
+    /**
+     * @param component The component to set the property of
+     * @param index     The index of an int property
+     * @param value     The new value of the property
+     * @throws IllegalArgumentException If the property is not an int property
+     */
+    public void setInt(T component, int index, int value) {
+        checkPropertyClass(index, Integer.TYPE);
+        set(component, index, value);
+    }
+
+    /**
+     * @param component The component to get the property of
+     * @param index     The index of a long property
+     * @return The value of the property
+     * @throws IllegalArgumentException If the property is not a long property
+     */
+    public long getLong(T component, int index) {
+        checkPropertyClass(index, Long.TYPE);
+        return (Long) get(component, index);
+    }
+
+    /**
+     * @param component The component to set the property of
+     * @param index     The index of a long property
+     * @param value     The new value of the property
+     * @throws IllegalArgumentException If the property is not a long property
+     */
+    public void setLong(T component, int index, long value) {
+        checkPropertyClass(index, Long.TYPE);
+        set(component, index, value);
+    }
+
+    /**
+     * @param component The component to get the property of
+     * @param index     The index of a float property
+     * @return The value of the property
+     * @throws IllegalArgumentException If the property is not a float property
+     */
+    public float getFloat(T component, int index) {
+        checkPropertyClass(index, Float.TYPE);
+        return (Float) get(component, index);
+    }
+
+    /**
+     * @param component The component to set the property of
+     * @param index     The index of a float property
+     * @param value     The new value of the property
+     * @throws IllegalArgumentException If the property is not a float property
+     */
+    public void setFloat(T component, int index, float value) {
+        checkPropertyClass(index, Float.TYPE);
+        set(component, index, value);
+    }
+
+    /**
+     * @param component The component to get the property of
+     * @param index     The index of a double property
+     * @return The value of the property
+     * @throws IllegalArgumentException If the property is not a double property
+     */
+    public double getDouble(T component, int index) {
+        checkPropertyClass(index, Double.TYPE);
+        return (Double) get(component, index);
+    }
+
+    /**
+     * @param component The component to set the property of
+     * @param index     The index of a double property
+     * @param value     The new value of the property
+     * @throws IllegalArgumentException If the property is not a double property
+     */
+    public void setDouble(T component, int index, double value) {
+        checkPropertyClass(index, Double.TYPE);
+        set(component, index, value);
+    }
+
+    /**
+     * @param component The component to get the property of
+     * @param index     The index of a boolean property
+     * @return The value of the property
+     * @throws IllegalArgumentException If the property is not a boolean property
+     */
+    public boolean getBoolean(T component, int index) {
+        checkPropertyClass(index, Boolean.TYPE);
+        return (Boolean) get(component, index);
+    }
+
+    /**
+     * @param component The component to set the property of
+     * @param index     The index of a boolean property
+     * @param value     The new value of the property
+     * @throws IllegalArgumentException If the property is not a boolean property
+     */
+    public void setBoolean(T component, int index, boolean value) {
+        checkPropertyClass(index, Boolean.TYPE);
+        set(component, index, value);
+    }
+
+    private void checkPropertyClass(int index, Class<?> expected) {
+        PropertyAccessor<T, ?> property = getProperty(index);
+        Preconditions.checkArgument(property.getPropertyClass() == expected, "Property '%s' of %s is not of type %s", property.getName(), componentClass, expected);
+    }
+
+    /**
+     * @param index The invalid index
+     * @return An exception to throw for an invalid property index
+     */
+    protected IndexOutOfBoundsException invalidIndex(int index) {
+        return new IndexOutOfBoundsException("Property index " + index + " out of range for " + componentClass + " with " + properties.length + " properties");
+    }
+
+    /**
+     * @param value A property value
+     * @return The hash of the value, hashing arrays by their contents
+     */
+    protected static int hashOf(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value.getClass().isArray()) {
+            return Arrays.deepHashCode(new Object[]{value});
+        }
+        return value.hashCode();
+    }
+}
@@ -0,0 +1,513 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.management;
+
+import com.google.common.base.CaseFormat;
+import com.google.common.base.Converter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Primitives;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+
+/**
+ * Generates the bytecode of a {@link ComponentAccessor} specialized to a component class, using ASM. The generated
+ * accessor is defined in its own class loader, a child of the component's class loader, so it can be unloaded along
+ * with the component class. As it is in a different runtime package to the component, the component class, its
+ * constructors and the members behind each property must be public.
+ */
+final class ComponentAccessorGenerator implements Opcodes {
+
+    private static final Converter<String, String> TO_LOWER_CAMEL = CaseFormat.UPPER_CAMEL.converterTo(CaseFormat.LOWER_CAMEL);
+    private static final String ACCESSOR = Type.getInternalName(ComponentAccessor.class);
+    private static final String CONSTRUCTOR_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Class.class), Type.getType(PropertyAccessor[].class));
+
+    /**
+     * Types whose values can be shared between components, so can be copied by assignment.
+     */
+    private static final Set<Class<?>> VALUE_CLASSES = ImmutableSet.of(Boolean.class, Byte.class, Character.class, Short.class, Integer.class,
+            Long.class, Float.class, Double.class, String.class, EntityRef.class);
+
+    private final Class<?> componentClass;
+    private final String owner;
+    private final String className;
+    private final Member[] members;
+    private final ClassWriter writer;
+
+    private ComponentAccessorGenerator(Class<?> componentClass, Member[] members) {
+        this.componentClass = componentClass;
+        this.owner = Type.getInternalName(componentClass);
+        this.className = owner + "$$Accessor";
+        this.members = members;
+        this.writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // Generated methods only ever merge frames holding their parameters, so avoid loading classes to find a common type
+                return "java/lang/Object";
+            }
+        };
+    }
+
+    /**
+     * Generates an accessor for a component class
+     *
+     * @param componentClass The class of component
+     * @param properties     The properties of the component, in index order
+     * @param <T>            The type of component
+     * @return The generated accessor
+     * @throws ComponentTypeGenerationException If the component class, its empty constructor or one of its properties is not public
+     * @throws ReflectiveOperationException     If the generated accessor cannot be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Component<T>> ComponentAccessor<T> generate(Class<T> componentClass, PropertyAccessor<T, ?>[] properties) throws ReflectiveOperationException {
+        if (!Modifier.isPublic(componentClass.getModifiers())) {
+            throw new ComponentTypeGenerationException("Component " + componentClass + " is not public");
+        }
+        try {
+            componentClass.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new ComponentTypeGenerationException("Component " + componentClass + " lacks a public empty constructor", e);
+        }
+        Member[] members = new Member[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            members[i] = resolve(componentClass, properties[i].getName());
+        }
+        ComponentAccessorGenerator generator = new ComponentAccessorGenerator(componentClass, members);
+        byte[] bytes = generator.generate();
+        GeneratedClassLoader classLoader = new GeneratedClassLoader(componentClass.getClassLoader());
+        Class<?> accessorClass = classLoader.define(generator.className.replace('/', '.'), bytes);
+        return (ComponentAccessor<T>) accessorClass.getConstructor(Class.class, PropertyAccessor[].class).newInstance(componentClass, properties);
+    }
+
+    /**
+     * Finds the members behind a property, following the same rules as {@link AbstractComponentTypeFactory}: a public
+     * field, or else a setter and matching getter.
+     */
+    private static Member resolve(Class<?> componentClass, String propertyName) {
+        try {
+            Field field = componentClass.getDeclaredField(propertyName);
+            if (Modifier.isPublic(field.getModifiers()) && !Modifier.isStatic(field.getModifiers())) {
+                return new Member(propertyName, field, null, null);
+            }
+        } catch (NoSuchFieldException e) {
+            // Not a field property
+        }
+        for (Method setter : componentClass.getDeclaredMethods()) {
+            if (setter.getReturnType() == Void.TYPE && setter.getName().startsWith("set") && setter.getParameterTypes().length == 1
+                    && propertyName.equals(TO_LOWER_CAMEL.convert(setter.getName().substring(3)))) {
+                String getterName = (setter.getParameterTypes()[0] == Boolean.TYPE ? "is" : "get") + setter.getName().substring(3);
+                Method getter;
+                try {
+                    getter = componentClass.getDeclaredMethod(getterName);
+                } catch (NoSuchMethodException e) {
+                    continue;
+                }
+                if (!isPublicInstanceMethod(getter) || !isPublicInstanceMethod(setter)) {
+                    throw new ComponentTypeGenerationException("Accessors for property '" + propertyName + "' of " + componentClass + " are not public");
+                }
+                if (getter.getReturnType().isPrimitive() != setter.getParameterTypes()[0].isPrimitive()
+                        || (getter.getReturnType().isPrimitive() && getter.getReturnType() != setter.getParameterTypes()[0])) {
+                    throw new ComponentTypeGenerationException("Accessors for property '" + propertyName + "' of " + componentClass + " have different primitive types");
+                }
+                return new Member(propertyName, null, getter, setter);
+            }
+        }
+        throw new ComponentTypeGenerationException("Unable to find accessors for property '" + propertyName + "' of " + componentClass);
+    }
+
+    private static boolean isPublicInstanceMethod(Method method) {
+        return Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers());
+    }
+
+    private byte[] generate() throws ReflectiveOperationException {
+        writer.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, ACCESSOR, null);
+        generateConstructor();
+        generateCreate();
+        if (hasCopyConstructor()) {
+            generateCreateCopy();
+        }
+        if (canCopyByAssignment()) {
+            generateCopy();
+        }
+        generatePropertiesEqual();
+        generatePropertiesHash();
+        generateGet();
+        generateSet();
+        generateTypedAccessors(Integer.TYPE, "Int");
+        generateTypedAccessors(Long.TYPE, "Long");
+        generateTypedAccessors(Float.TYPE, "Float");
+        generateTypedAccessors(Double.TYPE, "Double");
+        generateTypedAccessors(Boolean.TYPE, "Boolean");
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private boolean hasCopyConstructor() {
+        try {
+            componentClass.getConstructor(componentClass);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Components can be copied by assigning each property if every property holds a value that can be shared between
+     * components, and the component has no state beyond its properties. Otherwise the component's copyFrom is used.
+     */
+    private boolean canCopyByAssignment() {
+        if (componentClass.getSuperclass() != Object.class) {
+            return false;
+        }
+        for (Member member : members) {
+            if (!isValueClass(member.getValueClass()) || !isValueClass(member.setValueClass())) {
+                return false;
+            }
+        }
+        for (Field field : componentClass.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !isProperty(field.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValueClass(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || VALUE_CLASSES.contains(type);
+    }
+
+    private boolean isProperty(String name) {
+        for (Member member : members) {
+            if (member.name.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private MethodVisitor override(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method method = ComponentAccessor.class.getMethod(name, parameterTypes);
+        MethodVisitor mv = writer.visitMethod(ACC_PUBLIC, name, Type.getMethodDescriptor(method), null, null);
+        mv.visitCode();
+        return mv;
+    }
+
+    private static void end(MethodVisitor mv) {
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateConstructor() {
+        MethodVisitor mv = writer.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitMethodInsn(INVOKESPECIAL, ACCESSOR, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+        mv.visitInsn(RETURN);
+        end(mv);
+    }
+
+    private void generateCreate() throws NoSuchMethodException {
+        MethodVisitor mv = override("create");
+        mv.visitTypeInsn(NEW, owner);
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKESPECIAL, owner, "<init>", "()V", false);
+        mv.visitInsn(ARETURN);
+        end(mv);
+    }
+
+    private void generateCreateCopy() throws NoSuchMethodException {
+        MethodVisitor mv = override("createCopy", Component.class);
+        mv.visitTypeInsn(NEW, owner);
+        mv.visitInsn(DUP);
+        loadComponent(mv, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, owner, "<init>", Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(componentClass)), false);
+        mv.visitInsn(ARETURN);
+        end(mv);
+    }
+
+    private void generateCopy() throws NoSuchMethodException {
+        MethodVisitor mv = override("copy", Component.class, Component.class);
+        for (Member member : members) {
+            loadComponent(mv, 2);
+            loadComponent(mv, 1);
+            member.get(mv, owner);
+            if (!member.setValueClass().isPrimitive() && !member.setValueClass().isAssignableFrom(member.getValueClass())) {
+                mv.visitTypeInsn(CHECKCAST, Type.getInternalName(member.setValueClass()));
+            }
+            member.set(mv, owner);
+        }
+        mv.visitInsn(RETURN);
+        end(mv);
+    }
+
+    private void generatePropertiesEqual() throws NoSuchMethodException {
+        MethodVisitor mv = override("propertiesEqual", Component.class, Component.class);
+        Label notEqual = new Label();
+        for (Member member : members) {
+            loadComponent(mv, 1);
+            member.get(mv, owner);
+            loadComponent(mv, 2);
+            member.get(mv, owner);
+            Class<?> valueClass = member.getValueClass();
+            if (valueClass == Long.TYPE) {
+                mv.visitInsn(LCMP);
+                mv.visitJumpInsn(IFNE, notEqual);
+            } else if (valueClass == Float.TYPE) {
+                mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "compare", "(FF)I", false);
+                mv.visitJumpInsn(IFNE, notEqual);
+            } else if (valueClass == Double.TYPE) {
+                mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "compare", "(DD)I", false);
+                mv.visitJumpInsn(IFNE, notEqual);
+            } else if (valueClass.isPrimitive()) {
+                mv.visitJumpInsn(IF_ICMPNE, notEqual);
+            } else {
+                mv.visitMethodInsn(INVOKESTATIC, "java/util/Objects", "deepEquals", "(Ljava/lang/Object;Ljava/lang/Object;)Z", false);
+                mv.visitJumpInsn(IFEQ, notEqual);
+            }
+        }
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IRETURN);
+        mv.visitLabel(notEqual);
+        mv.visitInsn(ICONST_0);
+        mv.visitInsn(IRETURN);
+        end(mv);
+    }
+
+    private void generatePropertiesHash() throws NoSuchMethodException {
+        MethodVisitor mv = override("propertiesHash", Component.class);
+        mv.visitInsn(ICONST_1);
+        for (Member member : members) {
+            mv.visitIntInsn(BIPUSH, 31);
+            mv.visitInsn(IMUL);
+            loadComponent(mv, 1);
+            member.get(mv, owner);
+            Class<?> valueClass = member.getValueClass();
+            if (valueClass == Boolean.TYPE || valueClass == Long.TYPE || valueClass == Float.TYPE || valueClass == Double.TYPE) {
+                Class<?> wrapper = Primitives.wrap(valueClass);
+                mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(wrapper), "hashCode", Type.getMethodDescriptor(Type.INT_TYPE, Type.getType(valueClass)), false);
+            } else if (!valueClass.isPrimitive()) {
+                mv.visitMethodInsn(INVOKESTATIC, ACCESSOR, "hashOf", "(Ljava/lang/Object;)I", false);
+            }
+            mv.visitInsn(IADD);
+        }
+        mv.visitInsn(IRETURN);
+        end(mv);
+    }
+
+    private void generateGet() throws NoSuchMethodException {
+        MethodVisitor mv = override("get", Component.class, Integer.TYPE);
+        Label invalid = new Label();
+        Label[] cases = switchOnIndex(mv, invalid, null);
+        for (int i = 0; i < members.length; i++) {
+            mv.visitLabel(cases[i]);
+            loadComponent(mv, 1);
+            members[i].get(mv, owner);
+            Class<?> valueClass = members[i].getValueClass();
+            if (valueClass.isPrimitive()) {
+                Class<?> wrapper = Primitives.wrap(valueClass);
+                mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(wrapper), "valueOf", Type.getMethodDescriptor(Type.getType(wrapper), Type.getType(valueClass)), false);
+            }
+            mv.visitInsn(ARETURN);
+        }
+        throwInvalidIndex(mv, invalid);
+        end(mv);
+    }
+
+    private void generateSet() throws NoSuchMethodException {
+        MethodVisitor mv = override("set", Component.class, Integer.TYPE, Object.class);
+        Label invalid = new Label();
+        Label[] cases = switchOnIndex(mv, invalid, null);
+        for (int i = 0; i < members.length; i++) {
+            mv.visitLabel(cases[i]);
+            loadComponent(mv, 1);
+            mv.visitVarInsn(ALOAD, 3);
+            Class<?> valueClass = members[i].setValueClass();
+            if (valueClass.isPrimitive()) {
+                Class<?> wrapper = Primitives.wrap(valueClass);
+                mv.visitTypeInsn(CHECKCAST, Type.getInternalName(wrapper));
+                mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(wrapper), valueClass.getName() + "Value", Type.getMethodDescriptor(Type.getType(valueClass)), false);
+            } else if (valueClass != Object.class) {
+                mv.visitTypeInsn(CHECKCAST, Type.getInternalName(valueClass));
+            }
+            members[i].set(mv, owner);
+            mv.visitInsn(RETURN);
+        }
+        throwInvalidIndex(mv, invalid);
+        end(mv);
+    }
+
+    /**
+     * Generates the typed get and set methods for a primitive type, if the component has properties of that type. Any
+     * index that is not of that type is passed on to the base implementation to report.
+     */
+    private void generateTypedAccessors(Class<?> valueClass, String suffix) throws NoSuchMethodException {
+        boolean[] matches = new boolean[members.length];
+        boolean any = false;
+        for (int i = 0; i < members.length; i++) {
+            matches[i] = members[i].getValueClass() == valueClass;
+            any |= matches[i];
+        }
+        if (!any) {
+            return;
+        }
+        Type type = Type.getType(valueClass);
+
+        MethodVisitor mv = override("get" + suffix, Component.class, Integer.TYPE);
+        Label other = new Label();
+        Label[] cases = switchOnIndex(mv, other, matches);
+        for (int i = 0; i < members.length; i++) {
+            if (matches[i]) {
+                mv.visitLabel(cases[i]);
+                loadComponent(mv, 1);
+                members[i].get(mv, owner);
+                mv.visitInsn(type.getOpcode(IRETURN));
+            }
+        }
+        mv.visitLabel(other);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitVarInsn(ILOAD, 2);
+        mv.visitMethodInsn(INVOKESPECIAL, ACCESSOR, "get" + suffix, Type.getMethodDescriptor(type, Type.getType(Component.class), Type.INT_TYPE), false);
+        mv.visitInsn(type.getOpcode(IRETURN));
+        end(mv);
+
+        mv = override("set" + suffix, Component.class, Integer.TYPE, valueClass);
+        other = new Label();
+        cases = switchOnIndex(mv, other, matches);
+        for (int i = 0; i < members.length; i++) {
+            if (matches[i]) {
+                mv.visitLabel(cases[i]);
+                loadComponent(mv, 1);
+                mv.visitVarInsn(type.getOpcode(ILOAD), 3);
+                members[i].set(mv, owner);
+                mv.visitInsn(RETURN);
+            }
+        }
+        mv.visitLabel(other);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitVarInsn(ILOAD, 2);
+        mv.visitVarInsn(type.getOpcode(ILOAD), 3);
+        mv.visitMethodInsn(INVOKESPECIAL, ACCESSOR, "set" + suffix, Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Component.class), Type.INT_TYPE, type), false);
+        mv.visitInsn(RETURN);
+        end(mv);
+    }
+
+    /**
+     * Emits a switch on the property index parameter
+     *
+     * @param mv        The method being generated
+     * @param otherwise The label to jump to for any index without a case
+     * @param included  Which properties to have cases for, or null for all properties
+     * @return The label of the case for each property. Properties that are not included are mapped to otherwise.
+     */
+    private Label[] switchOnIndex(MethodVisitor mv, Label otherwise, boolean[] included) {
+        Label[] cases = new Label[members.length];
+        for (int i = 0; i < members.length; i++) {
+            cases[i] = (included == null || included[i]) ? new Label() : otherwise;
+        }
+        if (members.length == 0) {
+            mv.visitJumpInsn(GOTO, otherwise);
+        } else {
+            mv.visitVarInsn(ILOAD, 2);
+            mv.visitTableSwitchInsn(0, members.length - 1, otherwise, cases);
+        }
+        return cases;
+    }
+
+    private static void throwInvalidIndex(MethodVisitor mv, Label invalid) {
+        mv.visitLabel(invalid);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, 2);
+        mv.visitMethodInsn(INVOKEVIRTUAL, ACCESSOR, "invalidIndex", "(I)Ljava/lang/IndexOutOfBoundsException;", false);
+        mv.visitInsn(ATHROW);
+    }
+
+    private void loadComponent(MethodVisitor mv, int slot) {
+        mv.visitVarInsn(ALOAD, slot);
+        mv.visitTypeInsn(CHECKCAST, owner);
+    }
+
+    /**
+     * The field, or getter and setter, behind a property
+     */
+    private static final class Member {
+        private final String name;
+        private final Field field;
+        private final Method getter;
+        private final Method setter;
+
+        Member(String name, Field field, Method getter, Method setter) {
+            this.name = name;
+            this.field = field;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        Class<?> getValueClass() {
+            return (field != null) ? field.getType() : getter.getReturnType();
+        }
+
+        Class<?> setValueClass() {
+            return (field != null) ? field.getType() : setter.getParameterTypes()[0];
+        }
+
+        /**
+         * Emits the read of the property from the component on top of the stack
+         */
+        void get(MethodVisitor mv, String owner) {
+            if (field != null) {
+                mv.visitFieldInsn(GETFIELD, owner, field.getName(), Type.getDescriptor(field.getType()));
+            } else {
+                mv.visitMethodInsn(INVOKEVIRTUAL, owner, getter.getName(), Type.getMethodDescriptor(getter), false);
+            }
+        }
+
+        /**
+         * Emits the write of the value on top of the stack to the property of the component below it
+         */
+        void set(MethodVisitor mv, String owner) {
+            if (field != null) {
+                mv.visitFieldInsn(PUTFIELD, owner, field.getName(), Type.getDescriptor(field.getType()));
+            } else {
+                mv.visitMethodInsn(INVOKEVIRTUAL, owner, setter.getName(), Type.getMethodDescriptor(setter), false);
+            }
+        }
+    }
+
+    /**
+     * Defines a generated accessor as a child of its component's class loader, resolving the accessor base class to the
+     * one this generator uses even if the component's class loader cannot see it.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(ComponentAccessor.class.getName())) {
+                return ComponentAccessor.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.management;
+
+import android.support.annotation.NonNull;
+
+import com.google.common.collect.MapMaker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.gestalt.entitysystem.component.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A ComponentTypeFactory that generates the bytecode of a {@link ComponentAccessor} specialized to each component class,
+ * giving direct constructor calls, copying by assignment for components made up only of value properties, and
+ * index-based property access with unboxed access to primitive properties. Property discovery and the individual
+ * property accessors come from a fallback factory. The property accessors of generated component types go through
+ * the generated accessor, so their typed methods (such as {@link PropertyAccessor#getInt}) don't box values either.
+ * <p>
+ * Bytecode generation isn't possible on Android, or for components that aren't public or have non-public accessors.
+ * In those cases the component type from the fallback factory is used as is, and the accessor for the component works
+ * through its property accessors.
+ * <pre>
+ *     GeneratedComponentTypeFactory factory = new GeneratedComponentTypeFactory();
+ *     ComponentManager componentManager = new ComponentManager(factory);
+ *     ComponentAccessor&lt;Location&gt; accessor = factory.getAccessor(componentManager.getType(Location.class));
+ *     int x = accessor.indexOf("x");
+ *     float value = accessor.getFloat(location, x);
+ * </pre>
+ */
+public class GeneratedComponentTypeFactory implements ComponentTypeFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneratedComponentTypeFactory.class);
+    private static final boolean ANDROID = System.getProperty("java.vm.name", "").contains("Dalvik");
+
+    private final ComponentTypeFactory fallback;
+    private final ConcurrentMap<Class<?>, ComponentAccessor<?>> accessors = new MapMaker().weakKeys().weakValues().makeMap();
+
+    /**
+     * Creates the factory, falling back to a {@link LambdaComponentTypeFactory}, or a {@link MethodHandleComponentTypeFactory} on Android
+     */
+    public GeneratedComponentTypeFactory() {
+        this(ANDROID ? new MethodHandleComponentTypeFactory() : new LambdaComponentTypeFactory());
+    }
+
+    /**
+     * @param fallback The factory used to discover properties, and to create component types for components that
+     *                 accessors cannot be generated for
+     */
+    public GeneratedComponentTypeFactory(ComponentTypeFactory fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    @NonNull
+    public <T extends Component<T>> ComponentType<T> createComponentType(Class<T> type) {
+        ComponentType<T> componentType = fallback.createComponentType(type);
+        if (componentType.getPropertyInfo().getProperties().isEmpty()) {
+            // Keep the singleton behaviour of property-less components
+            return componentType;
+        }
+        ComponentAccessor<T> accessor = getAccessor(componentType);
+        if (accessor instanceof PropertyComponentAccessor) {
+            return componentType;
+        }
+        List<PropertyAccessor<T, ?>> properties = new ArrayList<>();
+        for (int i = 0; i < accessor.getPropertyCount(); i++) {
+            properties.add(new GeneratedPropertyAccessor<>(accessor, accessor.getProperty(i), i));
+        }
+        return new ComponentType<>(type, accessor::create, accessor::createCopy, new ComponentPropertyInfo<>(properties));
+    }
+
+    /**
+     * Provides the accessor for a type of component, generating it if necessary. Accessors are held only as long as the
+     * component types using them.
+     *
+     * @param componentType The type of component
+     * @param <T>           The type of component
+     * @return The accessor for the component. If an accessor cannot be generated for the component, the accessor works
+     * through the component type's property accessors instead.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component<T>> ComponentAccessor<T> getAccessor(ComponentType<T> componentType) {
+        ComponentAccessor<T> accessor = (ComponentAccessor<T>) accessors.get(componentType.getComponentClass());
+        if (accessor == null) {
+            accessor = createAccessor(componentType);
+            ComponentAccessor<T> existing = (ComponentAccessor<T>) accessors.putIfAbsent(componentType.getComponentClass(), accessor);
+            if (existing != null) {
+                accessor = existing;
+            }
+        }
+        return accessor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Component<T>> ComponentAccessor<T> createAccessor(ComponentType<T> componentType) {
+        PropertyAccessor<T, ?>[] properties = componentType.getPropertyInfo().getProperties().values().stream()
+                .sorted(Comparator.comparing(PropertyAccessor::getName))
+                .toArray(PropertyAccessor[]::new);
+        if (!ANDROID) {
+            try {
+                return ComponentAccessorGenerator.generate(componentType.getComponentClass(), properties);
+            } catch (ComponentTypeGenerationException e) {
+                logger.debug("Unable to generate accessor for {}: {}", componentType.getComponentClass(), e.getMessage());
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("Failed to generate accessor for {}", componentType.getComponentClass(), e);
+            }
+        }
+        return new PropertyComponentAccessor<>(componentType, properties);
+    }
+
+    /**
+     * An accessor working through the constructors and property accessors of a component type
+     */
+    private static final class PropertyComponentAccessor<T extends Component<T>> extends ComponentAccessor<T> {
+        private final ComponentType<T> componentType;
+
+        PropertyComponentAccessor(ComponentType<T> componentType, PropertyAccessor<T, ?>[] properties) {
+            super(componentType.getComponentClass(), properties);
+            this.componentType = componentType;
+        }
+
+        @Override
+        public T create() {
+            return componentType.create();
+        }
+
+        @Override
+        public T createCopy(T from) {
+            return componentType.createCopy(from);
+        }
+
+        @Override
+        public Object get(T component, int index) {
+            return getProperty(index).get(component);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void set(T component, int index, Object value) {
+            ((PropertyAccessor<T, Object>) getProperty(index)).set(component, value);
+        }
+    }
+
+    /**
+     * A property accessor working through the generated accessor of its component, giving unboxed access to primitive
+     * properties
+     */
+    private static final class GeneratedPropertyAccessor<T extends Component<T>> extends PropertyAccessor<T, Object> {
+        private final ComponentAccessor<T> accessor;
+        private final int index;
+
+        GeneratedPropertyAccessor(ComponentAccessor<T> accessor, PropertyAccessor<T, ?> property, int index) {
+            super(property.getName(), property.getOwningClass(), property.getPropertyType(),
+                    component -> accessor.get(component, index), (component, value) -> accessor.set(component, index, value));
+            this.accessor = accessor;
+            this.index = index;
+        }
+
+        @Override
+        public int getInt(T instance) {
+            return accessor.getInt(instance, index);
+        }
+
+        @Override
+        public void setInt(T instance, int value) {
+            accessor.setInt(instance, index, value);
+        }
+
+        @Override
+        public long getLong(T instance) {
+            return accessor.getLong(instance, index);
+        }
+
+        @Override
+        public void setLong(T instance, long value) {
+            accessor.setLong(instance, index, value);
+        }
+
+        @Override
+        public float getFloat(T instance) {
+            return accessor.getFloat(instance, index);
+        }
+
+        @Override
+        public void setFloat(T instance, float value) {
+            accessor.setFloat(instance, index, value);
+        }
+
+        @Override
+        public double getDouble(T instance) {
+            return accessor.getDouble(instance, index);
+        }
+
+        @Override
+        public void setDouble(T instance, double value) {
+            accessor.setDouble(instance, index, value);
+        }
+
+        @Override
+        public boolean getBoolean(T instance) {
+            return accessor.getBoolean(instance, index);
+        }
+
+        @Override
+        public void setBoolean(T instance, boolean value) {
+            accessor.setBoolean(instance, index, value);
+        }
+    }
+}
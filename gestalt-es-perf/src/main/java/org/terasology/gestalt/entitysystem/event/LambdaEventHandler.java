@@ -0,0 +1,203 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event;
+
+import android.support.annotation.RequiresApi;
+
+import com.google.common.collect.ImmutableList;
+
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.event.exception.EventSystemException;
+import org.terasology.gestalt.entitysystem.event.impl.EventReceiverMethodSupport;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An event handler that makes use of Java 8's LambdaMetafactory class to generate an invoker specialized to the
+ * receiving method, so that events are dispatched without reflection or an argument array. Component parameters are
+ * loaded from the entity into reusable component instances held per thread, rather than a new copy of each component
+ * being created for every event.
+ * <p>
+ * As the component instances are reused, receiving methods must not retain references to their component parameters
+ * beyond the handling of the event.
+ * <pre>
+ *     new EventReceiverMethodSupport(LambdaEventHandler.factory(componentManager));
+ * </pre>
+ */
+@RequiresApi(26)
+public class LambdaEventHandler implements EventHandler {
+
+    private static final Class<?>[] INVOKER_TYPES = {Invoker0.class, Invoker1.class, Invoker2.class, Invoker3.class, Invoker4.class};
+
+    private final Object invoker;
+    private final ImmutableList<Class<? extends Component>> componentParams;
+    private final ComponentManager componentManager;
+    private final ThreadLocal<ComponentBuffer> buffers;
+    private final boolean threadSafe;
+
+    /**
+     * @param handler          The object providing the event handler
+     * @param method           The event handling method
+     * @param componentParams  Any component parameters the event declares
+     * @param componentManager The component manager used to create the reusable component instances
+     */
+    public LambdaEventHandler(Object handler,
+                              Method method,
+                              Collection<Class<? extends Component>> componentParams,
+                              ComponentManager componentManager) {
+        this.componentParams = ImmutableList.copyOf(componentParams);
+        this.componentManager = componentManager;
+        this.invoker = createInvoker(handler, method, this.componentParams.size());
+        this.buffers = ThreadLocal.withInitial(this::createBuffer);
+        this.threadSafe = EventReceiverMethodSupport.isConcurrent(handler, method);
+    }
+
+    /**
+     * @param componentManager The component manager used to create the reusable component instances
+     * @return An EventHandlerFactory producing LambdaEventHandlers
+     */
+    public static EventHandlerFactory factory(ComponentManager componentManager) {
+        return (handler, method, componentParams) -> new LambdaEventHandler(handler, method, componentParams, componentManager);
+    }
+
+    private static Object createInvoker(Object handler, Method method, int componentCount) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            MethodHandle handle = lookup.unreflect(method);
+            if (componentCount >= INVOKER_TYPES.length || handle.type().returnType() != EventResult.class) {
+                return new SpreadInvoker(handle.bindTo(handler).asSpreader(Object[].class, EventReceiverMethodSupport.FIXED_PARAM_COUNT + componentCount));
+            }
+            Class<?>[] samParams = new Class<?>[EventReceiverMethodSupport.FIXED_PARAM_COUNT + componentCount];
+            samParams[0] = Event.class;
+            samParams[1] = EntityRef.class;
+            Arrays.fill(samParams, EventReceiverMethodSupport.FIXED_PARAM_COUNT, samParams.length, Component.class);
+            MethodType instantiatedType = handle.type().dropParameterTypes(0, 1);
+            return LambdaMetafactory.metafactory(lookup, "invoke", MethodType.methodType(INVOKER_TYPES[componentCount], handle.type().parameterType(0)),
+                    MethodType.methodType(EventResult.class, samParams), handle, instantiatedType).getTarget().invoke(handler);
+        } catch (Throwable e) {
+            throw new EventSystemException("Failed to generate invoker for " + method, e);
+        }
+    }
+
+    private ComponentBuffer createBuffer() {
+        Component[] components = new Component[componentParams.size()];
+        for (int i = 0; i < components.length; i++) {
+            components[i] = componentManager.getType(componentParams.get(i)).create();
+        }
+        return new ComponentBuffer(components);
+    }
+
+    @Override
+    public EventResult onEvent(Event event, EntityRef entity) {
+        ComponentBuffer buffer = buffers.get();
+        if (buffer.inUse) {
+            // The handler is being re-entered, such as through a synchronous event, so the shared buffer is still in use
+            return invoke(event, entity, createBuffer());
+        }
+        buffer.inUse = true;
+        try {
+            return invoke(event, entity, buffer);
+        } finally {
+            buffer.inUse = false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private EventResult invoke(Event event, EntityRef entity, ComponentBuffer buffer) {
+        Component[] components = buffer.components;
+        for (Component component : components) {
+            if (!entity.getComponent(component)) {
+                throw new EventSystemException("Component unexpectedly missing");
+            }
+        }
+        if (invoker instanceof SpreadInvoker) {
+            return ((SpreadInvoker) invoker).invoke(event, entity, components);
+        }
+        switch (components.length) {
+            case 0:
+                return ((Invoker0) invoker).invoke(event, entity);
+            case 1:
+                return ((Invoker1) invoker).invoke(event, entity, components[0]);
+            case 2:
+                return ((Invoker2) invoker).invoke(event, entity, components[0], components[1]);
+            case 3:
+                return ((Invoker3) invoker).invoke(event, entity, components[0], components[1], components[2]);
+            default:
+                return ((Invoker4) invoker).invoke(event, entity, components[0], components[1], components[2], components[3]);
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    /**
+     * The reusable component instances of a thread
+     */
+    private static final class ComponentBuffer {
+        private final Component[] components;
+        private boolean inUse;
+
+        ComponentBuffer(Component[] components) {
+            this.components = components;
+        }
+    }
+
+    @FunctionalInterface
+    interface Invoker0 {
+        EventResult invoke(Event event, EntityRef entity);
+    }
+
+    @FunctionalInterface
+    interface Invoker1 {
+        EventResult invoke(Event event, EntityRef entity, Component c1);
+    }
+
+    @FunctionalInterface
+    interface Invoker2 {
+        EventResult invoke(Event event, EntityRef entity, Component c1, Component c2);
+    }
+
+    @FunctionalInterface
+    interface Invoker3 {
+        EventResult invoke(Event event, EntityRef entity, Component c1, Component c2, Component c3);
+    }
+
+    @FunctionalInterface
+    interface Invoker4 {
+        EventResult invoke(Event event, EntityRef entity, Component c1, Component c2, Component c3, Component c4);
+    }
+
+    /**
+     * Invoker for methods with more component parameters than there are specialized invokers for, or that do not return an EventResult
+     */
+    private static final class SpreadInvoker {
+        private final MethodHandle handle;
+
+        SpreadInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        EventResult invoke(Event event, EntityRef entity, Component[] components) {
+            Object[] params = new Object[EventReceiverMethodSupport.FIXED_PARAM_COUNT + components.length];
+            params[0] = event;
+            params[1] = entity;
+            System.arraycopy(components, 0, params, EventReceiverMethodSupport.FIXED_PARAM_COUNT, components.length);
+            try {
+                return (EventResult) handle.invoke(params);
+            } catch (Throwable e) {
+                throw new EventSystemException("Error processing event", e);
+            }
+        }
+    }
+}
@@ -42,6 +42,7 @@ public class MethodHandleEventHandle implements EventHandler {
     private Object handler;
     private MethodHandle methodHandle;
     private ImmutableList<Class<? extends Component>> componentParams;
+    private boolean threadSafe;
 
     public MethodHandleEventHandle(Object handler,
                                    Method method,
@@ -54,6 +55,12 @@ public MethodHandleEventHandle(Object handler,
 
         }
         this.componentParams = ImmutableList.copyOf(componentParams);
+        this.threadSafe = EventReceiverMethodSupport.isConcurrent(handler, method);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return threadSafe;
     }
 
     @Override
@@ -0,0 +1,142 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.component.management;
+
+import org.junit.Test;
+import org.terasology.gestalt.entitysystem.component.Component;
+import org.terasology.gestalt.entitysystem.component.management.perf.ComponentManagerTest;
+
+import modules.test.components.ArrayContainingComponent;
+import modules.test.components.PrimitiveComponent;
+import modules.test.components.Sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ */
+public class GeneratedComponentTypeFactoryTest extends ComponentManagerTest {
+
+    private final GeneratedComponentTypeFactory factory = new GeneratedComponentTypeFactory();
+
+    public ComponentTypeFactory getComponentTypeFactory() {
+        return factory;
+    }
+
+    @Test
+    public void accessorIsGenerated() {
+        ComponentAccessor<PrimitiveComponent> accessor = factory.getAccessor(new ComponentManager(factory).getType(PrimitiveComponent.class));
+        assertNotSame(ComponentAccessor.class.getClassLoader(), accessor.getClass().getClassLoader());
+    }
+
+    @Test
+    public void primitiveAccess() {
+        ComponentAccessor<PrimitiveComponent> accessor = factory.getAccessor(new ComponentManager(factory).getType(PrimitiveComponent.class));
+        PrimitiveComponent component = new PrimitiveComponent();
+        accessor.setInt(component, accessor.indexOf("count"), 3);
+        accessor.setLong(component, accessor.indexOf("timestamp"), 4L);
+        accessor.setFloat(component, accessor.indexOf("speed"), 1.5f);
+        accessor.setDouble(component, accessor.indexOf("weight"), 2.5);
+        accessor.setBoolean(component, accessor.indexOf("active"), true);
+
+        assertEquals(3, component.getCount());
+        assertEquals(4L, component.getTimestamp());
+        assertEquals(1.5f, component.getSpeed(), 0);
+        assertEquals(2.5, component.getWeight(), 0);
+        assertTrue(component.isActive());
+        assertEquals(3, accessor.getInt(component, accessor.indexOf("count")));
+        assertEquals(4L, accessor.getLong(component, accessor.indexOf("timestamp")));
+        assertEquals(1.5f, accessor.getFloat(component, accessor.indexOf("speed")), 0);
+        assertEquals(2.5, accessor.getDouble(component, accessor.indexOf("weight")), 0);
+        assertTrue(accessor.getBoolean(component, accessor.indexOf("active")));
+        assertEquals(3, accessor.get(component, accessor.indexOf("count")));
+    }
+
+    @Test
+    public void componentTypePropertiesHavePrimitiveAccess() {
+        ComponentType<PrimitiveComponent> type = new ComponentManager(factory).getType(PrimitiveComponent.class);
+        PropertyAccessor<PrimitiveComponent, ?> count = type.getPropertyInfo().getProperty("count").get();
+        PrimitiveComponent component = new PrimitiveComponent();
+        count.setInt(component, 3);
+
+        assertEquals(3, component.getCount());
+        assertEquals(3, count.getInt(component));
+        assertEquals(3, count.get(component));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void primitiveAccessOfWrongType() {
+        ComponentAccessor<PrimitiveComponent> accessor = factory.getAccessor(new ComponentManager(factory).getType(PrimitiveComponent.class));
+        accessor.getInt(new PrimitiveComponent(), accessor.indexOf("timestamp"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void invalidPropertyIndex() {
+        ComponentAccessor<Sample> accessor = factory.getAccessor(new ComponentManager(factory).getType(Sample.class));
+        accessor.get(new Sample(), accessor.getPropertyCount());
+    }
+
+    @Test
+    public void indexedAccess() {
+        ComponentAccessor<Sample> accessor = factory.getAccessor(new ComponentManager(factory).getType(Sample.class));
+        Sample sample = new Sample();
+        accessor.set(sample, accessor.indexOf("name"), "Fred");
+        assertEquals("Fred", sample.getName());
+        assertEquals("Fred", accessor.get(sample, accessor.indexOf("name")));
+        assertEquals(-1, accessor.indexOf("missing"));
+    }
+
+    @Test
+    public void copyAndCompare() {
+        ComponentAccessor<PrimitiveComponent> accessor = factory.getAccessor(new ComponentManager(factory).getType(PrimitiveComponent.class));
+        PrimitiveComponent original = new PrimitiveComponent();
+        original.setCount(7);
+        original.setSpeed(Float.NaN);
+        PrimitiveComponent copy = new PrimitiveComponent();
+        assertFalse(accessor.propertiesEqual(original, copy));
+
+        accessor.copy(original, copy);
+        assertEquals(7, copy.getCount());
+        assertTrue(Float.isNaN(copy.getSpeed()));
+        assertTrue(accessor.propertiesEqual(original, copy));
+        assertEquals(accessor.propertiesHash(original), accessor.propertiesHash(copy));
+    }
+
+    @Test
+    public void copyWithMutablePropertiesUsesCopyFrom() {
+        ComponentAccessor<ArrayContainingComponent> accessor = factory.getAccessor(new ComponentManager(factory).getType(ArrayContainingComponent.class));
+        ArrayContainingComponent original = new ArrayContainingComponent();
+        original.strings.add("Hello");
+        ArrayContainingComponent copy = accessor.createCopy(original);
+        assertEquals(original.strings, copy.strings);
+        assertNotSame(original.strings, copy.strings);
+        assertTrue(accessor.propertiesEqual(original, copy));
+    }
+
+    @Test
+    public void fallbackForNonPublicConstructor() {
+        ComponentAccessor<NonPublicConstructorComponent> accessor = factory.getAccessor(new ComponentManager(factory).getType(NonPublicConstructorComponent.class));
+        assertSame(ComponentAccessor.class.getClassLoader(), accessor.getClass().getClassLoader());
+        NonPublicConstructorComponent component = accessor.create();
+        accessor.setInt(component, accessor.indexOf("value"), 12);
+        assertEquals(12, component.value);
+        assertEquals(12, accessor.createCopy(component).value);
+    }
+
+    public static class NonPublicConstructorComponent implements Component<NonPublicConstructorComponent> {
+        public int value;
+
+        NonPublicConstructorComponent() {
+        }
+
+        @Override
+        public void copyFrom(NonPublicConstructorComponent other) {
+            this.value = other.value;
+        }
+    }
+}
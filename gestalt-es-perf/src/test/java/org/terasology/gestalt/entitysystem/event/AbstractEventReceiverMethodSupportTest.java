@@ -43,10 +43,10 @@
  */
 public abstract class AbstractEventReceiverMethodSupportTest {
 
-    private EntityRef entity = mock(EntityRef.class);
+    protected EntityRef entity = mock(EntityRef.class);
 
     protected abstract EventHandlerFactory getEventHandlerFactory();
-    private EventReceiverMethodSupport eventReceiverMethodSupport;
+    protected EventReceiverMethodSupport eventReceiverMethodSupport;
 
     @org.junit.Before
     public void setup() {
@@ -0,0 +1,113 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.gestalt.entitysystem.event;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.terasology.gestalt.entitysystem.component.management.ComponentManager;
+import org.terasology.gestalt.entitysystem.component.management.LambdaComponentTypeFactory;
+import org.terasology.gestalt.entitysystem.component.store.ArrayComponentStore;
+import org.terasology.gestalt.entitysystem.entity.EntityManager;
+import org.terasology.gestalt.entitysystem.entity.EntityRef;
+import org.terasology.gestalt.entitysystem.entity.manager.CoreEntityManager;
+
+import java.util.Collections;
+
+import modules.test.TestEvent;
+import modules.test.components.Sample;
+import modules.test.components.Second;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LambdaEventReceiverMethodSupportTest extends AbstractEventReceiverMethodSupportTest {
+
+    private ComponentManager componentManager = new ComponentManager(new LambdaComponentTypeFactory());
+
+    @Override
+    protected EventHandlerFactory getEventHandlerFactory() {
+        return LambdaEventHandler.factory(componentManager);
+    }
+
+    /**
+     * Components are loaded into reusable instances, so the entity is asked to fill in a component rather than provide one
+     */
+    @Override
+    @Test
+    public void registerWithComponentArg() {
+        MixedFilteredEventReceiver receiver = new MixedFilteredEventReceiver();
+        EventSystem system = mock(EventSystem.class);
+        eventReceiverMethodSupport.register(receiver, system);
+
+        final ArgumentCaptor<EventHandler> captor = ArgumentCaptor.forClass(EventHandler.class);
+        verify(system).registerHandler(eq(TestEvent.class), captor.capture(), eq(MixedFilteredEventReceiver.class), eq(Collections.emptySet()), eq(Collections.emptySet()), eq(Sets.newHashSet(Sample.class, Second.class)));
+
+        TestEvent event = new TestEvent("test");
+
+        Second comp = new Second();
+        comp.setName("Test");
+        when(entity.getComponent(any(Second.class))).thenAnswer(invocation -> {
+            ((Second) invocation.getArguments()[0]).copyFrom(comp);
+            return true;
+        });
+        captor.getValue().onEvent(event, entity);
+        assertEquals(event, receiver.lastEvent);
+        assertEquals(entity, receiver.lastEntity);
+        assertEquals(comp, receiver.comp);
+    }
+
+    @Test
+    public void componentInstancesReused() {
+        EntityManager entityManager = new CoreEntityManager(Lists.newArrayList(new ArrayComponentStore<>(componentManager.getType(Second.class))));
+        MixedFilteredEventReceiver receiver = new MixedFilteredEventReceiver();
+        Second first = new Second();
+        first.setName("first");
+        Second second = new Second();
+        second.setName("second");
+        EntityRef firstEntity = entityManager.createEntity(first);
+        EntityRef secondEntity = entityManager.createEntity(second);
+
+        ArgumentCaptor<EventHandler> captor = ArgumentCaptor.forClass(EventHandler.class);
+        EventSystem mockSystem = mock(EventSystem.class);
+        eventReceiverMethodSupport.register(receiver, mockSystem);
+        verify(mockSystem).registerHandler(eq(TestEvent.class), captor.capture(), eq(MixedFilteredEventReceiver.class), eq(Collections.emptySet()), eq(Collections.emptySet()), eq(Sets.newHashSet(Sample.class, Second.class)));
+        EventHandler handler = captor.getValue();
+
+        handler.onEvent(new TestEvent("test"), firstEntity);
+        Second received = receiver.comp;
+        assertEquals("first", received.getName());
+        handler.onEvent(new TestEvent("test"), secondEntity);
+        assertSame(received, receiver.comp);
+        assertEquals("second", received.getName());
+    }
+
+    @Test
+    public void concurrentAnnotationMakesHandlerThreadSafe() {
+        ConcurrentEventReceiver receiver = new ConcurrentEventReceiver();
+        EventSystem system = mock(EventSystem.class);
+        eventReceiverMethodSupport.register(receiver, system);
+
+        final ArgumentCaptor<EventHandler> captor = ArgumentCaptor.forClass(EventHandler.class);
+        verify(system).registerHandler(eq(TestEvent.class), captor.capture(), eq(ConcurrentEventReceiver.class), eq(Collections.emptySet()), eq(Collections.emptySet()), eq(Collections.emptySet()));
+        assertTrue(captor.getValue().isThreadSafe());
+    }
+
+    public static class ConcurrentEventReceiver {
+
+        @Concurrent
+        @ReceiveEvent
+        public EventResult onEvent(TestEvent event, EntityRef entity) {
+            return EventResult.CONTINUE;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.gestalt.annotation.processing;
+
+import com.google.common.base.CaseFormat;
+import com.google.common.base.Converter;
+import com.google.common.collect.Lists;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a ComponentTypeDescriptor for each component class, providing the constructor, copy constructor and property
+ * accessors of the component without runtime reflection. Properties are discovered following the same rules as the
+ * entity system's AbstractComponentTypeFactory: public fields, and setters with a matching getter.
+ * <p>
+ * Descriptors can't be generated for components that are generic, that are not accessible from their package, or whose
+ * constructor or property accessors are private - these are left to the runtime ComponentTypeFactory.
+ */
+public class ComponentTypeProcessor extends AbstractProcessor {
+
+    private static final String COMPONENT_CLASS = "org.terasology.gestalt.entitysystem.component.Component";
+    private static final String MANAGEMENT_PACKAGE = "org.terasology.gestalt.entitysystem.component.management";
+    private static final ClassName DESCRIPTOR = ClassName.get(MANAGEMENT_PACKAGE, "ComponentTypeDescriptor");
+    private static final ClassName COMPONENT_TYPE = ClassName.get(MANAGEMENT_PACKAGE, "ComponentType");
+    private static final ClassName PROPERTY_INFO = ClassName.get(MANAGEMENT_PACKAGE, "ComponentPropertyInfo");
+    private static final ClassName PROPERTY_ACCESSOR = ClassName.get(MANAGEMENT_PACKAGE, "PropertyAccessor");
+    private static final String CLASS_SUFFIX = "$ComponentTypeDescriptor";
+    private static final Converter<String, String> TO_LOWER_CAMEL = CaseFormat.UPPER_CAMEL.converterTo(CaseFormat.LOWER_CAMEL);
+
+    private final Set<String> processed = new HashSet<>();
+    private Filer filer;
+    private Messager messager;
+    private Types typeUtils;
+    private TypeElement componentElement;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnvironment) {
+        super.init(processingEnvironment);
+        this.filer = processingEnvironment.getFiler();
+        this.messager = processingEnvironment.getMessager();
+        this.typeUtils = processingEnvironment.getTypeUtils();
+        this.componentElement = processingEnvironment.getElementUtils().getTypeElement(COMPONENT_CLASS);
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton("*");
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment environment) {
+        if (componentElement == null) {
+            // The entity system is not on the classpath, so there are no components
+            return false;
+        }
+        List<TypeElement> components = new ArrayList<>();
+        for (TypeElement type : ElementFilter.typesIn(environment.getRootElements())) {
+            findComponents(type, components);
+        }
+        int count = 0;
+        for (TypeElement component : components) {
+            if (processed.add(component.getQualifiedName().toString()) && writeDescriptor(component)) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            messager.printMessage(Diagnostic.Kind.NOTE, String.format("Created component type descriptors for %s components", count));
+        }
+        return false;
+    }
+
+    private void findComponents(TypeElement type, List<TypeElement> components) {
+        if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT)
+                && typeUtils.isAssignable(typeUtils.erasure(type.asType()), typeUtils.erasure(componentElement.asType()))) {
+            components.add(type);
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            findComponents(nested, components);
+        }
+    }
+
+    /**
+     * Writes the descriptor of a component, if one can be generated
+     *
+     * @param component The component class
+     * @return Whether a descriptor was written
+     */
+    private boolean writeDescriptor(TypeElement component) {
+        if (!isAccessible(component) || !component.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        ExecutableElement emptyConstructor = null;
+        ExecutableElement copyConstructor = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(component.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            if (constructor.getParameters().isEmpty()) {
+                emptyConstructor = constructor;
+            } else if (constructor.getParameters().size() == 1 && typeUtils.isSameType(constructor.getParameters().get(0).asType(), component.asType())) {
+                copyConstructor = constructor;
+            }
+        }
+        if (emptyConstructor == null) {
+            return false;
+        }
+        Map<String, Property> properties = discoverProperties(component);
+        if (properties == null) {
+            return false;
+        }
+
+        ClassName componentName = ClassName.get(component);
+        CodeBlock.Builder body = CodeBlock.builder();
+        if (properties.isEmpty()) {
+            body.addStatement("$T instance = new $T()", componentName, componentName);
+            body.addStatement("return new $T<>($T.class, () -> instance, original -> instance, new $T<>($T.emptySet()))",
+                    COMPONENT_TYPE, componentName, PROPERTY_INFO, Collections.class);
+        } else {
+            TypeName accessorType = ParameterizedTypeName.get(PROPERTY_ACCESSOR, componentName, WildcardTypeName.subtypeOf(Object.class));
+            body.addStatement("$T<$T> properties = new $T<>()", List.class, accessorType, ArrayList.class);
+            for (Property property : properties.values()) {
+                body.addStatement("properties.add(new $T<$T, $T>($S, $T.class, $L, $L, $L))",
+                        PROPERTY_ACCESSOR, componentName, TypeName.get(property.type).box(), property.name, componentName,
+                        property.typeExpression, property.getter, property.setter);
+            }
+            CodeBlock copy;
+            if (copyConstructor != null) {
+                copy = CodeBlock.of("original -> new $T(original)", componentName);
+            } else {
+                copy = CodeBlock.of("original -> {\n$>$T copy = new $T();\ncopy.copyFrom(original);\nreturn copy;\n$<}", componentName, componentName);
+            }
+            body.addStatement("return new $T<>($T.class, () -> new $T(), $L, new $T<>(properties))",
+                    COMPONENT_TYPE, componentName, componentName, copy, PROPERTY_INFO);
+        }
+
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(component);
+        TypeSpec descriptor = TypeSpec.classBuilder(resolveUniqueName(component) + CLASS_SUFFIX)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addSuperinterface(ParameterizedTypeName.get(DESCRIPTOR, componentName))
+                .addMethod(MethodSpec.methodBuilder("createComponentType")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(ParameterizedTypeName.get(COMPONENT_TYPE, componentName))
+                        .addCode(body.build())
+                        .build())
+                .build();
+        try {
+            JavaFile.builder(packageElement.getQualifiedName().toString(), descriptor).build().writeTo(filer);
+            return true;
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cannot write component type descriptor: " + e.getMessage(), component);
+            return false;
+        }
+    }
+
+    /**
+     * @return Whether the component can be instantiated from a class in its package
+     */
+    private boolean isAccessible(TypeElement component) {
+        Element element = component;
+        while (element.getKind() == ElementKind.CLASS || element.getKind() == ElementKind.INTERFACE) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            Element enclosing = element.getEnclosingElement();
+            if (enclosing.getKind() != ElementKind.PACKAGE && !element.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            element = enclosing;
+        }
+        return true;
+    }
+
+    /**
+     * @return The properties of the component by name, or null if any property can't be accessed from generated code
+     */
+    private Map<String, Property> discoverProperties(TypeElement component) {
+        Map<String, Property> properties = new TreeMap<>();
+        List<ExecutableElement> methods = ElementFilter.methodsIn(component.getEnclosedElements());
+        for (ExecutableElement setter : methods) {
+            String setterName = setter.getSimpleName().toString();
+            if (setter.getReturnType().getKind() != TypeKind.VOID || !setterName.startsWith("set") || setter.getParameters().size() != 1) {
+                continue;
+            }
+            String propertyName = setterName.substring(3);
+            TypeMirror setterType = setter.getParameters().get(0).asType();
+            String getterName = (setterType.getKind() == TypeKind.BOOLEAN ? "is" : "get") + propertyName;
+            ExecutableElement getter = methods.stream()
+                    .filter(method -> method.getSimpleName().contentEquals(getterName) && method.getParameters().isEmpty())
+                    .findFirst().orElse(null);
+            if (getter == null) {
+                continue;
+            }
+            TypeMirror getterType = getter.getReturnType();
+            TypeMirror propertyType = null;
+            if (typeUtils.isSameType(getterType, setterType)) {
+                propertyType = setterType;
+            } else if (typeUtils.isAssignable(typeUtils.erasure(setterType), typeUtils.erasure(getterType))) {
+                propertyType = getterType;
+            } else if (typeUtils.isAssignable(typeUtils.erasure(getterType), typeUtils.erasure(setterType))) {
+                propertyType = setterType;
+            }
+            if (propertyType == null) {
+                continue;
+            }
+            if (getter.getModifiers().contains(Modifier.PRIVATE) || setter.getModifiers().contains(Modifier.PRIVATE)) {
+                return null;
+            }
+            CodeBlock typeExpression = typeExpression(propertyType);
+            if (typeExpression == null) {
+                return null;
+            }
+            CodeBlock setterValue = typeUtils.isSameType(propertyType, setterType)
+                    ? CodeBlock.of("value")
+                    : CodeBlock.of("($T) value", TypeName.get(setterType));
+            String name = TO_LOWER_CAMEL.convert(propertyName);
+            properties.put(name, new Property(name, propertyType, typeExpression,
+                    CodeBlock.of("component -> component.$L()", getterName),
+                    CodeBlock.of("(component, value) -> component.$L($L)", setterName, setterValue)));
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(component.getEnclosedElements())) {
+            if (!field.getModifiers().contains(Modifier.PUBLIC) || field.getModifiers().contains(Modifier.FINAL)) {
+                continue;
+            }
+            CodeBlock typeExpression = typeExpression(field.asType());
+            if (typeExpression == null) {
+                return null;
+            }
+            String name = field.getSimpleName().toString();
+            properties.put(name, new Property(name, field.asType(), typeExpression,
+                    CodeBlock.of("component -> component.$L", name),
+                    CodeBlock.of("(component, value) -> component.$L = value", name)));
+        }
+        return properties;
+    }
+
+    /**
+     * @return An expression producing the java.lang.reflect.Type of a property, or null if the type can't be expressed
+     */
+    private CodeBlock typeExpression(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return CodeBlock.of("$T.class", TypeName.get(type));
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            TypeMirror componentOf = ((ArrayType) type).getComponentType();
+            if (componentOf.getKind() == TypeKind.DECLARED && !((DeclaredType) componentOf).getTypeArguments().isEmpty()) {
+                return null;
+            }
+            return (componentOf.getKind().isPrimitive() || componentOf.getKind() == TypeKind.ARRAY || componentOf.getKind() == TypeKind.DECLARED)
+                    ? CodeBlock.of("$T.class", TypeName.get(typeUtils.erasure(type)))
+                    : null;
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            DeclaredType declaredType = (DeclaredType) type;
+            TypeName rawType = TypeName.get(typeUtils.erasure(type));
+            if (declaredType.getTypeArguments().isEmpty()) {
+                return CodeBlock.of("$T.class", rawType);
+            }
+            List<CodeBlock> arguments = Lists.newArrayList();
+            for (TypeMirror argument : declaredType.getTypeArguments()) {
+                CodeBlock argumentExpression = typeExpression(argument);
+                if (argumentExpression == null || argument.getKind().isPrimitive()) {
+                    return null;
+                }
+                arguments.add(argumentExpression);
+            }
+            return CodeBlock.of("$T.parameterize($T.class, $L)", DESCRIPTOR, rawType, CodeBlock.join(arguments, ", "));
+        }
+        return null;
+    }
+
+    private String resolveUniqueName(TypeElement element) {
+        List<String> names = Lists.newArrayList();
+        Element current = element;
+        while (current.getKind() == ElementKind.CLASS || current.getKind() == ElementKind.INTERFACE) {
+            names.add(0, current.getSimpleName().toString());
+            current = current.getEnclosingElement();
+        }
+        return names.stream().collect(Collectors.joining("$"));
+    }
+
+    /**
+     * A property of a component, with the code to access it
+     */
+    private static final class Property {
+        private final String name;
+        private final TypeMirror type;
+        private final CodeBlock typeExpression;
+        private final CodeBlock getter;
+        private final CodeBlock setter;
+
+        Property(String name, TypeMirror type, CodeBlock typeExpression, CodeBlock getter, CodeBlock setter) {
+            this.name = name;
+            this.type = type;
+            this.typeExpression = typeExpression;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+}